@@ -27,6 +27,7 @@ import com.redhat.devtools.intellij.kubernetes.actions.getElement
 import com.redhat.devtools.intellij.kubernetes.editor.ResourceEditor
 import com.redhat.devtools.intellij.kubernetes.model.IResourceModel
 import com.redhat.devtools.intellij.kubernetes.tree.ResourceWatchController
+import com.redhat.devtools.intellij.kubernetes.tree.TreeNodeIndex
 import com.redhat.devtools.intellij.kubernetes.tree.TreeStructure
 import com.redhat.devtools.intellij.kubernetes.tree.TreeUpdater
 import io.fabric8.kubernetes.api.model.HasMetadata
@@ -52,8 +53,10 @@ class KubernetesToolWindowFactory: ToolWindowFactory {
         val resourceModel = ServiceManager.getService(IResourceModel::class.java)
         val structure = TreeStructure(project, resourceModel)
         val treeModel = StructureTreeModelFactory.create(structure, project)
-        TreeUpdater(treeModel, structure, resourceModel)
+        val nodes = TreeNodeIndex(treeModel)
+        TreeUpdater(treeModel, structure, resourceModel, nodes)
         val tree = Tree(AsyncTreeModel(treeModel, project))
+        nodes.install(tree)
         tree.isRootVisible = false
         tree.cellRenderer = NodeRenderer()
         tree.addDoubleClickListener(openResourceEditor(project))
@@ -15,7 +15,6 @@ import com.redhat.devtools.intellij.common.actions.StructureTreeAction
 import io.fabric8.kubernetes.api.model.HasMetadata
 import com.redhat.devtools.intellij.kubernetes.model.util.hasDeletionTimestamp
 import com.redhat.devtools.intellij.kubernetes.editor.ResourceEditor
-import com.redhat.devtools.intellij.kubernetes.model.Notification
 import javax.swing.tree.TreePath
 
 class EditResourceAction: StructureTreeAction() {
@@ -28,13 +27,7 @@ class EditResourceAction: StructureTreeAction() {
         val descriptor = selected?.get(0)?.getDescriptor() ?: return
         val project = descriptor.project ?: return
         val toEdit: HasMetadata = descriptor.element as? HasMetadata? ?: return
-        try {
-            ResourceEditor.open(toEdit, project)
-        } catch (e: RuntimeException) {
-            Notification().error(
-                "Could not open editor for kubernetes resource ${toEdit.metadata.name}",
-                e.cause?.message ?: e.message ?: "")
-        }
+        ResourceEditor.open(toEdit, project)
     }
 
     override fun isVisible(selected: Array<out Any>?): Boolean {
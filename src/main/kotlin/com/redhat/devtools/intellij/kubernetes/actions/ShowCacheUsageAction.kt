@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.actions
+
+import com.intellij.openapi.actionSystem.AnActionEvent
+import com.intellij.openapi.diagnostic.logger
+import com.intellij.openapi.progress.Progressive
+import com.redhat.devtools.intellij.common.actions.StructureTreeAction
+import com.redhat.devtools.intellij.kubernetes.model.Notification
+import com.redhat.devtools.intellij.kubernetes.model.ResourceCacheManager
+import com.redhat.devtools.intellij.kubernetes.model.ResourceWatch
+import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext
+import com.redhat.devtools.intellij.kubernetes.model.context.IContext
+import javax.swing.tree.TreePath
+
+/**
+ * Shows the estimated memory that the resources that are cached in the current context use
+ * and how long its watches took to be established.
+ */
+class ShowCacheUsageAction : StructureTreeAction(IContext::class.java) {
+
+    override fun actionPerformed(event: AnActionEvent?, path: TreePath?, selectedNode: Any?) {
+        val context: IActiveContext<*, *> = selectedNode?.getElement() ?: return
+        run("Estimating cache usage of ${context.context.name}...", true,
+            Progressive {
+                try {
+                    val usages = context.getCacheUsage()
+                    val latency = context.getWatchLatency()
+                    Notification().info("Cache usage of ${context.context.name}", toMessage(usages, latency))
+                } catch (e: Exception) {
+                    logger<ShowCacheUsageAction>().warn(
+                        "Could not estimate cache usage of context ${context.context.name}.", e)
+                }
+            })
+    }
+
+    private fun toMessage(usages: List<ResourceCacheManager.Usage>, latency: ResourceWatch.Latency): String {
+        val total = usages.map { it.bytes }.sum()
+        val lines = usages
+            .filter { it.resources > 0 }
+            .sortedByDescending { it.bytes }
+            .map { usage ->
+                val namespace = usage.namespace ?: "(all namespaces)"
+                "${usage.kind.kind} $namespace: ${usage.resources} resources, ${toKilobytes(usage.bytes)}"
+            }
+        return (listOf("Total: ${toKilobytes(total)}") + lines + toMessage(latency))
+            .joinToString("<br/>")
+    }
+
+    private fun toMessage(latency: ResourceWatch.Latency): String {
+        return "Watches: ${latency.watches} established," +
+                " waited ${latency.averageWait}ms on average (max ${latency.maxWait}ms)," +
+                " took ${latency.averageEstablish}ms on average (max ${latency.maxEstablish}ms)"
+    }
+
+    private fun toKilobytes(bytes: Long): String {
+        return "${bytes / 1024} KB"
+    }
+
+    override fun isVisible(selected: Any?): Boolean {
+        return true == selected?.getElement<IContext>()?.active
+    }
+
+    override fun isVisible(selected: Array<out Any>?): Boolean {
+        return selected?.size == 1
+                && isVisible(selected[0])
+    }
+}
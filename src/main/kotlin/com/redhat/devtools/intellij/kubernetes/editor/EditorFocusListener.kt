@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.redhat.devtools.intellij.kubernetes.editor
 
+import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.fileEditor.FileEditor
 import com.intellij.openapi.fileEditor.FileEditorManager
 import com.intellij.openapi.fileEditor.FileEditorManagerEvent
@@ -18,8 +19,27 @@ import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import com.redhat.devtools.intellij.kubernetes.editor.notification.ErrorNotification
 import com.redhat.devtools.intellij.kubernetes.model.ResourceException
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicReference
 
-class EditorFocusListener(private val project: Project) : FileEditorManagerListener, FileEditorManagerListener.Before {
+/**
+ * Starts watching and updates the [ResourceEditor] of an editor that gets selected, stops watching it when it gets
+ * unselected and closes it when its file is closed.
+ * The [ResourceEditor] of a newly selected editor is created and updated in the background, it parses the editor
+ * content and may request the cluster. A previous selection that's still running is cancelled.
+ */
+open class EditorFocusListener(
+    private val project: Project,
+    // for mocking purposes
+    private val getResourceEditor: (editor: FileEditor?, project: Project?) -> ResourceEditor? =
+        ResourceEditor.Companion::get,
+    // for mocking purposes
+    private val getExistingResourceEditor: (editor: FileEditor?) -> ResourceEditor? =
+        ResourceEditor.Companion::getExisting
+) : FileEditorManagerListener, FileEditorManagerListener.Before {
+
+    /** the latest selection that's running in the background **/
+    private val selection = AtomicReference<Selection?>()
 
     override fun selectionChanged(event: FileEditorManagerEvent) {
         handleSelectionLost(event.oldEditor, project)
@@ -31,7 +51,14 @@ class EditorFocusListener(private val project: Project) : FileEditorManagerListe
     }
 
     override fun beforeFileClosed(source: FileEditorManager, file: VirtualFile) {
-        ResourceEditor.get(source.getSelectedEditor(file), source.project)
+        val editor = source.getSelectedEditor(file) ?: return
+        val closing = selection.getAndUpdate { latest ->
+            if (latest?.editor == editor) null else latest
+        }
+        if (closing?.editor == editor) {
+            closing?.operation?.cancel(true)
+        }
+        getExistingResourceEditor.invoke(editor)
             ?.close()
     }
 
@@ -39,16 +66,23 @@ class EditorFocusListener(private val project: Project) : FileEditorManagerListe
         if (editor == null) {
             return
         }
-        try {
-            ResourceEditor.get(editor, project)
-                ?.startWatch()
-                ?.update()
-        } catch (e: ResourceException) {
-            ErrorNotification(editor, project).show(
-                "Error contacting cluster. Make sure it's reachable, api version supported, etc.",
-                e.cause ?: e
-            )
+        val operation = executeInBackground {
+            try {
+                val resourceEditor = getResourceEditor.invoke(editor, project)
+                if (Thread.currentThread().isInterrupted) {
+                    return@executeInBackground
+                }
+                resourceEditor
+                    ?.startWatch()
+                    ?.update()
+            } catch (e: ResourceException) {
+                ErrorNotification(editor, project).show(
+                    "Error contacting cluster. Make sure it's reachable, api version supported, etc.",
+                    e.cause ?: e
+                )
+            }
         }
+        selection.getAndSet(Selection(editor, operation))?.operation?.cancel(true)
     }
 
     private fun handleSelectionLost(editor: FileEditor?, project: Project) {
@@ -56,7 +90,7 @@ class EditorFocusListener(private val project: Project) : FileEditorManagerListe
             return
         }
         try {
-            ResourceEditor.get(editor, project)?.stopWatch()
+            getExistingResourceEditor.invoke(editor)?.stopWatch()
         } catch (e: RuntimeException) {
             ErrorNotification(editor, project).show(
                 "Error contacting cluster. Make sure it's reachable, api version supported, etc.",
@@ -65,5 +99,9 @@ class EditorFocusListener(private val project: Project) : FileEditorManagerListe
         }
     }
 
-}
+    protected open fun executeInBackground(runnable: () -> Unit): Future<*>? {
+        return ApplicationManager.getApplication().executeOnPooledThread(Runnable { runnable.invoke() })
+    }
 
+    private class Selection(val editor: FileEditor, val operation: Future<*>?)
+}
@@ -11,14 +11,16 @@
 package com.redhat.devtools.intellij.kubernetes.editor
 
 import com.intellij.openapi.editor.Document
+import com.intellij.openapi.application.ReadAction
 import com.intellij.openapi.fileEditor.FileEditor
 import com.redhat.devtools.intellij.kubernetes.editor.util.getDocument
 import com.redhat.devtools.intellij.kubernetes.model.ResourceException
-import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceDefinitionMapping
+import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceDefinitions
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.GenericCustomResource
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.hasmetadata.HasMetadataResource
 import com.redhat.devtools.intellij.kubernetes.model.Clients
 import com.redhat.devtools.intellij.kubernetes.model.util.createResource
+import com.redhat.devtools.intellij.kubernetes.model.util.createTree
 import io.fabric8.kubernetes.api.model.HasMetadata
 import io.fabric8.kubernetes.client.KubernetesClient
 import io.fabric8.kubernetes.client.KubernetesClientException
@@ -46,11 +48,8 @@ object EditorResourceFactory {
      *
      */
     private fun create(document: Document?, clients: Clients<out KubernetesClient>): HasMetadata? {
-        return if (document?.text == null) {
-            null
-        } else {
-            create(document.text, clients)
-        }
+        val text = ReadAction.compute<String?, Exception> { document?.text } ?: return null
+        return create(text, clients)
     }
 
     /**
@@ -64,29 +63,34 @@ object EditorResourceFactory {
      * @return [HasMetadata] for the given editor and clients
      * @throws ResourceException if the given json/yaml is invalid or the custom resource definitions could not be retrieved
      *
-     * @see CustomResourceDefinitionMapping
+     * @see CustomResourceDefinitions
      */
     private fun create(jsonYaml: String, clients: Clients<out KubernetesClient>): HasMetadata {
+        // parse once, create resources from the tree
+        val tree = try {
+            createTree(jsonYaml)
+        } catch (e: Exception) {
+            throw ResourceException("Invalid kubernetes yaml/json", e.cause ?: e)
+        }
         val resource = try {
-            createResource<HasMetadataResource>(jsonYaml)
+            createResource<HasMetadataResource>(tree)
         } catch (e: Exception) {
             throw ResourceException("Invalid kubernetes yaml/json", e.cause ?: e)
         }
 
         return try {
-            val definitions = CustomResourceDefinitionMapping.getDefinitions(clients.get())
-            if (CustomResourceDefinitionMapping.isCustomResource(resource, definitions)) {
-                createResource<GenericCustomResource>(jsonYaml)
+            if (clients.getCustomResourceDefinitions().isCustomResource(resource)) {
+                createResource<GenericCustomResource>(tree)
             } else {
-                createResource(jsonYaml)
+                createResource(tree)
             }
         } catch(e: KubernetesClientException) {
             // cluster not reachable or invalid kube config
             return try {
-                createResource(jsonYaml)
+                createResource(tree)
             } catch(e: KubernetesClientException) {
                 // unknown type
-                createResource<GenericCustomResource>(jsonYaml)
+                createResource<GenericCustomResource>(tree)
             }
         }
     }
@@ -22,7 +22,7 @@ class EditorTransactionListener: PsiDocumentTransactionListener {
     }
 
     override fun transactionCompleted(document: Document, file: PsiFile) {
-        getResourceEditor(document)?.update()
+        getResourceEditor(document)?.updateAfterChange()
     }
 
     private fun getResourceEditor(document: Document): ResourceEditor? {
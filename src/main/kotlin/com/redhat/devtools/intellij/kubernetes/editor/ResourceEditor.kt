@@ -15,16 +15,22 @@ import com.intellij.openapi.actionSystem.ActionManager
 import com.intellij.openapi.actionSystem.ActionPlaces
 import com.intellij.openapi.actionSystem.ActionToolbar
 import com.intellij.openapi.actionSystem.impl.ActionToolbarImpl
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.ReadAction
 import com.intellij.openapi.application.WriteAction
 import com.intellij.openapi.diagnostic.logger
 import com.intellij.openapi.editor.Document
 import com.intellij.openapi.fileEditor.FileEditor
 import com.intellij.openapi.fileEditor.FileEditorManager
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.progress.Task
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.util.Key
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.psi.PsiDocumentManager
 import com.intellij.ui.AppUIUtil
+import com.intellij.util.concurrency.AppExecutorUtil
 import com.intellij.util.ui.JBEmptyBorder
 import com.redhat.devtools.intellij.common.utils.UIHelper
 import com.redhat.devtools.intellij.kubernetes.editor.notification.DeletedNotification
@@ -33,18 +39,24 @@ import com.redhat.devtools.intellij.kubernetes.editor.notification.PullNotificat
 import com.redhat.devtools.intellij.kubernetes.editor.notification.PulledNotification
 import com.redhat.devtools.intellij.kubernetes.editor.notification.PushNotification
 import com.redhat.devtools.intellij.kubernetes.editor.util.getDocument
-import com.redhat.devtools.intellij.kubernetes.model.ClientConfig
 import com.redhat.devtools.intellij.kubernetes.model.Clients
+import com.redhat.devtools.intellij.kubernetes.model.ClientsRegistry
 import com.redhat.devtools.intellij.kubernetes.model.ClusterResource
 import com.redhat.devtools.intellij.kubernetes.model.ModelChangeObservable
 import com.redhat.devtools.intellij.kubernetes.model.Notification
 import com.redhat.devtools.intellij.kubernetes.model.ResourceException
-import com.redhat.devtools.intellij.kubernetes.model.createClients
+import com.redhat.devtools.intellij.kubernetes.model.resource.IResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.resource.OperatorFactory
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+import com.redhat.devtools.intellij.kubernetes.model.util.isStripped
 import com.redhat.devtools.intellij.kubernetes.model.util.isSameResource
 import com.redhat.devtools.intellij.kubernetes.model.util.trimWithEllipsis
 import io.fabric8.kubernetes.api.model.HasMetadata
 import io.fabric8.kubernetes.client.KubernetesClient
 import io.fabric8.kubernetes.client.utils.Serialization
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicReference
 import java.util.concurrent.locks.ReentrantLock
 import kotlin.concurrent.withLock
@@ -84,34 +96,96 @@ open class ResourceEditor protected constructor(
     // for mocking purposes
     private val psiDocumentManagerProvider: (Project) -> PsiDocumentManager = { PsiDocumentManager.getInstance(project) },
     // for mocking purposes
-    private val ideNotification: Notification = Notification()
+    private val ideNotification: Notification = Notification(),
+    /** the quiet period (in ms) after document changes before the editor is updated **/
+    private val updateDelay: Long = UPDATE_DELAY
 ) {
     companion object {
+        /** the default quiet period (in ms) after document changes before the editor is updated **/
+        const val UPDATE_DELAY = 300L
         private val KEY_RESOURCE_EDITOR = Key<ResourceEditor>(ResourceEditor::class.java.name)
         private val KEY_TOOLBAR = Key<ActionToolbar>(ActionToolbar::class.java.name)
 
         /**
          * Opens a new editor for the given [HasMetadata] and [Project].
+         * The resource is requested from the cluster in the background if it has its metadata only or had parts removed.
+         * The editor is opened once the resource was retrieved. Notifies the user if this fails.
          *
          * @param resource to edit
          * @param project that this editor belongs to
-         * @return the new [ResourceEditor] that was opened
          */
-        fun open(resource: HasMetadata, project: Project): ResourceEditor? {
-            val file = ResourceFile.create(resource)?.write(resource) ?: return null
-            val editor = FileEditorManager.getInstance(project)
-                .openFile(file, true, true)
-                .getOrNull(0)
-                ?: return null
-            val clients = createClients(ClientConfig {}) ?: return null
-            return create(resource, editor, project, clients)
+        fun open(resource: HasMetadata, project: Project) {
+            ProgressManager.getInstance().run(object :
+                Task.Backgroundable(project, "Opening editor for ${resource.metadata.name}...", true) {
+
+                private var clients: Clients<out KubernetesClient>? = null
+                private var toEdit: HasMetadata? = null
+                private var file: VirtualFile? = null
+
+                override fun run(progress: ProgressIndicator) {
+                    val clients = ClientsRegistry.instance.acquire()
+                    this.clients = clients
+                    val toEdit = getFull(resource, clients)
+                    this.toEdit = toEdit
+                    this.file = ResourceFile.create(toEdit)?.write(toEdit)
+                }
+
+                override fun onSuccess() {
+                    var opened = false
+                    try {
+                        val file = this.file ?: return
+                        val toEdit = this.toEdit ?: return
+                        val clients = this.clients ?: return
+                        val editor = FileEditorManager.getInstance(project)
+                            .openFile(file, true, true)
+                            .getOrNull(0)
+                            ?: return
+                        create(toEdit, editor, project, clients)
+                        opened = true
+                    } finally {
+                        if (!opened) {
+                            clients?.close()
+                        }
+                    }
+                }
+
+                override fun onCancel() {
+                    clients?.close()
+                }
+
+                override fun onThrowable(error: Throwable) {
+                    clients?.close()
+                    logger<ResourceEditor>().warn("Could not open editor for resource ${resource.metadata.name}.", error)
+                    Notification().error(
+                        "Could not open editor for kubernetes resource ${resource.metadata.name}",
+                        error.cause?.message ?: error.message ?: "")
+                }
+            })
+        }
+
+        /**
+         * Returns the full resource from cluster if the given resource has its metadata only or had parts removed.
+         * Returns the given resource otherwise.
+         * Requests the cluster and should therefore not be called on the event dispatch thread.
+         */
+        private fun getFull(resource: HasMetadata, clients: Clients<out KubernetesClient>): HasMetadata {
+            if (!isMetadataOnly(resource)
+                && !isStripped(resource)) {
+                return resource
+            }
+            val operator = OperatorFactory.create<IResourceOperator<out HasMetadata>>(ResourceKind.create(resource), clients)
+            return operator?.get(resource) ?: resource
         }
 
         /**
          * Returns the existing or creates a new [ResourceEditor] for the given [FileEditor] and [Project].
          * Returns `null` if the given [FileEditor] is `null`, not a [ResourceEditor] or the given [Project] is `null`.
+         * Creating a new [ResourceEditor] parses the editor content and may request the cluster.
+         * It should therefore not be called on the event dispatch thread if there's no existing [ResourceEditor].
          *
          * @return the existing or a new [ResourceEditor].
+         *
+         * @see [getExisting]
          */
         fun get(editor: FileEditor?, project: Project?): ResourceEditor? {
             if (editor == null
@@ -120,15 +194,34 @@ open class ResourceEditor protected constructor(
                 return null
             }
             return editor.getUserData(KEY_RESOURCE_EDITOR)
-                ?: create(editor, project)
+                ?: synchronized(editor) {
+                    editor.getUserData(KEY_RESOURCE_EDITOR)
+                        ?: create(editor, project)
+                }
+        }
+
+        /**
+         * Returns the existing [ResourceEditor] for the given [FileEditor].
+         * Returns `null` if the given [FileEditor] is `null` or has no [ResourceEditor] yet.
+         * Never creates a new [ResourceEditor] and can therefore be called on the event dispatch thread.
+         *
+         * @return the existing [ResourceEditor] or `null`
+         */
+        fun getExisting(editor: FileEditor?): ResourceEditor? {
+            return editor?.getUserData(KEY_RESOURCE_EDITOR)
         }
 
         private fun create(editor: FileEditor, project: Project): ResourceEditor? {
+            val clients = ClientsRegistry.instance.acquire()
             try {
-                val clients = createClients(ClientConfig {}) ?: return null
-                val resource = EditorResourceFactory.create(editor, clients) ?: return null
+                val resource = EditorResourceFactory.create(editor, clients)
+                if (resource == null) {
+                    clients.close()
+                    return null
+                }
                 return create(resource, editor, project, clients)
             } catch(e: ResourceException) {
+                clients.close()
                 ErrorNotification(editor, project).show(e.message ?: "", e.cause?.message)
                 return null
             }
@@ -188,23 +281,71 @@ open class ResourceEditor protected constructor(
             }
         }
 
+    /** the latest update that's running in the background **/
+    private val updateOperation = AtomicReference<Future<*>?>()
+    /** the latest start of the watch that's running in the background **/
+    private val watchOperation = AtomicReference<Future<*>?>()
+    /** the hash of the document content that this editor was last updated for **/
+    @Volatile
+    private var updatedContentHash: Int? = null
+
     /**
      * Updates this editors notifications and title.
+     * The update runs in the background, a previous update that's still running is cancelled.
      *
      * @see [FileEditor.isValid]
      */
     fun update() {
+        runLatestInBackground(updateOperation) {
+            updateNow(null)
+        }
+    }
+
+    /**
+     * Updates this editors notifications and title once the document was not changed for the quiet period.
+     * Changes within the quiet period are coalesced into a single update.
+     * Does nothing if the content of the document is the same as when this editor was last updated.
+     */
+    fun updateAfterChange() {
+        runLatestInBackground(updateOperation, updateDelay) {
+            val contentHash = getContentHash()
+            if (contentHash != null
+                && contentHash == updatedContentHash) {
+                return@runLatestInBackground
+            }
+            updateNow(contentHash)
+        }
+    }
+
+    /**
+     * Updates this editor for the current document content.
+     *
+     * @param contentHash the hash of the document content that's updated for, `null` if unknown
+     */
+    private fun updateNow(contentHash: Int?) {
         try {
             val resource = createResource.invoke(editor, clients) ?: return
             resourceChangeMutex.withLock {
                 this.editorResource = resource
             }
+            val clusterResource = this.clusterResource
+            if (isCancelled()) {
+                return
+            }
             update(resource, clusterResource, oldClusterResource)
+            this.updatedContentHash = contentHash
         } catch (e: ResourceException) {
-            showErrorNotification(e)
+            if (!isCancelled()) {
+                showErrorNotification(e)
+            }
         }
     }
 
+    private fun getContentHash(): Int? {
+        val document = documentProvider.invoke(editor) ?: return null
+        return executeReadAction { document.text }?.hashCode()
+    }
+
     private fun update(resource: HasMetadata?, clusterResource: ClusterResource?, oldClusterResource: ClusterResource?) {
         if (resource == null
             || clusterResource == null) {
@@ -383,15 +524,40 @@ open class ResourceEditor protected constructor(
         }
     }
 
+    /**
+     * Starts watching the resource on the cluster. Watching is started in the background,
+     * a previous start that's still running is cancelled.
+     */
     fun startWatch(): ResourceEditor {
-        clusterResource?.watch()
+        runLatestInBackground(watchOperation) {
+            try {
+                clusterResource?.watch()
+            } catch (e: ResourceException) {
+                if (!isCancelled()) {
+                    showErrorNotification(e)
+                }
+            }
+        }
         return this
     }
 
+    /**
+     * Stops watching the resource on the cluster. Cancels starting the watch if it's still running.
+     */
     fun stopWatch() {
+        watchOperation.getAndSet(null)?.cancel(true)
         clusterResource?.stopWatch()
     }
 
+    private fun runLatestInBackground(latest: AtomicReference<Future<*>?>, delay: Long = 0, runnable: () -> Unit) {
+        val operation = executeInBackground(delay, runnable)
+        latest.getAndSet(operation)?.cancel(true)
+    }
+
+    private fun isCancelled(): Boolean {
+        return Thread.currentThread().isInterrupted
+    }
+
     private fun createClusterResource(resource: HasMetadata?, clients: Clients<out KubernetesClient>): ClusterResource? {
         if (resource == null) {
             return null
@@ -432,8 +598,15 @@ open class ResourceEditor protected constructor(
         }
     }
 
+    /**
+     * Closes this editor. Stops watching the resource and releases the (shared) clients.
+     */
     fun close() {
+        updateOperation.getAndSet(null)?.cancel(true)
+        watchOperation.getAndSet(null)?.cancel(true)
         clusterResource?.close()
+        clients.close()
+        editor.putUserData(KEY_RESOURCE_EDITOR, null)
     }
 
     /**
@@ -449,6 +622,18 @@ open class ResourceEditor protected constructor(
         createFileForVirtual(file)?.enableNonProjectFileEditing()
     }
 
+    protected open fun executeInBackground(delay: Long, runnable: () -> Unit): Future<*>? {
+        return if (delay <= 0) {
+            ApplicationManager.getApplication().executeOnPooledThread(Runnable { runnable.invoke() })
+        } else {
+            AppExecutorUtil.getAppScheduledExecutorService().schedule(Runnable { runnable.invoke() }, delay, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    protected open fun <R> executeReadAction(computable: () -> R): R {
+        return ReadAction.compute<R, Exception>(computable)
+    }
+
     protected open fun executeWriteAction(runnable: () -> Unit) {
         UIHelper.executeInUI {
             WriteAction.compute<Unit, Exception>(runnable)
@@ -14,13 +14,36 @@ import io.fabric8.kubernetes.client.AppsAPIGroupClient
 import io.fabric8.kubernetes.client.BatchAPIGroupClient
 import io.fabric8.kubernetes.client.Client
 import io.fabric8.kubernetes.client.ExtensionsAPIGroupClient
+import io.fabric8.kubernetes.client.KubernetesClient
 import io.fabric8.kubernetes.client.StorageAPIGroupClient
 import io.fabric8.openshift.client.OpenShiftClient
+import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceDefinitions
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
 
-class Clients<C: Client>(private val client: C) {
+/**
+ * The clients for a cluster. Instances may be shared, they are then [retain]ed by each user and only closed once
+ * all users [close]d them.
+ *
+ * @param client the client to the cluster
+ * @param onClosed the operation that's called once this instance was closed by all its users
+ *
+ * @see ClientsRegistry
+ */
+class Clients<C: Client>(
+    private val client: C,
+    private val onClosed: (Clients<C>) -> Unit = {}
+) {
 
     private val clients = ConcurrentHashMap<Class<out Client>, Client>()
+    private val references = AtomicInteger(1)
+    private val customResourceDefinitions = lazy {
+        CustomResourceDefinitions(get(KubernetesClient::class.java))
+    }
+    private val watches = lazy {
+        @Suppress("UNCHECKED_CAST")
+        ResourceWatchMultiplexer(this as Clients<out KubernetesClient>)
+    }
 
     fun isOpenShift(): Boolean {
         return OpenShiftClient::class.java.isAssignableFrom(client.javaClass)
@@ -46,6 +69,25 @@ class Clients<C: Client>(private val client: C) {
         return get(ExtensionsAPIGroupClient::class.java)
     }
 
+    /**
+     * Returns the custom resource definitions of the cluster. They're shared by all users of this instance.
+     *
+     * @return the custom resource definitions of the cluster
+     */
+    fun getCustomResourceDefinitions(): CustomResourceDefinitions {
+        return customResourceDefinitions.value
+    }
+
+    /**
+     * Returns the watches that are shared by all users of this instance.
+     * Resources of the same kind in the same namespace are then watched by a single watch.
+     *
+     * @return the watches shared by all users of this instance
+     */
+    fun getWatches(): ResourceWatchMultiplexer {
+        return watches.value
+    }
+
     fun <T: Client> get(type: Class<T>): T {
         @Suppress("UNCHECKED_CAST")
         return if (type.isAssignableFrom(client::class.java)) {
@@ -55,8 +97,38 @@ class Clients<C: Client>(private val client: C) {
         }
     }
 
+    /**
+     * Adds a user to this instance. Returns `false` if this instance was already closed by all its users.
+     *
+     * @return true if this instance was retained, false if it's closed
+     */
+    fun retain(): Boolean {
+        while (true) {
+            val current = references.get()
+            if (current <= 0) {
+                return false
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true
+            }
+        }
+    }
+
+    /**
+     * Removes a user of this instance. Closes the clients once all users closed this instance.
+     */
     fun close() {
+        if (references.decrementAndGet() > 0) {
+            return
+        }
+        if (watches.isInitialized()) {
+            watches.value.close()
+        }
+        if (customResourceDefinitions.isInitialized()) {
+            customResourceDefinitions.value.close()
+        }
         clients.values.forEach{ it.close() }
         client.close()
+        onClosed.invoke(this)
     }
 }
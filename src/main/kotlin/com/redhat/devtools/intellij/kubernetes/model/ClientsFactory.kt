@@ -17,25 +17,24 @@ import io.fabric8.kubernetes.client.KubernetesClientException
 import io.fabric8.openshift.client.NamespacedOpenShiftClient
 import io.fabric8.openshift.client.OpenShiftNotAvailableException
 
-fun createClients(
-	context: String?
-): Clients<out KubernetesClient> {
+/**
+ * Creates a client for the given context. Returns an OpenShift client if the cluster is an OpenShift cluster,
+ * a Kubernetes client otherwise.
+ *
+ * @param context the name of the context to create the client for, the current context if `null`
+ * @return the client for the given context
+ */
+fun createClient(context: String?): KubernetesClient {
 	val config = Config.autoConfigure(context)
 	val k8Client = DefaultKubernetesClient(config)
 	return try {
-		val osClient = k8Client.adapt(NamespacedOpenShiftClient::class.java)
-		Clients(osClient)
+		k8Client.adapt(NamespacedOpenShiftClient::class.java)
 	} catch (e: RuntimeException) {
 		when (e) {
 			is KubernetesClientException,
 			is OpenShiftNotAvailableException ->
-				Clients(k8Client)
+				k8Client
 			else -> throw e
 		}
 	}
 }
-
-fun createClients(config: ClientConfig): Clients<out KubernetesClient>? {
-	val cluster =  config.currentContext?.context?.cluster
-	return createClients(cluster)
-}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.intellij.openapi.diagnostic.logger
+import io.fabric8.kubernetes.client.Config
+import io.fabric8.kubernetes.client.KubernetesClient
+
+/**
+ * A registry of [Clients] that are shared by all users (contexts, editors, etc.) of the same kube context.
+ * Users [acquire] the clients for a context and [Clients.close] them once they don't need them anymore.
+ * The clients (and their connection pool) are closed once all users closed them.
+ * Clients are only shared as long as the context resolves to the same cluster, user and namespace. Users that
+ * acquire clients once the kube config changed the context get new clients.
+ *
+ * @param clientFactory the factory that creates the client for a given context
+ * @param currentContext the provider for the name of the current context
+ * @param fingerprint the provider for what the given context resolves to in the kube config
+ */
+open class ClientsRegistry(
+    // for mocking purposes
+    private val clientFactory: (context: String?) -> KubernetesClient = ::createClient,
+    // for mocking purposes
+    private val currentContext: () -> String? = { Config.autoConfigure(null).currentContext?.name },
+    // for mocking purposes
+    private val fingerprint: (context: String?) -> Any? = ::getFingerprint
+) {
+
+    companion object {
+        val instance: ClientsRegistry by lazy { ClientsRegistry() }
+
+        /**
+         * Returns the cluster, user, credentials and namespace that the given context resolves to in the kube config.
+         *
+         * @param context the name of the context, the current context if `null`
+         * @return the values that the given context resolves to
+         */
+        fun getFingerprint(context: String?): Any? {
+            val config = Config.autoConfigure(context)
+            return listOf(
+                config.masterUrl,
+                config.username,
+                config.password,
+                config.oauthToken,
+                config.clientCertFile,
+                config.clientCertData,
+                config.clientKeyFile,
+                config.clientKeyData,
+                config.namespace)
+        }
+    }
+
+    /**
+     * The key of the clients for a context.
+     *
+     * @param context the name of the context
+     * @param fingerprint what the context resolved to when the clients were created
+     */
+    private data class Key(val context: String?, val fingerprint: Any?)
+
+    private val clients = mutableMapOf<Key, Clients<out KubernetesClient>>()
+
+    /**
+     * Returns the shared clients for the given context. Creates new ones if there are none yet or if they were
+     * closed by all their users. The clients that are returned have to be [Clients.close]d once they're not
+     * needed anymore.
+     *
+     * @param context the name of the context, the current context if `null`
+     * @return the clients for the given context
+     */
+    fun acquire(context: String? = null): Clients<out KubernetesClient> {
+        val name = context ?: currentContext.invoke()
+        val key = Key(name, fingerprint.invoke(name))
+        val existing = retain(key)
+        if (existing != null) {
+            return existing
+        }
+        logger<ClientsRegistry>().debug("Creating clients for context $name.")
+        // create outside of the lock, creating the client may query the cluster
+        val created = Clients(clientFactory.invoke(name)) { closed -> remove(key, closed) }
+        val concurrent = synchronized(clients) {
+            retain(key)
+                ?: run {
+                    clients[key] = created
+                    null
+                }
+        }
+        if (concurrent != null) {
+            logger<ClientsRegistry>().debug("Clients for context $name were created concurrently, closing duplicate.")
+            created.close()
+            return concurrent
+        }
+        return created
+    }
+
+    private fun retain(key: Key): Clients<out KubernetesClient>? {
+        synchronized(clients) {
+            val existing = clients[key]
+            return if (existing != null
+                && existing.retain()) {
+                existing
+            } else {
+                null
+            }
+        }
+    }
+
+    private fun remove(key: Key, closed: Clients<*>) {
+        synchronized(clients) {
+            if (clients[key] === closed) {
+                logger<ClientsRegistry>().debug("Removing closed clients for context ${key.context}.")
+                clients.remove(key)
+            }
+        }
+    }
+}
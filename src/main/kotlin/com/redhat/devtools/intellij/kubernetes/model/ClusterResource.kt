@@ -15,7 +15,6 @@ import com.redhat.devtools.intellij.kubernetes.model.ResourceWatch.WatchListener
 import com.redhat.devtools.intellij.kubernetes.model.resource.IResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.OperatorFactory
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
-import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceDefinitionMapping
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceOperatorFactory
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.GenericCustomResource
 import com.redhat.devtools.intellij.kubernetes.model.util.*
@@ -30,7 +29,7 @@ import io.fabric8.kubernetes.client.KubernetesClientException
 open class ClusterResource(
     resource: HasMetadata,
     private val clients: Clients<out KubernetesClient>,
-    private val watch: ResourceWatch<HasMetadata> = ResourceWatch(),
+    private val watch: ResourceWatch<HasMetadata> = clients.getWatches().createWatch(),
     private val modelChange: ModelChangeObservable = ModelChangeObservable()
 ) {
     private val initialResource: HasMetadata = resource
@@ -279,8 +278,7 @@ open class ClusterResource(
     protected open fun createOperator(resource: HasMetadata): IResourceOperator<out HasMetadata>? {
         return if (resource is GenericCustomResource) {
             val client = clients.get()
-            val definitions = CustomResourceDefinitionMapping.getDefinitions(client)
-            CustomResourceOperatorFactory.create(resource, definitions, client)
+            CustomResourceOperatorFactory.create(resource, clients.getCustomResourceDefinitions(), client)
         } else {
             val kind = ResourceKind.create(resource)
             OperatorFactory.create(kind, clients)
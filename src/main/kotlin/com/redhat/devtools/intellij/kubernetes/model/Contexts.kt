@@ -23,6 +23,7 @@ interface IContexts {
 	fun setCurrent(context: IContext): Boolean
 	fun setCurrentNamespace(namespace: String): Boolean
 	fun clear(): Boolean
+	fun close()
 }
 
 open class Contexts(
@@ -30,16 +31,21 @@ open class Contexts(
 	private val factory: (IModelChangeObservable, NamedContext) -> IActiveContext<out HasMetadata, out KubernetesClient>
 ) : IContexts {
 
-	override var current: IActiveContext<out HasMetadata, out KubernetesClient>? = null
+	private var active: IActiveContext<out HasMetadata, out KubernetesClient>? = null
+
+	override var current: IActiveContext<out HasMetadata, out KubernetesClient>?
 		get() {
 			synchronized(this) {
-				if (field == null
+				if (active == null
 						&& config.currentContext != null) {
-					field = create(config.currentContext!!)
+					active = create(config.currentContext!!)
 				}
-				return field
+				return active
 			}
 		}
+		set(value) {
+			active = value
+		}
 
 	override val all: MutableList<IContext> = mutableListOf()
 		get() {
@@ -98,6 +104,16 @@ open class Contexts(
 		}
 	}
 
+	/**
+	 * Closes the current context if it was created. It is not created if it doesn't exist yet.
+	 */
+	override fun close() {
+		synchronized(this) {
+			active?.close()
+			active = null
+		}
+	}
+
 	protected open fun refresh() {
 		if (clear()) {
 			modelObservable.fireModified(this) // invalidates root bcs there's no tree node for this
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.intellij.openapi.diagnostic.logger
+import com.intellij.openapi.util.registry.Registry
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.client.utils.Serialization
+import java.util.MissingResourceException
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Keeps the resources that are cached in a context within a memory budget. The caches are identified by
+ * kind and namespace. Once the estimated size of all caches exceeds the budget, the caches that were used least
+ * recently are evicted until the budget is met again. Caches that were never used (ex. resources of namespaces that
+ * are kept warm) are evicted first.
+ *
+ * The size of a cache is an estimate: the average length of a few of its resources serialized to json
+ * times the number of its resources. The average length is sampled once per kind, the size of a cache can therefore
+ * be estimated by its number of resources only. The caches are only evicted when resources are inserted
+ * (ex. listed), not each time that they're used.
+ *
+ * @param budget the maximum number of bytes that the caches may use
+ */
+open class ResourceCacheManager(
+    private val budget: Long = getBudget()
+) {
+
+    companion object {
+        const val REGISTRY_KEY = "kubernetes.cache.budget"
+        /** the default budget in megabytes **/
+        const val DEFAULT_BUDGET = 256
+        /** the number of resources that are serialized to estimate the average size of the resources of a kind **/
+        const val SAMPLE_SIZE = 10
+        /** the size that is assumed for resources that cannot be serialized **/
+        private const val DEFAULT_RESOURCE_SIZE = 4096L
+
+        private fun getBudget(): Long {
+            val megabytes = try {
+                Registry.get(REGISTRY_KEY).asInteger()
+            } catch (e: MissingResourceException) {
+                DEFAULT_BUDGET
+            }
+            return megabytes * 1024L * 1024L
+        }
+    }
+
+    /**
+     * The estimated size of a cache.
+     *
+     * @param kind the kind of the cached resources
+     * @param namespace the namespace of the cached resources, `null` if they are cluster wide
+     * @param resources the number of cached resources
+     * @param bytes the estimated number of bytes that the cached resources use
+     */
+    data class Usage(
+        val kind: ResourceKind<out HasMetadata>,
+        val namespace: String?,
+        val resources: Int,
+        val bytes: Long
+    ) {
+        val key: Pair<ResourceKind<out HasMetadata>, String?>
+            get() {
+                return Pair(kind, namespace)
+            }
+    }
+
+    /** the caches in the order that they were used, least recently used first **/
+    private val used = LinkedHashMap<Pair<ResourceKind<out HasMetadata>, String?>, Boolean>(16, 0.75f, true)
+    private val averageSizes = ConcurrentHashMap<ResourceKind<out HasMetadata>, Long>()
+
+    /**
+     * Marks the cache for the given kind and namespace as the one that was used most recently.
+     *
+     * @param kind the kind of the resources that were used
+     * @param namespace the namespace of the resources that were used, `null` if they are cluster wide
+     */
+    fun used(kind: ResourceKind<out HasMetadata>, namespace: String?) {
+        synchronized(used) {
+            used[Pair(kind, namespace)] = true
+        }
+    }
+
+    /**
+     * Returns the estimated size of the given resources of the given kind and namespace.
+     * The average size of the resources of a kind is estimated once and used for all later estimates.
+     *
+     * @param kind the kind of the given resources
+     * @param namespace the namespace of the given resources, `null` if they are cluster wide
+     * @param resources the resources to estimate the size of
+     * @return the estimated size
+     */
+    fun estimate(kind: ResourceKind<out HasMetadata>, namespace: String?, resources: Collection<HasMetadata>): Usage {
+        return estimate(kind, namespace, resources.size) { resources }
+    }
+
+    /**
+     * Returns the estimated size of the given number of resources of the given kind and namespace.
+     * The average size of the resources of a kind is estimated from the sample that the given operation returns.
+     * The operation is only invoked if the average size of the given kind was not estimated yet.
+     *
+     * @param kind the kind of the resources
+     * @param namespace the namespace of the resources, `null` if they are cluster wide
+     * @param resources the number of resources to estimate the size of
+     * @param sample the operation that returns the resources to estimate the average size from
+     * @return the estimated size
+     */
+    fun estimate(
+        kind: ResourceKind<out HasMetadata>,
+        namespace: String?,
+        resources: Int,
+        sample: () -> Collection<HasMetadata>?
+    ): Usage {
+        if (resources == 0) {
+            return Usage(kind, namespace, 0, 0)
+        }
+        val averageSize = averageSizes[kind]
+            ?: getAverageSize(kind, sample.invoke())
+        return Usage(kind, namespace, resources, averageSize * resources)
+    }
+
+    private fun getAverageSize(kind: ResourceKind<out HasMetadata>, sample: Collection<HasMetadata>?): Long {
+        if (sample.isNullOrEmpty()) {
+            return DEFAULT_RESOURCE_SIZE
+        }
+        return averageSizes.computeIfAbsent(kind) { getAverageSize(sample) }
+    }
+
+    /**
+     * Evicts the given caches, least recently used first, until their estimated size is within the budget.
+     * Caches that the given operation refuses to evict are skipped.
+     *
+     * @param usages the estimated sizes of all caches
+     * @param evict the operation that evicts the given cache. Returns `true` if it was evicted
+     * @return the caches that were evicted
+     */
+    fun evict(usages: Collection<Usage>, evict: (Usage) -> Boolean): Collection<Usage> {
+        var total = usages.map { it.bytes }.sum()
+        if (total <= budget) {
+            return emptyList()
+        }
+        logger<ResourceCacheManager>().debug(
+            "Resource caches use an estimated $total bytes, more than the budget of $budget bytes.")
+        val evicted = mutableListOf<Usage>()
+        for (usage in leastRecentlyUsedFirst(usages)) {
+            if (total <= budget) {
+                break
+            }
+            if (usage.bytes > 0
+                && evict.invoke(usage)) {
+                logger<ResourceCacheManager>().debug(
+                    "Evicted ${usage.resources} cached ${usage.kind} resources in namespace ${usage.namespace}.")
+                total -= usage.bytes
+                evicted.add(usage)
+                synchronized(used) {
+                    used.remove(usage.key)
+                }
+            }
+        }
+        return evicted
+    }
+
+    private fun leastRecentlyUsedFirst(usages: Collection<Usage>): List<Usage> {
+        val order = synchronized(used) {
+            used.keys.withIndex().associate { Pair(it.value, it.index) }
+        }
+        // never used caches come first
+        return usages.sortedBy { order[it.key] ?: -1 }
+    }
+
+    private fun getAverageSize(resources: Collection<HasMetadata>): Long {
+        val sample = resources.take(SAMPLE_SIZE)
+        return sample
+            .map { getSize(it) }
+            .sum() / sample.size
+    }
+
+    private fun getSize(resource: HasMetadata): Long {
+        return try {
+            Serialization.jsonMapper().writeValueAsBytes(resource).size.toLong()
+        } catch (e: JsonProcessingException) {
+            DEFAULT_RESOURCE_SIZE
+        }
+    }
+}
@@ -10,11 +10,13 @@
  ******************************************************************************/
 package com.redhat.devtools.intellij.kubernetes.model
 
+import com.intellij.openapi.Disposable
 import com.intellij.openapi.diagnostic.logger
 import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext
 import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext.ResourcesIn
 import com.redhat.devtools.intellij.kubernetes.model.context.IContext
 import com.redhat.devtools.intellij.kubernetes.model.context.create
+import com.redhat.devtools.intellij.kubernetes.model.resource.ILabelsFilter
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
 import com.redhat.devtools.intellij.kubernetes.model.util.isNotFound
 import io.fabric8.kubernetes.api.model.HasMetadata
@@ -32,6 +34,7 @@ interface IResourceModel {
     fun isCurrentNamespace(resource: HasMetadata): Boolean
     fun <R: HasMetadata> resources(kind: ResourceKind<R>): Namespaceable<R>
     fun resources(definition: CustomResourceDefinition): ListableCustomResources
+    fun <R: HasMetadata> get(resource: R): R?
     fun watch(kind: ResourceKind<out HasMetadata>)
     fun watch(definition: CustomResourceDefinition)
     fun stopWatch(kind: ResourceKind<out HasMetadata>)
@@ -51,7 +54,7 @@ interface IResourceModel {
  * @see [com.redhat.devtools.intellij.kubernetes.actions.getResourceModel]
  * @see [com.intellij.openapi.components.ServiceManager.getService]
  */
-open class ResourceModel : IResourceModel {
+open class ResourceModel : IResourceModel, Disposable {
 
     protected open val observable: IModelChangeObservable by lazy {
         ModelChangeObservable()
@@ -112,6 +115,10 @@ open class ResourceModel : IResourceModel {
 
     fun <R: HasMetadata> getAllResources(kind: ResourceKind<R>, resourceIn: ResourcesIn, filter: Predicate<R>? = null): Collection<R> {
         try {
+            if (filter is ILabelsFilter<R>) {
+                val labels = filter.labels ?: return emptyList()
+                return contexts.current?.getAllResources(kind, resourceIn, labels) ?: emptyList()
+            }
             val resources: Collection<R> = contexts.current?.getAllResources(kind, resourceIn) ?: return emptyList()
             return if (filter == null) {
                 resources
@@ -126,6 +133,17 @@ open class ResourceModel : IResourceModel {
         }
     }
 
+    override fun <R: HasMetadata> get(resource: R): R? {
+        try {
+            return contexts.current?.get(resource)
+        } catch (e: KubernetesClientException) {
+            if (e.isNotFound()) {
+                return null
+            }
+            throw ResourceException("Could not get ${resource.kind} ${resource.metadata.name} for server ${contexts.current?.masterUrl}", e)
+        }
+    }
+
     fun getAllResources(definition: CustomResourceDefinition): Collection<HasMetadata> {
         try {
             return contexts.current?.getAllResources(definition) ?: emptyList()
@@ -181,4 +199,12 @@ open class ResourceModel : IResourceModel {
     override fun delete(resources: List<HasMetadata>) {
         contexts.current?.delete(resources)
     }
+
+    /**
+     * Closes the current context when the IDE shuts down so that it can save its resources.
+     */
+    override fun dispose() {
+        logger<ResourceModel>().debug("Closing current context.")
+        contexts.close()
+    }
 }
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.intellij.openapi.application.PathManager
+import com.intellij.openapi.diagnostic.logger
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.util.registry.Registry
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import com.redhat.devtools.intellij.kubernetes.model.util.setMetadataOnly
+import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.ObjectMeta
+import io.fabric8.kubernetes.client.utils.Serialization
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.nio.file.StandardCopyOption
+
+/**
+ * Snapshots of the resources that the operators of a context have cached. They are saved to the IDE system directory
+ * when a context is closed and restored once the operators of the same context are created again.
+ * The restored resources can then be displayed right away and are reconciled with the cluster
+ * by watching them from the version that they were saved at.
+ *
+ * The resources are saved as projections of their metadata. Annotations and managed fields are not saved
+ * because they are large and may hold sensitive content (ex. the last applied configuration of a secret).
+ * Snapshots should therefore only be restored to operators that cache the metadata of their resources only.
+ *
+ * @param directory the directory that the snapshots are saved to
+ *
+ * @see com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+ */
+open class ResourceSnapshots(
+    private val directory: Path = Paths.get(PathManager.getSystemPath(), "kubernetes", "snapshots")
+) {
+
+    companion object {
+        const val REGISTRY_KEY = "kubernetes.snapshots"
+
+        private const val FORMAT = "format"
+        private const val FORMAT_VERSION = 1
+        private const val SNAPSHOTS = "snapshots"
+        private const val CLASS = "class"
+        private const val VERSION = "version"
+        private const val KIND = "kind"
+        private const val NAMESPACE = "namespace"
+        private const val RESOURCE_VERSION = "resourceVersion"
+        private const val ITEMS = "items"
+        private const val ANNOTATIONS = "annotations"
+        private const val MANAGED_FIELDS = "managedFields"
+
+        /**
+         * Returns the snapshots if they are enabled in the registry. Returns `null` otherwise.
+         */
+        fun createIfEnabled(): ResourceSnapshots? {
+            return if (Registry.`is`(REGISTRY_KEY, false)) {
+                ResourceSnapshots()
+            } else {
+                null
+            }
+        }
+    }
+
+    /**
+     * The resources of a kind that an operator had cached.
+     *
+     * @param kind the kind of the resources
+     * @param namespace the namespace that the resources are in, `null` if they are cluster wide
+     * @param resourceVersion the version that the resources are at
+     * @param resources the resources
+     */
+    class Snapshot(
+        val kind: ResourceKind<out HasMetadata>,
+        val namespace: String?,
+        val resourceVersion: String,
+        val resources: Collection<HasMetadata>
+    )
+
+    private val mapper = Serialization.jsonMapper()
+
+    /**
+     * Saves the given snapshots for the given context. Replaces the snapshots that were saved for it before.
+     * Removes the saved snapshots if there are none given.
+     *
+     * @param context the name of the context that the snapshots belong to
+     * @param snapshots the snapshots to save
+     */
+    fun save(context: String, snapshots: Collection<Snapshot>) {
+        val file = getFile(context)
+        try {
+            if (snapshots.isEmpty()) {
+                Files.deleteIfExists(file)
+                return
+            }
+            logger<ResourceSnapshots>().debug(
+                "Saving snapshots of ${snapshots.map { it.kind }} resources of context $context to $file.")
+            val root = mapper.createObjectNode()
+            root.put(FORMAT, FORMAT_VERSION)
+            val array = root.putArray(SNAPSHOTS)
+            snapshots.forEach { array.add(toJson(it)) }
+            Files.createDirectories(directory)
+            // never leave a partially written snapshot
+            val temporary = Files.createTempFile(directory, file.fileName.toString(), null)
+            mapper.writeValue(temporary.toFile(), root)
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } catch (e: IOException) {
+            logger<ResourceSnapshots>().warn("Could not save snapshots of context $context to $file.", e)
+        }
+    }
+
+    /**
+     * Returns the snapshots that were saved for the given context.
+     * Returns an empty list if there are none or they cannot be read.
+     * The resources of the snapshots are marked as having their metadata only.
+     *
+     * @param context the name of the context to load the snapshots for
+     * @return the snapshots of the given context
+     */
+    fun load(context: String): List<Snapshot> {
+        val file = getFile(context)
+        if (!Files.exists(file)) {
+            return emptyList()
+        }
+        return try {
+            val root = mapper.readTree(file.toFile())
+            if (FORMAT_VERSION != root.get(FORMAT)?.asInt()) {
+                return emptyList()
+            }
+            root.get(SNAPSHOTS)
+                ?.mapNotNull { toSnapshot(it) }
+                ?: emptyList()
+        } catch (e: IOException) {
+            logger<ResourceSnapshots>().warn("Could not load snapshots of context $context from $file.", e)
+            emptyList()
+        }
+    }
+
+    private fun getFile(context: String): Path {
+        return directory.resolve("${FileUtil.sanitizeFileName(context)}.json")
+    }
+
+    private fun toJson(snapshot: Snapshot): JsonNode {
+        val node = mapper.createObjectNode()
+        node.put(CLASS, snapshot.kind.clazz.name)
+        node.put(VERSION, snapshot.kind.version)
+        node.put(KIND, snapshot.kind.kind)
+        node.put(NAMESPACE, snapshot.namespace)
+        node.put(RESOURCE_VERSION, snapshot.resourceVersion)
+        val items = node.putArray(ITEMS)
+        snapshot.resources.forEach { resource ->
+            val metadata = mapper.valueToTree<ObjectNode>(resource.metadata)
+            metadata.remove(ANNOTATIONS)
+            metadata.remove(MANAGED_FIELDS)
+            items.add(metadata)
+        }
+        return node
+    }
+
+    private fun toSnapshot(node: JsonNode): Snapshot? {
+        val className = getText(CLASS, node) ?: return null
+        val version = getText(VERSION, node) ?: return null
+        val kindName = getText(KIND, node) ?: return null
+        val resourceVersion = getText(RESOURCE_VERSION, node) ?: return null
+        return try {
+            val clazz = Class.forName(className, false, ResourceSnapshots::class.java.classLoader)
+            if (!HasMetadata::class.java.isAssignableFrom(clazz)) {
+                return null
+            }
+            @Suppress("UNCHECKED_CAST")
+            val resourceClass = clazz as Class<out HasMetadata>
+            val resources = node.get(ITEMS)
+                ?.map { createResource(resourceClass, it) }
+                ?: emptyList()
+            Snapshot(
+                ResourceKind.create(version, resourceClass, kindName),
+                getText(NAMESPACE, node),
+                resourceVersion,
+                resources)
+        } catch (e: ReflectiveOperationException) {
+            logger<ResourceSnapshots>().debug("Could not restore snapshot of $kindName resources.", e)
+            null
+        }
+    }
+
+    private fun getText(property: String, node: JsonNode): String? {
+        val value = node.get(property) ?: return null
+        if (value.isNull) {
+            return null
+        }
+        return value.asText()
+    }
+
+    private fun createResource(clazz: Class<out HasMetadata>, metadata: JsonNode): HasMetadata {
+        val resource = clazz.newInstance()
+        resource.metadata = mapper.treeToValue(metadata, ObjectMeta::class.java)
+        setMetadataOnly(resource)
+        return resource
+    }
+}
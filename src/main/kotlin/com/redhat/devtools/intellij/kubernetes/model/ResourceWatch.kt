@@ -16,89 +16,279 @@ import io.fabric8.kubernetes.client.KubernetesClientException
 import io.fabric8.kubernetes.client.Watch
 import io.fabric8.kubernetes.client.Watcher
 import io.fabric8.kubernetes.client.WatcherException
-import java.util.concurrent.BlockingDeque
+import java.util.concurrent.BlockingQueue
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
-import java.util.concurrent.LinkedBlockingDeque
+import java.util.concurrent.PriorityBlockingQueue
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
 
 /**
  * A watch that listens for changes on the kubernetes cluster and operates actions on a model accordingly.
  * The model is only visible to this watcher by operations that the former provides (addOperation, removeOperation).
+ * A watch that is closed by the cluster is restarted after a delay that doubles with each restart.
+ * The model is notified to be outdated
+ * if the cluster tells that the version that was watched is gone (http 410).
+ * Watches are established concurrently, up to a given maximum at a time. Watches of a higher [Priority] are
+ * established first, watches of the same priority in the order in which they were enqueued.
  */
 open class ResourceWatch<T>(
-    protected val watchOperations: BlockingDeque<WatchOperation<*>> = LinkedBlockingDeque(),
-    watchOperationsRunner: Runnable = WatchOperationsRunner(watchOperations)
+    protected val watchOperations: BlockingQueue<WatchOperation<*>> = createQueue(),
+    private val watchOperationsRunner: Runnable = WatchOperationsRunner(watchOperations, MAX_CONCURRENT_WATCH_OPERATIONS)
 ) {
     companion object {
         @JvmField val WATCH_OPERATION_ENQUEUED: Watch = Watch {  }
+        /** the maximum number of watches that are established at the same time **/
+        const val MAX_CONCURRENT_WATCH_OPERATIONS = 4
+        /** the time in milliseconds after which establishing a watch is reported as slow **/
+        const val SLOW_WATCH_THRESHOLD = 5000L
+        /** the time in milliseconds to wait before a closed watch is restarted for the first time **/
+        const val MIN_RESTART_DELAY = 1000L
+        /** the maximum time in milliseconds to wait before a closed watch is restarted **/
+        const val MAX_RESTART_DELAY = 60000L
+
+        /**
+         * Creates a queue that hands out the watch operations with the highest priority first
+         * and those of the same priority in the order in which they were enqueued.
+         */
+        fun createQueue(): BlockingQueue<WatchOperation<*>> {
+            return PriorityBlockingQueue(11, compareBy<WatchOperation<*>>({ it.priority }, { it.sequence }))
+        }
     }
 
+    /**
+     * The priority of a watch. Watches for resources that are visible to the user are established
+     * before watches that run in the background.
+     */
+    enum class Priority {
+        VISIBLE,
+        BACKGROUND
+    }
+
+    /**
+     * The time that the watches that were established so far waited in the queue and took to be established.
+     */
+    data class Latency(
+        val watches: Int = 0,
+        val totalWait: Long = 0,
+        val maxWait: Long = 0,
+        val totalEstablish: Long = 0,
+        val maxEstablish: Long = 0
+    ) {
+        val averageWait: Long
+            get() = if (watches == 0) 0 else totalWait / watches
+
+        val averageEstablish: Long
+            get() = if (watches == 0) 0 else totalEstablish / watches
+
+        fun add(wait: Long, establish: Long): Latency {
+            return Latency(
+                watches + 1,
+                totalWait + wait,
+                maxOf(maxWait, wait),
+                totalEstablish + establish,
+                maxOf(maxEstablish, establish))
+        }
+    }
+
+    /**
+     * Creates a watch that establishes at most the given number of watches at the same time.
+     *
+     * @param maxConcurrentWatchOperations the maximum number of watches that are established at the same time
+     */
+    constructor(maxConcurrentWatchOperations: Int, watchOperations: BlockingQueue<WatchOperation<*>> = createQueue())
+            : this(watchOperations, WatchOperationsRunner(watchOperations, maxConcurrentWatchOperations))
+
     protected open val watches: ConcurrentHashMap<T, Watch?> = ConcurrentHashMap()
-    private val executor: ExecutorService = Executors.newWorkStealingPool(10)
-    private val thread = executor.submit(watchOperationsRunner)
+    private val latency = AtomicReference(Latency())
+    /** the executor that runs the watch operations. Started with the first watch, shut down when closed **/
+    private var executor: ExecutorService? = null
+    /** the scheduler that delays the restart of closed watches. Started with the first restart, shut down when closed **/
+    private var scheduler: ScheduledExecutorService? = null
 
     open fun watchAll(
         toWatch: Collection<Pair<T, (watcher: Watcher<in HasMetadata>) -> Watch?>>,
         watchListeners: WatchListeners
     ) {
-        toWatch.forEach { watch(it.first, it.second, watchListeners) }
+        watchAll(toWatch, watchListeners, Priority.VISIBLE)
+    }
+
+    /**
+     * Watches the resources for the given keys with the given priority.
+     * Nothing is done for the keys that are watched already.
+     *
+     * @param toWatch the keys and the operations that create their watches
+     * @param watchListeners the listeners that get notified of changes
+     * @param priority the priority with which the watches are established
+     */
+    open fun watchAll(
+        toWatch: Collection<Pair<T, (watcher: Watcher<in HasMetadata>) -> Watch?>>,
+        watchListeners: WatchListeners,
+        priority: Priority
+    ) {
+        toWatch.forEach { watch(it.first, it.second, watchListeners, priority) }
     }
 
     open fun watch(
         key: T,
         watchOperation: (watcher: Watcher<in HasMetadata>) -> Watch?,
         watchListeners: WatchListeners
+    ) {
+        watch(key, watchOperation, watchListeners, Priority.VISIBLE)
+    }
+
+    /**
+     * Watches the resources for the given key with the given priority.
+     * Nothing is done if there's a watch for the given key already.
+     *
+     * @param key the key of the watch
+     * @param watchOperation the operation that creates the watch
+     * @param watchListeners the listeners that get notified of changes
+     * @param priority the priority with which the watch is established
+     */
+    open fun watch(
+        key: T,
+        watchOperation: (watcher: Watcher<in HasMetadata>) -> Watch?,
+        watchListeners: WatchListeners,
+        priority: Priority
     ) {
         watches.computeIfAbsent(key) {
-            logger<ResourceWatch<*>>().debug("Enqueueing watch for $key resources.")
+            logger<ResourceWatch<*>>().debug("Enqueueing watch for $key resources with priority $priority.")
             val operation = WatchOperation(
                     key,
                     watchOperation,
                     watches,
+                    ::restart,
                     watchListeners.added,
                     watchListeners.removed,
-                    watchListeners.replaced)
-            watchOperations.add(operation) // enqueue watch operation
+                    watchListeners.replaced,
+                    watchListeners.outdated,
+                    priority,
+                    ::established)
+            operation.enqueued()
+            watchOperations.add(operation)
             WATCH_OPERATION_ENQUEUED // Marker: watch operation submitted
         }
+        startRunner()
     }
 
-    fun stopWatchAll(keys: Collection<T>): Collection<T> {
+    /**
+     * Returns the time that the watches that were established so far waited in the queue and took to be established.
+     *
+     * @return the latency of the watches that were established
+     */
+    open fun getLatency(): Latency {
+        return latency.get()
+    }
+
+    private fun established(key: Any?, wait: Long, establish: Long) {
+        latency.updateAndGet { it.add(wait, establish) }
+        val message = "Established watch for $key resource(s) in ${establish}ms after waiting ${wait}ms in the queue."
+        if (SLOW_WATCH_THRESHOLD < wait + establish) {
+            logger<ResourceWatch<*>>().info(message)
+        } else {
+            logger<ResourceWatch<*>>().debug(message)
+        }
+    }
+
+    private fun startRunner() {
+        synchronized(this) {
+            if (executor == null) {
+                val executor = Executors.newSingleThreadExecutor()
+                executor.submit(watchOperationsRunner)
+                this.executor = executor
+            }
+        }
+    }
+
+    /**
+     * Returns `true` if there's a watch for the given key. The watch may still be enqueued or being restarted.
+     *
+     * @param key the key to check
+     * @return true if there's a watch for the given key
+     */
+    open fun isWatched(key: T): Boolean {
+        return watches.containsKey(key)
+    }
+
+    /**
+     * Enqueues the given operation once the given delay has passed.
+     * The operation is not enqueued if its watch was stopped in the meantime.
+     *
+     * @param operation the operation to enqueue
+     * @param delay the time in milliseconds to wait before the operation is enqueued
+     */
+    protected open fun restart(operation: WatchOperation<T>, delay: Long) {
+        try {
+            getScheduler().schedule({ enqueue(operation) }, delay, TimeUnit.MILLISECONDS)
+        } catch (e: RejectedExecutionException) {
+            logger<ResourceWatch<*>>().debug("Could not restart watch for ${operation.key} resources, watch was closed.")
+        }
+    }
+
+    protected fun enqueue(operation: WatchOperation<T>) {
+        if (WATCH_OPERATION_ENQUEUED !== watches[operation.key]) {
+            // stopped in the meantime
+            return
+        }
+        operation.enqueued()
+        watchOperations.add(operation)
+    }
+
+    private fun getScheduler(): ScheduledExecutorService {
+        synchronized(this) {
+            return scheduler
+                ?: Executors.newSingleThreadScheduledExecutor().also { scheduler = it }
+        }
+    }
+
+    open fun stopWatchAll(keys: Collection<T>): Collection<T> {
         val existing = watches.entries.filter { keys.contains(it.key) }
         closeAll(existing)
         return existing.map { it.key }
     }
 
-    fun stopWatch(key: T): Watch? {
+    open fun stopWatch(key: T): Watch? {
         try {
             if (key == null) {
                 return null
             }
             logger<ResourceWatch<*>>().debug("Closing watch for $key resource(s).")
-            val watch = watches[key] ?: return null
+            // remove before closing so that the watch is not restarted
+            val watch = watches.remove(key) ?: return null
             watch.close()
-            return watches.remove(key)
+            return watch
         } catch (e: Exception) {
             logger<ResourceWatch<*>>().warn("Could not close watch for $key resources", e)
             return null
         }
     }
 
-    fun close() {
+    /**
+     * Closes all watches and stops the thread that runs the watch operations.
+     */
+    open fun close() {
         closeAll(watches.entries.toList())
+        synchronized(this) {
+            executor?.shutdownNow()
+            executor = null
+            scheduler?.shutdownNow()
+            scheduler = null
+        }
     }
 
     private fun closeAll(entries: Collection<MutableMap.MutableEntry<T, Watch?>>) {
-        val closed = entries.filter {
-            val watch = it.value
-            if (watch == null) {
-                false
-            } else {
-                safeClose(it.key, watch)
-            }
+        entries.forEach {
+            // remove before closing so that the watch is not restarted
+            val watch = watches.remove(it.key) ?: return@forEach
+            safeClose(it.key, watch)
         }
-        closed.forEach { watches.remove(it.key) }
     }
 
     private fun safeClose(type: T, watch: Watch): Boolean {
@@ -112,12 +302,35 @@ open class ResourceWatch<T>(
         }
     }
 
-    private class WatchOperationsRunner(private val watchOperations: BlockingDeque<WatchOperation<*>>) : Runnable {
+    /**
+     * Runs the queued watch operations, at most [maxConcurrent] at the same time.
+     * An operation is only taken off the queue once it can be run so that operations that are queued in front of it
+     * in the meantime are run before it.
+     */
+    private class WatchOperationsRunner(
+        private val watchOperations: BlockingQueue<WatchOperation<*>>,
+        private val maxConcurrent: Int
+    ) : Runnable {
         override fun run() {
-            while (true) {
-                val op = watchOperations.take()
-                logger<ResourceWatch<*>>().debug("Executing watch operation for ${op.key} resource(s).")
-                op.run()
+            val permits = Semaphore(maxConcurrent)
+            val workers = Executors.newFixedThreadPool(maxConcurrent)
+            try {
+                while (!Thread.currentThread().isInterrupted) {
+                    permits.acquire()
+                    val op = watchOperations.take()
+                    logger<ResourceWatch<*>>().debug("Executing watch operation for ${op.key} resource(s).")
+                    workers.execute {
+                        try {
+                            op.run()
+                        } finally {
+                            permits.release()
+                        }
+                    }
+                }
+            } catch (e: InterruptedException) {
+                logger<ResourceWatch<*>>().debug("Stopped executing watch operations.")
+            } finally {
+                workers.shutdownNow()
             }
         }
     }
@@ -125,28 +338,107 @@ open class ResourceWatch<T>(
     class WatchOperation<out T>(
             val key: T,
             private val watchOperation: (watcher: Watcher<in HasMetadata>) -> Watch?,
-            private val watches: MutableMap<T, Watch?>,
+            private val watches: ConcurrentMap<T, Watch?>,
+            private val restartOperation: (operation: WatchOperation<T>, delay: Long) -> Unit,
             private val addOperation: (HasMetadata) -> Unit,
             private val removeOperation: (HasMetadata) -> Unit,
-            private val replaceOperation: (HasMetadata) -> Unit
+            private val replaceOperation: (HasMetadata) -> Unit,
+            private val outdatedOperation: (Any?) -> Unit = {},
+            val priority: Priority = Priority.VISIBLE,
+            private val establishedOperation: (key: Any?, wait: Long, establish: Long) -> Unit = { _, _, _ -> }
     ) : Runnable {
+
+        companion object {
+            private val SEQUENCE = AtomicLong()
+        }
+
+        @Volatile private var enqueuedAt = System.currentTimeMillis()
+        @Volatile private var establishedAt = System.currentTimeMillis()
+        /** the number of times that the watch was restarted in a row **/
+        private var restarts = 0
+
+        /** the position of this operation among the operations of the same priority **/
+        @Volatile var sequence = SEQUENCE.incrementAndGet()
+            private set
+
+        /**
+         * Marks this operation as enqueued at the current time and puts it behind the operations
+         * of the same priority that were enqueued before.
+         * The time is used to report how long it took to establish the watch.
+         * Must not be called while this operation is in the queue.
+         */
+        fun enqueued() {
+            this.enqueuedAt = System.currentTimeMillis()
+            this.sequence = SEQUENCE.incrementAndGet()
+        }
+
         override fun run() {
             try {
                 logger<ResourceWatcher>().debug("Watching $key resource(s).")
-                val watch: Watch? = watchOperation.invoke(ResourceWatcher(addOperation, removeOperation, replaceOperation))
+                val started = System.currentTimeMillis()
+                val watcher = ResourceWatcher(addOperation, removeOperation, replaceOperation) { e -> closed(e) }
+                val watch: Watch? = watchOperation.invoke(watcher)
+                val established = System.currentTimeMillis()
+                establishedOperation.invoke(key, started - enqueuedAt, established - started)
                 saveWatch(watch)
             } catch (e: Exception) {
-                watches.remove(key) // remove placeholder
+                watches.remove(key, WATCH_OPERATION_ENQUEUED) // remove placeholder
                 logger<ResourceWatcher>().warn("Could not watch resource(s) $key.", e)
             }
         }
 
         private fun saveWatch(watch: Watch?) {
             if (watch == null) {
-                watches.remove(key) // remove placeholder
-            } else {
+                watches.remove(key, WATCH_OPERATION_ENQUEUED) // remove placeholder
+            } else if (watches.replace(key, WATCH_OPERATION_ENQUEUED, watch)) { // replace placeholder
                 logger<ResourceWatcher>().debug("Created watch for $key resources.")
-                watches[key] = watch // replace placeholder
+                establishedAt = System.currentTimeMillis()
+            } else {
+                logger<ResourceWatcher>().debug("Watch for $key resources was stopped while it was created, closing it.")
+                watch.close()
+            }
+        }
+
+        /**
+         * Restarts the watch if it was closed by the cluster and was not stopped in the meantime.
+         * The watch operation is expected to resume at the last version that it has seen.
+         * Notifies the [outdatedOperation] before if the version that was watched is gone (http 410)
+         * so that the resources get listed again.
+         */
+        private fun closed(e: WatcherException?) {
+            if (e == null) { // closed by client
+                return
+            }
+            var restart = false
+            // replace closed watch unless it was stopped
+            watches.computeIfPresent(key) { _, _ ->
+                restart = true
+                WATCH_OPERATION_ENQUEUED
+            }
+            if (!restart) {
+                return
+            }
+            if (e.isHttpGone) {
+                logger<ResourceWatcher>().debug("Version of $key resource(s) is gone, resources are outdated.")
+                outdatedOperation.invoke(key)
+            }
+            val delay = getRestartDelay()
+            logger<ResourceWatcher>().debug("Watch for $key resource(s) was closed, restarting it in ${delay}ms.", e)
+            restartOperation.invoke(this, delay)
+        }
+
+        /**
+         * Returns the time to wait before the watch is restarted. It doubles with each restart up to
+         * [MAX_RESTART_DELAY] and starts over once the watch stayed open for longer than that.
+         */
+        private fun getRestartDelay(): Long {
+            synchronized(this) {
+                if (MAX_RESTART_DELAY <= System.currentTimeMillis() - establishedAt) {
+                    restarts = 0
+                }
+                val delay = minOf(MIN_RESTART_DELAY shl minOf(restarts, 6), MAX_RESTART_DELAY)
+                restarts++
+                return delay
             }
         }
     }
@@ -154,7 +446,8 @@ open class ResourceWatch<T>(
     class ResourceWatcher(
             private val addOperation: (HasMetadata) -> Unit,
             private val removeOperation: (HasMetadata) -> Unit,
-            private val replaceOperation: (HasMetadata) -> Unit
+            private val replaceOperation: (HasMetadata) -> Unit,
+            private val closeOperation: (WatcherException?) -> Unit = {}
     ) : Watcher<HasMetadata> {
         override fun eventReceived(action: Watcher.Action?, resource: HasMetadata) {
             logger<ResourceWatcher>().debug(
@@ -173,13 +466,19 @@ open class ResourceWatch<T>(
 
         override fun onClose(e: WatcherException?) {
             logger<ResourceWatcher>().debug("watcher closed.", e)
+            closeOperation.invoke(e)
         }
     }
 
+    /**
+     * The listeners that get notified of resources that were added, removed or replaced.
+     * [outdated] is notified with the key of the watch whose resources are outdated and need to be listed again.
+     */
     class WatchListeners(
         val added: (HasMetadata) -> Unit,
         val removed: (HasMetadata) -> Unit,
-        val replaced: (HasMetadata) -> Unit
+        val replaced: (HasMetadata) -> Unit,
+        val outdated: (Any?) -> Unit = {}
     )
 
 }
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.intellij.openapi.diagnostic.logger
+import com.redhat.devtools.intellij.kubernetes.model.ResourceWatch.WatchListeners
+import com.redhat.devtools.intellij.kubernetes.model.resource.AbstractResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.resource.INamespacedResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.resource.OperatorFactory
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceOperatorFactory
+import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.GenericCustomResource
+import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.client.KubernetesClient
+import io.fabric8.kubernetes.client.Watch
+import io.fabric8.kubernetes.client.Watcher
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Multiplexes the watches for single resources onto a single watch per kind and namespace.
+ * The events of the shared watch are dispatched to the subscribers of the resource with the same name.
+ * A shared watch starts at the version of the resource that subscribed first and resumes at the last version that
+ * it has seen. The resources are therefore neither listed nor cached.
+ * All watches are run by a single [ResourceWatch] and thus share its pool of
+ * [ResourceWatch.MAX_CONCURRENT_WATCH_OPERATIONS] threads, which is stopped when this instance is closed.
+ *
+ * Subscribers use a [ResourceWatch] that is created by [createWatch].
+ *
+ * @param createOperator the factory that creates an operator that can watch all resources of the kind and namespace of
+ * a given resource
+ * @param watch the watch that runs the shared watches
+ */
+open class ResourceWatchMultiplexer(
+    private val createOperator: (resource: HasMetadata) -> AbstractResourceOperator<out HasMetadata>?,
+    // for mocking purposes
+    private val watch: ResourceWatch<Key> = ResourceWatch()
+) {
+
+    constructor(clients: Clients<out KubernetesClient>) : this({ resource -> createOperator(resource, clients) })
+
+    companion object {
+        /**
+         * Returns an operator that watches all resources of the kind of the given resource in its namespace.
+         * Returns `null` if there's none.
+         */
+        private fun createOperator(
+            resource: HasMetadata,
+            clients: Clients<out KubernetesClient>
+        ): AbstractResourceOperator<out HasMetadata>? {
+            if (resource is GenericCustomResource) {
+                return CustomResourceOperatorFactory.create(resource, clients.getCustomResourceDefinitions(), clients.get())
+                        as? AbstractResourceOperator<out HasMetadata>
+            }
+            val namespace = resource.metadata?.namespace
+            val kind = ResourceKind.create(resource)
+            val operator = OperatorFactory.getOperatorsByKind(clients)
+                .filter { kindAndOperatorFactory -> kind == kindAndOperatorFactory.first }
+                .map { kindAndOperatorFactory -> kindAndOperatorFactory.second.invoke(clients) }
+                .filterIsInstance<AbstractResourceOperator<out HasMetadata>>()
+                // dont watch namespaced resources in all namespaces
+                .firstOrNull { operator -> (namespace != null) == (operator is INamespacedResourceOperator<*, *>) }
+            if (operator is INamespacedResourceOperator<*, *>) {
+                operator.namespace = namespace
+            }
+            return operator
+        }
+    }
+
+    /**
+     * The key of a shared watch. [name] is only set if the resources of the kind in the namespace cannot be
+     * watched and the single resource is watched instead.
+     */
+    data class Key(val kind: ResourceKind<out HasMetadata>, val namespace: String?, val name: String? = null)
+
+    private class Subscription(val key: Key, val name: String?, val listeners: WatchListeners)
+
+    private val subscriptions = ConcurrentHashMap<Key, MutableList<Subscription>>()
+    /** the last version that each shared watch has seen **/
+    private val versions = ConcurrentHashMap<Key, String>()
+
+    /**
+     * Returns a new [ResourceWatch] for a subscriber. Watching a resource with it subscribes to the shared watch for
+     * the kind and namespace of the resource. Stopping to watch or closing it unsubscribes.
+     *
+     * @return a watch for a subscriber
+     */
+    fun createWatch(): ResourceWatch<HasMetadata> {
+        return SubscriberWatch()
+    }
+
+    /**
+     * Stops all shared watches and the thread that runs them.
+     */
+    fun close() {
+        logger<ResourceWatchMultiplexer>().debug("Closing all shared watches.")
+        synchronized(subscriptions) {
+            subscriptions.clear()
+            versions.clear()
+        }
+        watch.close()
+    }
+
+    private fun subscribe(
+        resource: HasMetadata,
+        watchOperation: (watcher: Watcher<in HasMetadata>) -> Watch?,
+        listeners: WatchListeners
+    ): Subscription {
+        val name = resource.metadata?.name
+        val kindKey = Key(ResourceKind.create(resource), resource.metadata?.namespace)
+        synchronized(subscriptions) {
+            val existing = subscriptions[kindKey]
+            if (existing != null) {
+                logger<ResourceWatchMultiplexer>().debug("Subscribing $name to existing watch for $kindKey.")
+                return Subscription(kindKey, name, listeners).apply { existing.add(this) }
+            }
+            val operator = createOperator.invoke(resource)
+            val key = if (operator != null) {
+                kindKey
+            } else {
+                // watch single resource
+                kindKey.copy(name = name)
+            }
+            val subscription = Subscription(key, name, listeners)
+            val keySubscriptions = subscriptions.getOrPut(key) { CopyOnWriteArrayList() }
+            keySubscriptions.add(subscription)
+            if (keySubscriptions.size == 1) {
+                logger<ResourceWatchMultiplexer>().debug("Starting shared watch for $key.")
+                setVersion(key, resource)
+                watch.watch(
+                    key,
+                    { watcher ->
+                        if (operator != null) {
+                            operator.watchAllFrom(versions[key], watcher)
+                        } else {
+                            watchOperation.invoke(watcher)
+                        }
+                    },
+                    createDispatchingListeners(key))
+            }
+            return subscription
+        }
+    }
+
+    private fun unsubscribe(subscription: Subscription) {
+        synchronized(subscriptions) {
+            val keySubscriptions = subscriptions[subscription.key] ?: return
+            keySubscriptions.remove(subscription)
+            if (keySubscriptions.isEmpty()) {
+                logger<ResourceWatchMultiplexer>().debug("Stopping shared watch for ${subscription.key}, no subscribers left.")
+                subscriptions.remove(subscription.key)
+                versions.remove(subscription.key)
+                watch.stopWatch(subscription.key)
+            }
+        }
+    }
+
+    private fun createDispatchingListeners(key: Key): WatchListeners {
+        return WatchListeners(
+            { added ->
+                setVersion(key, added)
+                dispatch(key, added) { listeners -> listeners.added }
+            },
+            { removed ->
+                setVersion(key, removed)
+                dispatch(key, removed) { listeners -> listeners.removed }
+            },
+            { replaced ->
+                setVersion(key, replaced)
+                dispatch(key, replaced) { listeners -> listeners.replaced }
+            },
+            {
+                // watched version is gone, watch from current version when watch is restarted
+                versions.remove(key)
+            })
+    }
+
+    private fun setVersion(key: Key, resource: HasMetadata) {
+        val version = resource.metadata?.resourceVersion ?: return
+        versions[key] = version
+    }
+
+    private fun dispatch(key: Key, resource: HasMetadata, listener: (WatchListeners) -> (HasMetadata) -> Unit) {
+        subscriptions[key]
+            ?.filter { subscription -> subscription.name == resource.metadata?.name }
+            ?.forEach { subscription -> listener.invoke(subscription.listeners).invoke(resource) }
+    }
+
+    /**
+     * A [ResourceWatch] for a subscriber. It subscribes to the shared watches instead of watching on its own.
+     */
+    private inner class SubscriberWatch : ResourceWatch<HasMetadata>() {
+
+        private val subscribed = ConcurrentHashMap<HasMetadata, Subscription>()
+
+        override fun watchAll(
+            toWatch: Collection<Pair<HasMetadata, (watcher: Watcher<in HasMetadata>) -> Watch?>>,
+            watchListeners: WatchListeners
+        ) {
+            toWatch.forEach { watch(it.first, it.second, watchListeners) }
+        }
+
+        override fun watch(
+            key: HasMetadata,
+            watchOperation: (watcher: Watcher<in HasMetadata>) -> Watch?,
+            watchListeners: WatchListeners
+        ) {
+            subscribed.computeIfAbsent(key) { subscribe(key, watchOperation, watchListeners) }
+        }
+
+        override fun stopWatchAll(keys: Collection<HasMetadata>): Collection<HasMetadata> {
+            return keys.filter { stopWatch(it) != null }
+        }
+
+        override fun stopWatch(key: HasMetadata): Watch? {
+            val subscription = subscribed.remove(key) ?: return null
+            unsubscribe(subscription)
+            return WATCH_OPERATION_ENQUEUED
+        }
+
+        override fun close() {
+            subscribed.keys.toList().forEach { stopWatch(it) }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.intellij.openapi.diagnostic.logger
+import com.intellij.openapi.util.registry.Registry
+import com.redhat.devtools.intellij.kubernetes.model.ResourceWatch.WatchListeners
+import com.redhat.devtools.intellij.kubernetes.model.resource.NamespacedResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceStore
+import com.redhat.devtools.intellij.kubernetes.model.util.keepTableRow
+import io.fabric8.kubernetes.api.model.HasMetadata
+import java.util.MissingResourceException
+
+/**
+ * The resources of the namespaces that were current recently. The resources that the namespaced operators have cached
+ * are kept when the current namespace is switched to another one and are kept up-to-date by watching them.
+ * Switching back to such a namespace hands them back to the operators which then don't need to list them again.
+ *
+ * The least recently used namespaces are evicted once there are more than [maxNamespaces] or more than
+ * [maxResources] resources are kept in all namespaces. The kept resources are also charged against the memory
+ * budget of the context, they're evicted first when it is exceeded.
+ *
+ * @param maxNamespaces the maximum number of namespaces whose resources are kept
+ * @param maxResources the maximum number of resources that are kept in all namespaces
+ * @param watch the watch that keeps the resources up-to-date
+ */
+open class WarmNamespaces(
+    private val maxNamespaces: Int = DEFAULT_MAX_NAMESPACES,
+    private val maxResources: Int = DEFAULT_MAX_RESOURCES,
+    // for mocking purposes
+    private val watch: ResourceWatch<Key> = ResourceWatch()
+) {
+
+    companion object {
+        const val REGISTRY_KEY_MAX_NAMESPACES = "kubernetes.cache.warm.namespaces"
+        const val REGISTRY_KEY_MAX_RESOURCES = "kubernetes.cache.warm.resources"
+        const val DEFAULT_MAX_NAMESPACES = 3
+        const val DEFAULT_MAX_RESOURCES = 10000
+
+        /**
+         * Returns warm namespaces that are limited to the maximum number of namespaces and resources
+         * that are set in the registry.
+         */
+        fun create(): WarmNamespaces {
+            return WarmNamespaces(
+                getInteger(REGISTRY_KEY_MAX_NAMESPACES, DEFAULT_MAX_NAMESPACES),
+                getInteger(REGISTRY_KEY_MAX_RESOURCES, DEFAULT_MAX_RESOURCES))
+        }
+
+        private fun getInteger(key: String, default: Int): Int {
+            return try {
+                Registry.get(key).asInteger()
+            } catch (e: MissingResourceException) {
+                default
+            }
+        }
+    }
+
+    /**
+     * The key of the watch for the resources of a kind in a namespace.
+     */
+    data class Key(val kind: ResourceKind<out HasMetadata>, val namespace: String)
+
+    private class Resources(
+        val operator: NamespacedResourceOperator<HasMetadata, *>,
+        var resourceVersion: String
+    ) {
+        val store = ResourceStore<HasMetadata>()
+    }
+
+    /** the namespaces in the order that they were kept, least recently used first **/
+    private val namespaces = LinkedHashMap<String, MutableMap<ResourceKind<out HasMetadata>, Resources>>()
+
+    /**
+     * The number of resources that are kept in all namespaces.
+     */
+    val size: Int
+        get() {
+            synchronized(namespaces) {
+                return namespaces.values.sumBy { byKind -> byKind.values.sumBy { it.store.size } }
+            }
+        }
+
+    /**
+     * Keeps the resources that the given operators have cached for the given namespace and watches them.
+     * Operators that have nothing cached or are not at a known version are skipped.
+     * The least recently used namespaces are evicted if there are too many namespaces or resources kept.
+     *
+     * @param namespace the namespace that the given operators are in
+     * @param operators the operators whose resources should be kept
+     */
+    fun keep(namespace: String, operators: Collection<NamespacedResourceOperator<*, *>>) {
+        synchronized(namespaces) {
+            remove(namespace)
+            val byKind = mutableMapOf<ResourceKind<out HasMetadata>, Resources>()
+            operators.forEach { operator ->
+                @Suppress("UNCHECKED_CAST")
+                val typed = operator as NamespacedResourceOperator<HasMetadata, *>
+                val cached = typed.getCachedInNamespace() ?: return@forEach
+                val resources = Resources(typed, cached.second)
+                resources.store.putAll(cached.first)
+                byKind[operator.kind] = resources
+            }
+            if (byKind.isEmpty()) {
+                return
+            }
+            logger<WarmNamespaces>().debug("Keeping ${byKind.keys} resources in namespace $namespace.")
+            namespaces[namespace] = byKind
+            byKind.forEach { (kind, resources) -> watch(Key(kind, namespace), resources) }
+            evict()
+        }
+    }
+
+    /**
+     * Hands the resources that are kept for the given namespace to the given operators.
+     * The operators have to be in the given namespace already.
+     * The resources are not kept any longer and their watches are stopped.
+     *
+     * @param namespace the namespace to restore the resources of
+     * @param operators the operators to hand the resources to
+     * @return the kinds whose resources were restored
+     */
+    fun restore(namespace: String, operators: Collection<NamespacedResourceOperator<*, *>>): Collection<ResourceKind<*>> {
+        synchronized(namespaces) {
+            val byKind = remove(namespace) ?: return emptyList()
+            return operators.filter { operator ->
+                val resources = byKind[operator.kind] ?: return@filter false
+                @Suppress("UNCHECKED_CAST")
+                (operator as NamespacedResourceOperator<HasMetadata, *>)
+                    .setCachedInNamespace(namespace, resources.store.values, resources.resourceVersion)
+            }
+                .map { it.kind }
+                .also { logger<WarmNamespaces>().debug("Restored $it resources in namespace $namespace.") }
+        }
+    }
+
+    /**
+     * Returns the number of resources that are kept by kind and namespace.
+     *
+     * @return the number of resources that are kept
+     */
+    fun getKeptCounts(): Map<Key, Int> {
+        synchronized(namespaces) {
+            return namespaces.entries
+                .flatMap { (namespace, byKind) ->
+                    byKind.map { (kind, resources) -> Pair(Key(kind, namespace), resources.store.size) }
+                }
+                .toMap()
+        }
+    }
+
+    /**
+     * Returns the resources that are kept for the given kind and namespace.
+     * Returns an empty list if there are none.
+     *
+     * @param key the kind and namespace of the resources
+     * @return the resources that are kept
+     */
+    fun getKept(key: Key): Collection<HasMetadata> {
+        synchronized(namespaces) {
+            return namespaces[key.namespace]?.get(key.kind)?.store?.values?.toList()
+                ?: emptyList()
+        }
+    }
+
+    /**
+     * Drops the resources of the given kind and namespace and stops watching them.
+     *
+     * @param key the kind and namespace of the resources to drop
+     */
+    fun evict(key: Key) {
+        logger<WarmNamespaces>().debug("Evicting ${key.kind} resources in namespace ${key.namespace}.")
+        drop(key)
+    }
+
+    /**
+     * Drops all resources that are kept and stops watching them.
+     */
+    fun close() {
+        synchronized(namespaces) {
+            namespaces.clear()
+        }
+        watch.close()
+    }
+
+    private fun watch(key: Key, resources: Resources) {
+        watch.watch(
+            key,
+            { watcher ->
+                resources.operator.watchAll(key.namespace, resources.resourceVersion, watcher)
+                    ?: run {
+                        // cannot be kept up-to-date
+                        drop(key)
+                        null
+                    }
+            },
+            WatchListeners(
+                { added -> update(key, added) { store -> put(added, store) } },
+                { removed -> update(key, removed) { store -> store.remove(removed) } },
+                { replaced -> update(key, replaced) { store -> put(replaced, store) } },
+                {
+                    // watched version is gone, list again when namespace is used
+                    drop(key)
+                }
+            ),
+            ResourceWatch.Priority.BACKGROUND)
+    }
+
+    private fun put(resource: HasMetadata, store: ResourceStore<HasMetadata>) {
+        // resources that are received by the watch have no row
+        keepTableRow(store.get(resource), resource)
+        store.put(resource)
+    }
+
+    private fun update(key: Key, resource: HasMetadata, operation: (ResourceStore<HasMetadata>) -> Unit) {
+        synchronized(namespaces) {
+            val resources = namespaces[key.namespace]?.get(key.kind) ?: return
+            operation.invoke(resources.store)
+            val version = resource.metadata?.resourceVersion
+            if (version != null) {
+                resources.resourceVersion = version
+            }
+        }
+    }
+
+    private fun drop(key: Key) {
+        synchronized(namespaces) {
+            val byKind = namespaces[key.namespace] ?: return
+            byKind.remove(key.kind)
+            if (byKind.isEmpty()) {
+                namespaces.remove(key.namespace)
+            }
+        }
+        watch.stopWatch(key)
+    }
+
+    private fun remove(namespace: String): Map<ResourceKind<out HasMetadata>, Resources>? {
+        val byKind = namespaces.remove(namespace) ?: return null
+        byKind.keys.forEach { kind -> watch.stopWatch(Key(kind, namespace)) }
+        return byKind
+    }
+
+    private fun evict() {
+        while (namespaces.isNotEmpty()
+            && (namespaces.size > maxNamespaces
+                    || size > maxResources)) {
+            val eldest = namespaces.keys.first()
+            logger<WarmNamespaces>().debug("Evicting resources in namespace $eldest.")
+            remove(eldest)
+        }
+    }
+}
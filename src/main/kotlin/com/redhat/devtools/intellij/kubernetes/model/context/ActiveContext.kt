@@ -26,23 +26,31 @@ import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext.Reso
 import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext.ResourcesIn.ANY_NAMESPACE
 import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext.ResourcesIn.CURRENT_NAMESPACE
 import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext.ResourcesIn.NO_NAMESPACE
+import com.redhat.devtools.intellij.kubernetes.model.resource.AbstractResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.INamespacedResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.INonNamespacedResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.IResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.IResourceOperatorFactory
+import com.redhat.devtools.intellij.kubernetes.model.resource.NamespacedResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.resource.NonNamespacedResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceScope
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.GenericCustomResource
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.NamespacedCustomResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.NonNamespacedCustomResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.Clients
+import com.redhat.devtools.intellij.kubernetes.model.ResourceCacheManager
+import com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots
+import com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots.Snapshot
+import com.redhat.devtools.intellij.kubernetes.model.WarmNamespaces
 import com.redhat.devtools.intellij.kubernetes.model.util.MultiResourceException
 import com.redhat.devtools.intellij.kubernetes.model.util.ResourceException
-import com.redhat.devtools.intellij.kubernetes.model.util.isSameResource
 import com.redhat.devtools.intellij.kubernetes.model.util.setWillBeDeleted
 import com.redhat.devtools.intellij.kubernetes.model.util.toMessage
-import io.fabric8.kubernetes.client.Config
 import java.net.URL
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicReference
 
 abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
     private val modelChange: IModelChangeObservable,
@@ -58,22 +66,84 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
     private val extensionName: ExtensionPointName<IResourceOperatorFactory<HasMetadata, C, IResourceOperator<HasMetadata>>> =
             ExtensionPointName.create("com.redhat.devtools.intellij.kubernetes.resourceOperators")
 
+    /**
+     * The operators for cluster wide resources. They are created once their kind is requested.
+     */
     protected open val nonNamespacedOperators: MutableMap<ResourceKind<out HasMetadata>, INonNamespacedResourceOperator<*, *>> by lazy {
-        getAllResourceOperators(INonNamespacedResourceOperator::class.java)
+        getAllResourceOperators(INonNamespacedResourceOperator::class.java, false) { operator ->
+            setClusterWide(operator)
+            restore(operator)
+        }
     }
+
+    /**
+     * The operators for resources in the current namespace. They are created once their kind is requested.
+     */
     protected open val namespacedOperators: MutableMap<ResourceKind<out HasMetadata>, INamespacedResourceOperator<out HasMetadata, C>> by lazy {
         @Suppress("UNCHECKED_CAST")
-        val operators = getAllResourceOperators(INamespacedResourceOperator::class.java)
-                as MutableMap<ResourceKind<out HasMetadata>, INamespacedResourceOperator<out HasMetadata, C>>
-        setCurrentNamespace(operators.values)
-        operators
+        getAllResourceOperators(INamespacedResourceOperator::class.java, true) { operator ->
+            setClusterWide(operator)
+            setCurrentNamespace(operator)
+            restore(operator)
+        } as MutableMap<ResourceKind<out HasMetadata>, INamespacedResourceOperator<out HasMetadata, C>>
     }
 
+    private val namespacesWatched = AtomicBoolean(false)
+
+    /**
+     * The kinds whose watch is the one of the cluster wide operator instead of the one of the namespaced operator.
+     * The cluster wide watch notifies the resources in the current namespace, too.
+     */
+    private val watchedClusterWide: MutableSet<ResourceKind<out HasMetadata>> = ConcurrentHashMap.newKeySet()
+
     protected open var watch = ResourceWatch<ResourceKind<out HasMetadata>>()
-    protected open val watchListener = WatchListeners({ added(it) }, { removed(it) }, { replaced(it) })
+    protected open val watchListener = WatchListeners(
+        { added(it) },
+        { removed(it) },
+        { replaced(it) },
+        { outdated(it) })
 
     protected open val notification: Notification = Notification()
 
+    /** the resources of the namespaces that were current recently **/
+    protected open val warmNamespaces: WarmNamespaces by lazy {
+        WarmNamespaces.create()
+    }
+
+    /** the manager that keeps the cached resources within the memory budget **/
+    protected open val caches: ResourceCacheManager by lazy {
+        ResourceCacheManager()
+    }
+
+    /** the snapshots that the cached resources are saved to when closing, `null` if they are disabled **/
+    protected open val snapshots: ResourceSnapshots? by lazy {
+        ResourceSnapshots.createIfEnabled()
+    }
+
+    /**
+     * The snapshots that were saved when this context was closed the last time, by kind and whether they're namespaced.
+     * Each of them is restored once when the operator for its kind is created.
+     */
+    private val restorable: MutableMap<Pair<ResourceKind<*>, Boolean>, Snapshot> by lazy {
+        val snapshots = snapshots?.load(context.name) ?: emptyList()
+        ConcurrentHashMap(snapshots.associateBy { Pair(it.kind, it.namespace != null) })
+    }
+
+    /**
+     * The current namespace as it was last looked up in the existing namespaces. It is looked up again once
+     * the current namespace is set, namespaces are added or removed or the namespaces are invalidated.
+     */
+    private val currentNamespace = AtomicReference(CurrentNamespace())
+
+    /**
+     * The name of the namespace that was set as current. Starts with the namespace that the client is configured with.
+     * It's kept by this context, the configuration of the client must not be altered since the client is shared with
+     * the other users of the same kube context.
+     */
+    private val currentNamespaceName: AtomicReference<String?> by lazy {
+        AtomicReference<String?>(clients.get().configuration.namespace)
+    }
+
     override fun setCurrentNamespace(namespace: String): Boolean {
         val currentNamespace = getCurrentNamespace()
         if (namespace == currentNamespace) {
@@ -82,28 +152,117 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
         logger<ActiveContext<*, *>>().debug("Setting current namespace to $namespace.")
 
         val stopped = stopWatch(currentNamespace)
-        val configuration = clients.get().configuration
-        setCurrentNamespace(namespace, configuration)
-        setCurrentNamespace(namespace, namespacedOperators.values)
+        keepWarm(currentNamespace, stopped)
+        currentNamespaceName.set(namespace)
+        resetCurrentNamespace()
+        setCurrentNamespace(namespace, getCreated(namespacedOperators))
+        warmNamespaces.restore(namespace, getCreated(namespacedOperators).filterIsInstance<NamespacedResourceOperator<*, *>>())
+        // resources of the previous namespace are kept now
+        keepWithinBudget(null)
         watchAll(stopped)
         modelChange.fireCurrentNamespace(namespace)
         return true
     }
 
-    private fun setCurrentNamespace(namespace: String, configuration: Config) {
-        configuration.namespace = namespace
+    /**
+     * Lets the namespaced operator use the resources of the operator for the same kind in all namespaces
+     * (ex. pods in current namespace & all pods) so that resources are not held twice.
+     * The operators are linked once both of them were created.
+     */
+    private fun setClusterWide(operator: IResourceOperator<*>) {
+        val namespaced: IResourceOperator<*>?
+        val clusterWide: IResourceOperator<*>?
+        if (operator is INamespacedResourceOperator<*, *>) {
+            namespaced = operator
+            clusterWide = getCreated(operator.kind, nonNamespacedOperators)
+        } else {
+            namespaced = getCreated(operator.kind, namespacedOperators)
+            clusterWide = operator
+        }
+        @Suppress("UNCHECKED_CAST")
+        (namespaced as? NamespacedResourceOperator<HasMetadata, *>)
+            ?.clusterWide = clusterWide as? AbstractResourceOperator<HasMetadata>
     }
 
-    private fun setCurrentNamespace(operators: Collection<INamespacedResourceOperator<*, *>>) {
+    /**
+     * Keeps the resources of the operators whose watches were stopped when leaving the given namespace.
+     * They are up-to-date since they were watched until now.
+     */
+    private fun keepWarm(namespace: String?, stopped: Collection<Any>) {
+        if (namespace == null) {
+            return
+        }
+        val operators = getCreated(namespacedOperators)
+            .filterIsInstance<NamespacedResourceOperator<*, *>>()
+            .filter { stopped.contains(it.kind) }
+        warmNamespaces.keep(namespace, operators)
+    }
+
+    /**
+     * Caches the resources that were saved for the kind of the given operator when this context was closed the last
+     * time. Namespaced resources are only restored if they were saved for the current namespace.
+     * Snapshots only hold the metadata of the resources, they're therefore only restored to operators that cache
+     * the metadata only. The resources of other operators are displayed by more than their metadata
+     * (ex. the phase of a pod, the selector of a service). Operators that cache table rows are only restored if all
+     * resources were saved with their row.
+     * The operator is then watched from the version that the resources were saved at.
+     */
+    private fun restore(operator: IResourceOperator<*>) {
+        if (snapshots == null
+            || !isRestorable(operator)) {
+            return
+        }
+        val snapshot = restorable.remove(Pair(operator.kind, operator is INamespacedResourceOperator<*, *>)) ?: return
+        if (!snapshot.resources.all { (operator as AbstractResourceOperator<*>).canCacheMetadataOnly(it) }) {
+            logger<ActiveContext<*, *>>().debug("Not restoring snapshot of ${operator.kind} resources: rows are missing.")
+            return
+        }
+        @Suppress("UNCHECKED_CAST")
+        when (operator) {
+            is NamespacedResourceOperator<*, *> ->
+                (operator as NamespacedResourceOperator<HasMetadata, *>).setCachedInNamespace(
+                    snapshot.namespace ?: return, snapshot.resources, snapshot.resourceVersion)
+            is NonNamespacedResourceOperator<*, *> ->
+                (operator as NonNamespacedResourceOperator<HasMetadata, *>).setCachedClusterWide(
+                    snapshot.resources, snapshot.resourceVersion)
+        }
+    }
+
+    private fun isRestorable(operator: IResourceOperator<*>): Boolean {
+        return (operator as? AbstractResourceOperator<*>)?.cachesMetadataOnly ?: false
+                // custom resource operators only exist once their definitions are loaded
+                && operator.kind.clazz != GenericCustomResource::class.java
+    }
+
+    private fun saveSnapshots() {
+        val snapshots = this.snapshots ?: return
+        val namespaced = getCreated(namespacedOperators)
+            .filterIsInstance<NamespacedResourceOperator<*, *>>()
+            .filter { isRestorable(it) }
+            .mapNotNull { operator ->
+                val namespace = operator.namespace ?: return@mapNotNull null
+                val cached = operator.getCachedInNamespace() ?: return@mapNotNull null
+                Snapshot(operator.kind, namespace, cached.second, cached.first)
+            }
+        val clusterWide = getCreated(nonNamespacedOperators)
+            .filterIsInstance<NonNamespacedResourceOperator<*, *>>()
+            .filter { isRestorable(it) }
+            .mapNotNull { operator ->
+                val cached = operator.getCachedClusterWide() ?: return@mapNotNull null
+                Snapshot(operator.kind, null, cached.second, cached.first)
+            }
+        snapshots.save(context.name, namespaced + clusterWide)
+    }
+
+    private fun setCurrentNamespace(operator: INamespacedResourceOperator<*, *>) {
         try {
-            @Suppress("UNCHECKED_CAST")
-            val namespacesOperator: INonNamespacedResourceOperator<N, C> = nonNamespacedOperators[getNamespacesKind()]
-                    as INonNamespacedResourceOperator<N, C>
-            val namespace = getCurrentNamespace(namespacesOperator.allResources)
-            setCurrentNamespace(namespace?.metadata?.name, operators)
-            watch(namespacesOperator) // always watch namespaces
+            setCurrentNamespace(getCurrentNamespace(), listOf(operator))
+            if (namespacesWatched.compareAndSet(false, true)) {
+                // always watch namespaces, they're not necessarily displayed
+                watch(nonNamespacedOperators[getNamespacesKind()], ResourceWatch.Priority.BACKGROUND)
+            }
         } catch (e: KubernetesClientException) {
-            logger<ActiveContext<*, *>>().info("Could not set current namespace to all non namespaced operators.", e)
+            logger<ActiveContext<*, *>>().info("Could not set current namespace to ${operator.kind} operator.", e)
         }
     }
 
@@ -115,14 +274,27 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
     }
 
     override fun getCurrentNamespace(): String? {
+        val current = currentNamespace.get()
+        if (current.lookedUp) {
+            return current.name
+        }
         val namespaceKind = getNamespacesKind()
-        val current = getCurrentNamespace(getAllResources(namespaceKind, NO_NAMESPACE))
-        return current?.metadata?.name
+        val name = getCurrentNamespace(getAllResources(namespaceKind, NO_NAMESPACE))?.metadata?.name
+        // dont cache if it was reset while looking it up
+        currentNamespace.compareAndSet(current, CurrentNamespace(name, true))
+        return name
+    }
+
+    private fun resetCurrentNamespace() {
+        currentNamespace.set(CurrentNamespace())
+    }
+
+    private fun isNamespace(resource: HasMetadata): Boolean {
+        return getNamespacesKind() == ResourceKind.create(resource)
     }
 
     private fun getCurrentNamespace(namespaces: Collection<N>): N? {
-        val name: String? = clients.get().configuration.namespace
-        return find(name, namespaces)
+        return find(currentNamespaceName.get(), namespaces)
     }
 
     private fun find(namespace: String?, namespaces: Collection<N>): N? {
@@ -135,17 +307,114 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
     protected abstract fun getNamespacesKind(): ResourceKind<N>
 
     override fun isCurrentNamespace(resource: HasMetadata): Boolean {
-        val current = getCurrentNamespace(getAllResources(getNamespacesKind(), NO_NAMESPACE)) ?: return false
-        return resource.isSameResource(current as HasMetadata)
+        // current namespace is cached, namespaces are not listed for each resource
+        val current = getCurrentNamespace() ?: return false
+        return current == resource.metadata?.name
+                && isNamespace(resource)
     }
 
     override fun <R: HasMetadata> getAllResources(kind: ResourceKind<R>, resourcesIn: ResourcesIn): Collection<R> {
         logger<ActiveContext<*,*>>().debug("Resources $kind requested.")
-        synchronized(this) {
-            val operator = getOperator(kind, resourcesIn)
-            return operator?.allResources
-                ?: emptyList()
+        // operators synchronize loading per kind
+        val operator = getOperator(kind, resourcesIn) ?: return emptyList()
+        val inserted = !hasCached(operator)
+        val resources = operator.allResources
+        used(operator, inserted)
+        return resources
+    }
+
+    override fun <R: HasMetadata> getAllResources(kind: ResourceKind<R>, resourcesIn: ResourcesIn, labels: Map<String, String>): Collection<R> {
+        logger<ActiveContext<*,*>>().debug("Resources $kind with labels $labels requested.")
+        val operator = getOperator(kind, resourcesIn)
+        return operator?.getAllWithLabels(labels)
+            ?: emptyList()
+    }
+
+    /**
+     * Marks the cache of the given operator as used most recently. Evicts the caches that were used least recently
+     * if resources were inserted into the cache and all caches exceed the memory budget.
+     */
+    private fun used(operator: IResourceOperator<*>, inserted: Boolean) {
+        caches.used(operator.kind, (operator as? INamespacedResourceOperator<*, *>)?.namespace)
+        if (inserted) {
+            keepWithinBudget(operator.kind)
+        }
+    }
+
+    /**
+     * Evicts the caches that were used least recently if all caches, including the resources of the namespaces
+     * that are kept warm, exceed the memory budget. The cache for the given requested kind is not evicted.
+     */
+    private fun keepWithinBudget(requested: ResourceKind<*>?) {
+        caches.evict(getCacheUsage()) { usage -> evict(usage, requested) }
+    }
+
+    private fun hasCached(operator: IResourceOperator<*>): Boolean {
+        return (operator as? AbstractResourceOperator<*>)?.hasCached() ?: false
+    }
+
+    /**
+     * Evicts the given cache. Resources of namespaces that are kept warm are dropped and their watch is stopped.
+     * Caches of operators are invalidated unless they are for the namespaces, the given requested kind or they're
+     * watched, which means that they're displayed.
+     */
+    private fun evict(usage: ResourceCacheManager.Usage, requested: ResourceKind<*>?): Boolean {
+        val kind = usage.kind
+        if (kind == getNamespacesKind()) {
+            return false
+        }
+        val namespace = usage.namespace
+        val namespaced = getCreated(kind, namespacedOperators)
+        if (namespace != null
+            && namespace != namespaced?.namespace) {
+            warmNamespaces.evict(WarmNamespaces.Key(kind, namespace))
+            return true
         }
+        if (kind == requested
+            || watch.isWatched(kind)) {
+            return false
+        }
+        val operator = if (namespace == null) {
+            getCreated(kind, nonNamespacedOperators)
+        } else {
+            namespaced
+        }
+        operator?.invalidate() ?: return false
+        return true
+    }
+
+    override fun getCacheUsage(): List<ResourceCacheManager.Usage> {
+        val namespaced = getCreated(namespacedOperators)
+            .filterIsInstance<NamespacedResourceOperator<*, *>>()
+            .filter { it.cachedCount > 0 }
+            .mapNotNull { operator ->
+                val namespace = operator.namespace ?: return@mapNotNull null
+                caches.estimate(operator.kind, namespace, operator.cachedCount) { operator.getCached() }
+            }
+        val clusterWide = getCreated(nonNamespacedOperators)
+            .filterIsInstance<AbstractResourceOperator<*>>()
+            .filter { it.cachedCount > 0 }
+            .map { operator ->
+                caches.estimate(operator.kind, null, operator.cachedCount) { operator.getCached() }
+            }
+        val warm = warmNamespaces.getKeptCounts()
+            .map { (key, resources) ->
+                caches.estimate(key.kind, key.namespace, resources) { warmNamespaces.getKept(key) }
+            }
+        return namespaced + clusterWide + warm
+    }
+
+    override fun getWatchLatency(): ResourceWatch.Latency {
+        return watch.getLatency()
+    }
+
+    override fun <R: HasMetadata> get(resource: R): R? {
+        logger<ActiveContext<*,*>>().debug("Requesting ${resource.kind} ${resource.metadata.name}.")
+        val kind = ResourceKind.create(resource)
+        // operators request the resource in its namespace regardless of their current namespace
+        val operator = getCreated(kind, namespacedOperators) ?: getCreated(kind, nonNamespacedOperators)
+        @Suppress("UNCHECKED_CAST")
+        return operator?.get(resource) as? R
     }
 
     private fun setOperator(
@@ -243,34 +512,65 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
         }
     }
 
+    /**
+     * Watches the resources of the given kind. They are requested to be watched because they're displayed,
+     * their watch is therefore established before the ones that run in the background.
+     */
     override fun watch(kind: ResourceKind<out HasMetadata>) {
         logger<ActiveContext<*, *>>().debug("Watching $kind resources.")
-        watch(namespacedOperators[kind])
-        watch(nonNamespacedOperators[kind])
+        val namespaced = namespacedOperators[kind]
+        val clusterWide = nonNamespacedOperators[kind]
+        if (clusterWide != null
+            && (namespaced as? NamespacedResourceOperator<*, *>)?.isServedByClusterWide() == true) {
+            watchClusterWide(kind, clusterWide)
+        } else {
+            watch(namespaced, ResourceWatch.Priority.VISIBLE)
+            watch(clusterWide, ResourceWatch.Priority.VISIBLE)
+        }
+    }
+
+    /**
+     * Watches the given cluster wide operator instead of the namespaced operator for the same kind.
+     * The namespaced operator looks its resources up in the ones of the cluster wide operator,
+     * a watch for the current namespace would only notify them a second time.
+     */
+    private fun watchClusterWide(kind: ResourceKind<out HasMetadata>, clusterWide: IResourceOperator<*>) {
+        if (watchedClusterWide.add(kind)) {
+            logger<ActiveContext<*, *>>().debug(
+                "Stopping watch for $kind resources in current namespace, watching them in all namespaces.")
+            // keep the cache, the cluster wide watch resumes notifying its resources
+            watch.stopWatch(kind)
+        }
+        watch(clusterWide, ResourceWatch.Priority.VISIBLE)
     }
 
     override fun watch(definition: CustomResourceDefinition) {
-        watch(getOperator(definition))
+        watch(getOperator(definition), ResourceWatch.Priority.VISIBLE)
     }
 
+    /**
+     * Watches the namespaced operators for the given kinds again once the current namespace was switched.
+     * Their watches are established after the ones for the resources that are requested to be displayed.
+     */
     private fun watchAll(kinds: Collection<Any>) {
-        val watchOperations = namespacedOperators.entries.toList()
-            .filter { kinds.contains(it.key) }
-            .map { Pair(it.value.kind, it.value::watchAll) }
+        val watchOperations = getCreated(namespacedOperators)
+            .filter { kinds.contains(it.kind) }
+            .map { Pair(it.kind, it::watchAll) }
 
-        watch.watchAll(watchOperations, watchListener)
+        watch.watchAll(watchOperations, watchListener, ResourceWatch.Priority.BACKGROUND)
     }
 
-    private fun watch(operator: IResourceOperator<*>?) {
+    private fun watch(operator: IResourceOperator<*>?, priority: ResourceWatch.Priority) {
         if (operator == null) {
             return
         }
 
-        watch.watch(operator.kind, operator::watchAll, watchListener)
+        watch.watch(operator.kind, operator::watchAll, watchListener, priority)
     }
 
     override fun stopWatch(kind: ResourceKind<out HasMetadata>) {
         logger<ActiveContext<*, *>>().debug("Stop watching $kind resources.")
+        watchedClusterWide.remove(kind)
         watch.stopWatch(kind)
         // dont notify invalidation change because this would cause UI to reload
         // and therefore to repopulate the cache immediately.
@@ -292,7 +592,9 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
      */
     private fun stopWatch(namespace: String?): Collection<Any> {
         logger<ActiveContext<*, *>>().debug("Stopping all watches for namespace $namespace.")
-        return watch.stopWatchAll(namespacedOperators(namespace).map { it.kind })
+        return watch.stopWatchAll(namespacedOperators(namespace)
+            .map { it.kind }
+            .filter { !watchedClusterWide.contains(it) })
     }
 
     override fun added(resource: HasMetadata): Boolean {
@@ -302,6 +604,9 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
             else ->
                 addResource(resource)
         }
+        if (isNamespace(resource)) {
+            resetCurrentNamespace()
+        }
         if (added) {
             modelChange.fireAdded(resource)
         }
@@ -310,10 +615,11 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
 
     private fun addResource(resource: HasMetadata): Boolean {
         // we need to add resource to both operators (ex. all pods & only namespaced pods)
+        // operators that were not created yet have nothing cached
         val kind = ResourceKind.create(resource)
-        val addedToNonNamespaced = addResource(resource, nonNamespacedOperators[kind])
+        val addedToNonNamespaced = addResource(resource, getCreated(kind, nonNamespacedOperators))
         val addedToNamespaced = getCurrentNamespace() == resource.metadata.namespace
-                && addResource(resource, namespacedOperators[kind])
+                && addResource(resource, getCreated(kind, namespacedOperators))
         return addedToNonNamespaced ||
                 addedToNamespaced
     }
@@ -339,6 +645,9 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
         } else {
             removeResource(resource)
         }
+        if (isNamespace(resource)) {
+            resetCurrentNamespace()
+        }
         if (removed) {
             modelChange.fireRemoved(resource)
         }
@@ -348,9 +657,9 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
     private fun removeResource(resource: HasMetadata): Boolean {
         val kind = ResourceKind.create(resource)
         // we need to remove resource from both operators
-        val removedNonNamespaced = removeResource(resource, nonNamespacedOperators[kind])
+        val removedNonNamespaced = removeResource(resource, getCreated(kind, nonNamespacedOperators))
         val removedNamespaced = (getCurrentNamespace() == resource.metadata.namespace) &&
-                removeResource(resource, namespacedOperators[kind])
+                removeResource(resource, getCreated(kind, namespacedOperators))
         return removedNonNamespaced
                 || removedNamespaced
     }
@@ -372,8 +681,9 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
 
     override fun invalidate() {
         logger<ActiveContext<*, *>>().debug("Invalidating all operators.")
-        namespacedOperators.values.forEach { it.invalidate() }
-        nonNamespacedOperators.values.forEach { it.invalidate() }
+        getCreated(namespacedOperators).forEach { it.invalidate() }
+        getCreated(nonNamespacedOperators).forEach { it.invalidate() }
+        resetCurrentNamespace()
         modelChange.fireModified(this)
     }
 
@@ -391,8 +701,8 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
     }
 
     private fun replaced(kind: ResourceKind<out HasMetadata>, resource: HasMetadata): Boolean {
-        val replaceNamespaced = namespacedOperators[kind]?.replaced(resource) ?: false
-        val replaceNonNamespaced = nonNamespacedOperators[kind]?.replaced(resource) ?: false
+        val replaceNamespaced = getCreated(kind, namespacedOperators)?.replaced(resource) ?: false
+        val replaceNonNamespaced = getCreated(kind, nonNamespacedOperators)?.replaced(resource) ?: false
         return replaceNamespaced
                 || replaceNonNamespaced
     }
@@ -403,13 +713,24 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
         modelChange.fireModified(kind)
     }
 
-    private fun invalidateOperators(kind: ResourceKind<*>) {
-        namespacedOperators[kind]?.invalidate()
-        nonNamespacedOperators[kind]?.invalidate()
+    private fun outdated(kind: Any?) {
+        if (kind !is ResourceKind<*>) {
+            return
+        }
+        // watched version is gone, relist
+        invalidate(kind)
+    }
+
+    private fun invalidateOperators(kind: ResourceKind<out HasMetadata>) {
+        getCreated(kind, namespacedOperators)?.invalidate()
+        getCreated(kind, nonNamespacedOperators)?.invalidate()
+        if (kind == getNamespacesKind()) {
+            resetCurrentNamespace()
+        }
     }
 
     protected open fun namespacedOperators(namespace: String?): List<INamespacedResourceOperator<out HasMetadata, C>> {
-        return namespacedOperators.values
+        return getCreated(namespacedOperators)
                 .filter { it.namespace == namespace }
     }
 
@@ -454,27 +775,59 @@ abstract class ActiveContext<N : HasMetadata, C : KubernetesClient>(
     override fun close() {
         logger<ActiveContext<*, *>>().debug("Closing context ${context.name}.")
         watch.close()
+        saveSnapshots()
+        warmNamespaces.close()
         clients.close()
     }
 
-    private fun <P: IResourceOperator<out HasMetadata>> getAllResourceOperators(type: Class<P>)
-            : MutableMap<ResourceKind<out HasMetadata>, P> {
-        val operators = mutableMapOf<ResourceKind<out HasMetadata>, P>()
-        operators.putAll(
-                getInternalResourceOperators(clients)
-                        .filterIsInstance(type)
-                        .associateBy { it.kind })
-        operators.putAll(
-                getExtensionResourceOperators(clients)
-                        .filterIsInstance(type)
-                        .associateBy { it.kind })
-        return operators
+    /**
+     * Returns the operators of the given type. The internal operators are only created once they're requested,
+     * the extension operators are created right away. Extension operators replace internal operators of the same kind.
+     */
+    private fun <P: IResourceOperator<out HasMetadata>> getAllResourceOperators(
+        type: Class<P>,
+        namespaced: Boolean,
+        onCreated: (P) -> Unit
+    ): MutableMap<ResourceKind<out HasMetadata>, P> {
+        val internal = getInternalResourceOperators(clients, namespaced)
+            .map { (kind, factory) ->
+                Pair(kind, { type.cast(factory.invoke(clients)) })
+            }
+        val extensions = getExtensionResourceOperators(clients)
+            .filterIsInstance(type)
+            .map { operator -> Pair(operator.kind, { operator }) }
+        return ResourceOperators(internal + extensions, onCreated)
+    }
+
+    private fun <P> getCreated(operators: Map<ResourceKind<out HasMetadata>, P>): Collection<P> {
+        @Suppress("UNCHECKED_CAST")
+        return (operators as? ResourceOperators<*>)?.created as? Collection<P>
+            ?: operators.values
+    }
+
+    private fun <P> getCreated(kind: ResourceKind<out HasMetadata>, operators: Map<ResourceKind<out HasMetadata>, P>): P? {
+        return if (operators is ResourceOperators<*>) {
+            @Suppress("UNCHECKED_CAST")
+            operators.getCreated(kind) as P?
+        } else {
+            operators[kind]
+        }
     }
 
-    protected abstract fun getInternalResourceOperators(clients: Clients<C>): List<IResourceOperator<out HasMetadata>>
+    /**
+     * Returns the factories for the internal operators by kind. Returns the factories for the operators for resources
+     * in the current namespace if [namespaced] is `true`, the ones for cluster wide resources otherwise.
+     */
+    protected abstract fun getInternalResourceOperators(clients: Clients<C>, namespaced: Boolean)
+            : List<Pair<ResourceKind<out HasMetadata>, (Clients<C>) -> IResourceOperator<out HasMetadata>>>
 
     protected open fun getExtensionResourceOperators(clients: Clients<C>): List<IResourceOperator<out HasMetadata>> {
         return extensionName.extensionList
                 .map { it.create(clients) }
     }
 }
+
+/**
+ * The name of the current namespace. A new instance that was not [lookedUp] yet is created each time it is reset.
+ */
+private class CurrentNamespace(val name: String? = null, val lookedUp: Boolean = false)
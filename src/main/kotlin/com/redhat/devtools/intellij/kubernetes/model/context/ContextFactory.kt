@@ -12,38 +12,29 @@ package com.redhat.devtools.intellij.kubernetes.model.context
 
 import io.fabric8.kubernetes.api.model.HasMetadata
 import io.fabric8.kubernetes.api.model.NamedContext
-import io.fabric8.kubernetes.client.Config
-import io.fabric8.kubernetes.client.DefaultKubernetesClient
 import io.fabric8.kubernetes.client.KubernetesClient
-import io.fabric8.kubernetes.client.KubernetesClientException
-import io.fabric8.openshift.client.NamespacedOpenShiftClient
-import io.fabric8.openshift.client.OpenShiftNotAvailableException
+import io.fabric8.openshift.client.OpenShiftClient
 import com.redhat.devtools.intellij.kubernetes.model.IModelChangeObservable
 import com.redhat.devtools.intellij.kubernetes.model.Clients
+import com.redhat.devtools.intellij.kubernetes.model.ClientsRegistry
 
 fun create(
 	observable: IModelChangeObservable,
 	context: NamedContext
 ): IActiveContext<out HasMetadata, out KubernetesClient> {
-	val config = Config.autoConfigure(context.name)
-	val k8Client = DefaultKubernetesClient(config)
-	try {
-		val osClient = k8Client.adapt(NamespacedOpenShiftClient::class.java)
-		return OpenShiftContext(
+	val clients = ClientsRegistry.instance.acquire(context.name)
+	@Suppress("UNCHECKED_CAST")
+	return if (clients.isOpenShift()) {
+		OpenShiftContext(
 			observable,
-			Clients(osClient),
+			clients as Clients<OpenShiftClient>,
+			context
+		)
+	} else {
+		KubernetesContext(
+			observable,
+			clients as Clients<KubernetesClient>,
 			context
 		)
-	} catch (e: RuntimeException) {
-		when (e) {
-			is KubernetesClientException,
-			is OpenShiftNotAvailableException ->
-				return KubernetesContext(
-					observable,
-					Clients(k8Client),
-					context
-				)
-			else -> throw e
-		}
 	}
-}
\ No newline at end of file
+}
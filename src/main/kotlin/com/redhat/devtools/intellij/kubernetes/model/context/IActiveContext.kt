@@ -10,6 +10,8 @@
  ******************************************************************************/
 package com.redhat.devtools.intellij.kubernetes.model.context
 
+import com.redhat.devtools.intellij.kubernetes.model.ResourceCacheManager
+import com.redhat.devtools.intellij.kubernetes.model.ResourceWatch
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.GenericCustomResource
 import io.fabric8.kubernetes.api.model.HasMetadata
@@ -79,6 +81,30 @@ interface IActiveContext<N: HasMetadata, C: KubernetesClient>: IContext {
      */
     fun <R: HasMetadata> getAllResources(kind: ResourceKind<R>, resourcesIn: ResourcesIn): Collection<R>
 
+    /**
+     * Returns all resources of the given kind in the given scope that have all the given labels.
+     *
+     * @param kind the kind of resources that shall be returned
+     * @param resourcesIn the scope where to look for the requested resources
+     * @param labels the labels that the requested resources have
+     * @return all resources of the requested kind with the given labels
+     *
+     * @see ResourceKind
+     * @see ResourcesIn
+     */
+    fun <R: HasMetadata> getAllResources(kind: ResourceKind<R>, resourcesIn: ResourcesIn, labels: Map<String, String>): Collection<R>
+
+    /**
+     * Returns the given resource as it exists on the cluster. The resource is requested from the cluster.
+     * This allows to retrieve the full resource for a resource that has its metadata only.
+     *
+     * @param resource the resource that shall be requested
+     * @return the resource as it exists on the cluster
+     *
+     * @see com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+     */
+    fun <R: HasMetadata> get(resource: R): R?
+
     /**
      * Returns all resources of the kind specified by the given custom resource definition.
      *
@@ -162,6 +188,22 @@ interface IActiveContext<N: HasMetadata, C: KubernetesClient>: IContext {
      */
     fun replaced(resource: HasMetadata): Boolean
 
+    /**
+     * Returns the estimated size of the resources that are cached in this context by kind and namespace.
+     *
+     * @return the estimated sizes of the caches
+     *
+     * @see com.redhat.devtools.intellij.kubernetes.model.ResourceCacheManager
+     */
+    fun getCacheUsage(): List<ResourceCacheManager.Usage>
+
+    /**
+     * Returns the time that the watches of this context waited to be established and took to be established.
+     *
+     * @return the latency of the watches of this context
+     */
+    fun getWatchLatency(): ResourceWatch.Latency
+
     /**
      * Closes and disposes this context.
      */
@@ -27,9 +27,9 @@ open class KubernetesContext(
     context: NamedContext
 ) : ActiveContext<Namespace, KubernetesClient>(modelChange, clients, context) {
 
-	override fun getInternalResourceOperators(clients: Clients<KubernetesClient>)
-			: List<IResourceOperator<out HasMetadata>> {
-		return OperatorFactory.createKubernetes(clients)
+	override fun getInternalResourceOperators(clients: Clients<KubernetesClient>, namespaced: Boolean)
+			: List<Pair<ResourceKind<out HasMetadata>, (Clients<KubernetesClient>) -> IResourceOperator<out HasMetadata>>> {
+		return OperatorFactory.getKubernetes(namespaced)
 	}
 
 	override fun getNamespacesKind(): ResourceKind<Namespace> {
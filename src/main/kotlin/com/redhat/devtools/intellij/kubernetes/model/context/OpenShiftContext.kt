@@ -27,9 +27,9 @@ open class OpenShiftContext(
     context: NamedContext
 ) : ActiveContext<Project, OpenShiftClient>(modelChange, clients, context) {
 
-	override fun getInternalResourceOperators(clients: Clients<OpenShiftClient>)
-			: List<IResourceOperator<out HasMetadata>> {
-		return OperatorFactory.createOpenShift(clients)
+	override fun getInternalResourceOperators(clients: Clients<OpenShiftClient>, namespaced: Boolean)
+			: List<Pair<ResourceKind<out HasMetadata>, (Clients<OpenShiftClient>) -> IResourceOperator<out HasMetadata>>> {
+		return OperatorFactory.getOpenShift(namespaced)
 	}
 
 	override fun getNamespacesKind(): ResourceKind<Project> {
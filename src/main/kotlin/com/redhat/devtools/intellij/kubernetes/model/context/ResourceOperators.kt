@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.context
+
+import com.intellij.openapi.diagnostic.logger
+import com.redhat.devtools.intellij.kubernetes.model.resource.IResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import io.fabric8.kubernetes.api.model.HasMetadata
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+
+/**
+ * The operators of a context by kind. An operator is only created once it is requested for its kind for the first
+ * time. Iterating over all operators creates all of them, [created] returns the ones that exist so far.
+ * Factories that are given later for the same kind replace the former ones.
+ * An operator is set up by [onCreated] before it is visible to others. Concurrent requests for the same kind wait
+ * for it to be created and set up. The setup is not run while holding a lock of the map of operators.
+ *
+ * @param factories the factories that create the operator for a kind
+ * @param onCreated the operation that's called with each operator that was created. It may request operators of other
+ * kinds of the same instance but must not request the operator of the same kind
+ */
+class ResourceOperators<P : IResourceOperator<out HasMetadata>>(
+    factories: List<Pair<ResourceKind<out HasMetadata>, () -> P>>,
+    private val onCreated: (P) -> Unit = {}
+) : AbstractMutableMap<ResourceKind<out HasMetadata>, P>() {
+
+    private val factories = ConcurrentHashMap<ResourceKind<out HasMetadata>, () -> P>(factories.toMap())
+    private val operators = ConcurrentHashMap<ResourceKind<out HasMetadata>, P>()
+    /** the operators that are being created and set up **/
+    private val creating = ConcurrentHashMap<ResourceKind<out HasMetadata>, CompletableFuture<P?>>()
+
+    /**
+     * The operators that were created so far.
+     */
+    val created: Collection<P>
+        get() {
+            return operators.values
+        }
+
+    /**
+     * Returns the operator for the given kind. It is created if it doesn't exist yet.
+     * Returns `null` if there's no operator for the given kind.
+     *
+     * @param key the kind to get the operator for
+     * @return the operator for the given kind
+     */
+    override fun get(key: ResourceKind<out HasMetadata>): P? {
+        return operators[key] ?: create(key)
+    }
+
+    /**
+     * Returns the operator for the given kind if it was created already. Returns `null` otherwise.
+     *
+     * @param kind the kind to get the operator for
+     * @return the operator for the given kind if it exists
+     */
+    fun getCreated(kind: ResourceKind<out HasMetadata>): P? {
+        return operators[kind]
+    }
+
+    override fun containsKey(key: ResourceKind<out HasMetadata>): Boolean {
+        return operators.containsKey(key)
+                || factories.containsKey(key)
+    }
+
+    override fun put(key: ResourceKind<out HasMetadata>, value: P): P? {
+        factories.remove(key)
+        return operators.put(key, value)
+    }
+
+    override fun remove(key: ResourceKind<out HasMetadata>): P? {
+        factories.remove(key)
+        return operators.remove(key)
+    }
+
+    override val entries: MutableSet<MutableMap.MutableEntry<ResourceKind<out HasMetadata>, P>>
+        get() {
+            factories.keys.toList().forEach { create(it) }
+            return operators.entries
+        }
+
+    private fun create(kind: ResourceKind<out HasMetadata>): P? {
+        // may have been created concurrently, factory is then removed
+        val factory = factories[kind] ?: return operators[kind]
+        val inFlight = CompletableFuture<P?>()
+        val existing = creating.putIfAbsent(kind, inFlight)
+        if (existing != null) {
+            return operators[kind] ?: await(existing)
+        }
+        try {
+            // may have been created in the meantime
+            val operator = operators[kind] ?: create(kind, factory)
+            inFlight.complete(operator)
+            return operator
+        } catch (e: Exception) {
+            inFlight.completeExceptionally(e)
+            throw e
+        } finally {
+            creating.remove(kind, inFlight)
+        }
+    }
+
+    private fun create(kind: ResourceKind<out HasMetadata>, factory: () -> P): P {
+        logger<ResourceOperators<*>>().debug("Creating operator for $kind resources.")
+        val operator = factory.invoke()
+        // set up before it is visible to others
+        onCreated.invoke(operator)
+        val existing = operators.putIfAbsent(kind, operator)
+        factories.remove(kind, factory)
+        return existing ?: operator
+    }
+
+    private fun await(creating: CompletableFuture<P?>): P? {
+        try {
+            return creating.get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+}
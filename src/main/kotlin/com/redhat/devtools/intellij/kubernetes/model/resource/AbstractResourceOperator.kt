@@ -11,17 +11,395 @@
 package com.redhat.devtools.intellij.kubernetes.model.resource
 
 import com.intellij.openapi.diagnostic.logger
+import com.redhat.devtools.intellij.kubernetes.model.util.getTableRow
+import com.redhat.devtools.intellij.kubernetes.model.util.keepTableRow
+import com.redhat.devtools.intellij.kubernetes.model.util.toMetadataOnly
 import io.fabric8.kubernetes.api.model.HasMetadata
-import com.redhat.devtools.intellij.kubernetes.model.util.isSameResource
+import io.fabric8.kubernetes.api.model.KubernetesResourceList
+import io.fabric8.kubernetes.api.model.ListOptions
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder
+import io.fabric8.kubernetes.client.Client
+import io.fabric8.kubernetes.client.HttpClientAware
+import io.fabric8.kubernetes.client.Watch
+import io.fabric8.kubernetes.client.Watcher
+import io.fabric8.kubernetes.client.WatcherException
+import io.fabric8.kubernetes.client.dsl.Listable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicLong
 
 abstract class AbstractResourceOperator<R : HasMetadata> : IResourceOperator<R> {
 
-    protected val _allResources: MutableList<R> = mutableListOf()
+    companion object {
+        const val DEFAULT_PAGE_SIZE = 500L
+    }
+
+    protected val _allResources: ResourceStore<R> = ResourceStore()
+
+    /**
+     * The immutable snapshot of the cached resources. It is returned to readers without locking.
+     * It is reset whenever the cached resources change and created again by the next reader.
+     */
+    @Volatile
+    private var snapshot: List<R>? = null
+
+    /**
+     * The number of cached resources. It is updated with each change of the cached resources
+     * so that it can be read without locking nor creating a snapshot.
+     */
+    @Volatile
+    var cachedCount: Int = 0
+        private set
+
+    /**
+     * The resourceVersion that the cached resources are at. It is set to the version of the list
+     * when the loaded resources are cached and updated with each event that the watch for all resources receives.
+     * It is `null` if the resources were not loaded yet or were invalidated.
+     * It is only written while holding the lock on the cached resources.
+     */
+    @Volatile
+    protected var resourceVersion: String? = null
+        private set
+
+    /**
+     * The version of the list that the current thread loaded.
+     * It is only applied once the loaded resources are cached.
+     */
+    private val listedVersion = ThreadLocal<String?>()
+
+    /**
+     * The maximum number of resources that are requested at once when listing resources.
+     */
+    protected open val pageSize: Long = DEFAULT_PAGE_SIZE
+
+    /**
+     * `true` if only the metadata of the resources should be listed.
+     * The full resources are then requested from the cluster only once they're needed (ex. when edited).
+     *
+     * @see PartialObjectMetadataOperation
+     */
+    protected open val metadataOnly: Boolean = false
+
+    /**
+     * `true` if the resources should be listed as rows of a table that the cluster prints.
+     * The resources then only have their metadata and the cells of their row.
+     *
+     * @see TableOperation
+     */
+    protected open val tableRows: Boolean = false
+
+    /**
+     * `true` if the resources that this operator caches only have their metadata.
+     * They can then be replaced by other resources that only have their metadata (ex. the ones of a snapshot).
+     *
+     * @see metadataOnly
+     * @see tableRows
+     */
+    val cachesMetadataOnly: Boolean
+        get() {
+            return metadataOnly
+                    || tableRows
+        }
+
+    /**
+     * Returns `true` if the given resource, that only has its metadata, can be cached by this operator.
+     * Operators that cache table rows need the row of the resource, it holds the cells that are displayed.
+     *
+     * @param resource the resource that only has its metadata
+     * @return true if the given resource can be cached
+     *
+     * @see cachesMetadataOnly
+     */
+    fun canCacheMetadataOnly(resource: HasMetadata): Boolean {
+        return cachesMetadataOnly
+                && (!tableRows
+                    || getTableRow(resource) != null)
+    }
+
+    /**
+     * The filter that removes the parts of the resources that are not displayed before they're cached.
+     * It is applied to the resources that are listed and to the ones that the watch for all resources receives.
+     *
+     * @see IngestFilter
+     */
+    protected open val ingestFilter: IngestFilter = IngestFilter.DEFAULT
+
+    /**
+     * The load that is in flight. Callers that request the resources while they're loaded wait for it
+     * instead of loading them again.
+     */
+    private var loading: CompletableFuture<Collection<R>>? = null
+
+    /**
+     * The number of times that the cached resources were invalidated. Resources that were loaded before an
+     * invalidation are not cached.
+     */
+    private var invalidations = 0
+
+    /**
+     * The number of times that the resources that this operator is for changed (ex. its namespace).
+     * The events of watches that were started before are for other resources and are dropped.
+     */
+    private var scopes = 0
+
+    /**
+     * The uids of the resources that were removed while resources were being loaded, by their key.
+     * Loaded resources that were removed in the meantime are not cached.
+     */
+    private val removedWhileLoading = HashMap<ResourceKey, String?>()
+
+    /**
+     * The version of the last event that the watch received while resources were being loaded.
+     * The watch resumes at it, it therefore wins over the version of the list.
+     */
+    private var versionWhileLoading: String? = null
+
+    private val _deduplicatedLoads = AtomicLong()
+
+    /**
+     * The number of requests for the resources that waited for a load that was in flight instead of loading
+     * the resources again.
+     */
+    val deduplicatedLoads: Long
+        get() {
+            return _deduplicatedLoads.get()
+        }
+
+    override fun getAllWithLabels(labels: Map<String, String>): Collection<R> {
+        allResources // load if not loaded yet
+        synchronized(_allResources) {
+            return _allResources.getAllWithLabels(labels)
+        }
+    }
+
+    /**
+     * Returns the cached resources. Returns the current snapshot without locking if there is one.
+     * Otherwise the resources are loaded with the given operation if none are cached.
+     * A single load is in flight at a time, concurrent callers wait for it and get its result.
+     *
+     * @param load the operation that loads the resources
+     * @return an immutable snapshot of the resources
+     */
+    protected fun getAllResources(load: () -> List<R>): Collection<R> {
+        val current = snapshot
+        if (current != null) {
+            return current
+        }
+        val existing: CompletableFuture<Collection<R>>?
+        val inFlight = CompletableFuture<Collection<R>>()
+        val startedAt: Int
+        synchronized(_allResources) {
+            existing = loading
+            if (existing == null) {
+                // resources that a watch notified while loading are not all resources, wait for the load
+                if (!_allResources.isEmpty()) {
+                    return createSnapshot()
+                }
+                loading = inFlight
+                clearLoadingChanges()
+            }
+            startedAt = invalidations
+        }
+        if (existing != null) {
+            val deduplicated = _deduplicatedLoads.incrementAndGet()
+            logger<AbstractResourceOperator<*>>().debug(
+                "Waiting for $kind resources that are being loaded ($deduplicated loads deduplicated so far).")
+            return await(existing)
+        }
+        return load(load, inFlight, startedAt)
+    }
+
+    private fun load(
+        load: () -> List<R>,
+        inFlight: CompletableFuture<Collection<R>>,
+        startedAt: Int
+    ): Collection<R> {
+        try {
+            listedVersion.remove()
+            val loaded = load.invoke().map { ingestFilter.apply(it) }
+            val listed = listedVersion.get()
+            val resources = synchronized(_allResources) {
+                if (loading === inFlight) {
+                    loading = null
+                }
+                if (startedAt == invalidations) {
+                    // resources that were notified while loading are newer
+                    _allResources.putAll(loaded.filter { !_allResources.contains(it) && !isRemovedWhileLoading(it) })
+                    changed()
+                    resourceVersion = versionWhileLoading ?: listed
+                    clearLoadingChanges()
+                    createSnapshot()
+                } else {
+                    // invalidated while loading, dont cache
+                    loaded.sortedWith(compareBy(ResourceKey.BY_NAME) { ResourceKey.create(it) })
+                }
+            }
+            inFlight.complete(resources)
+            return resources
+        } catch (e: Exception) {
+            synchronized(_allResources) {
+                if (loading === inFlight) {
+                    loading = null
+                }
+            }
+            inFlight.completeExceptionally(e)
+            throw e
+        } finally {
+            listedVersion.remove()
+        }
+    }
+
+    /**
+     * Returns `true` if the given resource was removed while resources were being loaded.
+     * A resource that was created again with the same name is a different resource (with a different uid).
+     * Has to be called while holding the lock on the cached resources.
+     */
+    private fun isRemovedWhileLoading(resource: R): Boolean {
+        val key = ResourceKey.create(resource)
+        return removedWhileLoading.containsKey(key)
+                && removedWhileLoading[key] == resource.metadata?.uid
+    }
+
+    /**
+     * Forgets the resources that were removed and the version that was received while resources were being loaded.
+     * Has to be called while holding the lock on the cached resources.
+     */
+    private fun clearLoadingChanges() {
+        removedWhileLoading.clear()
+        versionWhileLoading = null
+    }
+
+    /**
+     * Sets the version of the list that the current thread loaded.
+     * It becomes the [resourceVersion] once the loaded resources are cached.
+     * Resources that are loaded after an invalidation are not cached and their version is not used.
+     *
+     * @param resourceVersion the version of the list
+     */
+    protected fun setListedVersion(resourceVersion: String?) {
+        listedVersion.set(resourceVersion)
+    }
+
+    private fun await(loading: CompletableFuture<Collection<R>>): Collection<R> {
+        try {
+            return loading.get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    /**
+     * Returns the cached resources without loading them. Returns `null` if none are cached.
+     *
+     * @return the cached resources or `null`
+     */
+    fun getCached(): Collection<R>? {
+        val current = snapshot
+        if (current != null) {
+            return current
+        }
+        synchronized(_allResources) {
+            if (_allResources.isEmpty()) {
+                return null
+            }
+            return createSnapshot()
+        }
+    }
+
+    /**
+     * Returns `true` if there are resources cached. Neither loads the resources nor creates a snapshot of them.
+     *
+     * @return true if resources are cached
+     */
+    fun hasCached(): Boolean {
+        if (snapshot != null) {
+            return true
+        }
+        synchronized(_allResources) {
+            return !_allResources.isEmpty()
+        }
+    }
+
+    /**
+     * Returns the cached resources in the given namespace without loading them. Returns `null` if none are cached.
+     * The resources are looked up by namespace, the resources in other namespaces are not filtered.
+     *
+     * @param namespace the namespace that the resources are in
+     * @return the cached resources in the given namespace or `null`
+     */
+    fun getCachedIn(namespace: String?): Collection<R>? {
+        synchronized(_allResources) {
+            if (_allResources.isEmpty()) {
+                return null
+            }
+            return _allResources.getAllInNamespace(namespace)
+        }
+    }
+
+    /**
+     * Removes the cached resources without resetting the [resourceVersion] that they're watched at.
+     */
+    protected fun clearCache() {
+        synchronized(_allResources) {
+            _allResources.clear()
+            changed()
+        }
+    }
+
+    /**
+     * Returns the cached resources and the [resourceVersion] that they're at without loading them.
+     * Returns `null` if none are cached or their version is unknown.
+     *
+     * @return the cached resources and their version or `null`
+     */
+    protected fun getCachedWithVersion(): Pair<Collection<R>, String>? {
+        synchronized(_allResources) {
+            val version = resourceVersion
+            if (version == null
+                || _allResources.isEmpty()) {
+                return null
+            }
+            return Pair(createSnapshot(), version)
+        }
+    }
+
+    /**
+     * Replaces the cached resources by the given ones that are at the given version.
+     * Loads that are in flight are not cached.
+     *
+     * @param resources the resources to cache
+     * @param resourceVersion the version that the given resources are at
+     */
+    protected fun setCached(resources: Collection<R>, resourceVersion: String) {
+        synchronized(_allResources) {
+            _allResources.clear()
+            _allResources.putAll(resources)
+            changed()
+            loading = null
+            invalidations++
+            this.resourceVersion = resourceVersion
+            clearLoadingChanges()
+        }
+    }
+
+    private fun createSnapshot(): Collection<R> {
+        val sorted = _allResources.sorted
+        if (sorted.isNotEmpty()) {
+            // empty resources are loaded again with the next request
+            snapshot = sorted
+        }
+        return sorted
+    }
 
     override fun invalidate() {
         logger<AbstractResourceOperator<*>>().debug("Invalidating all $kind resources.")
         synchronized(_allResources) {
             _allResources.clear()
+            changed()
+            loading = null
+            invalidations++
+            resourceVersion = null
+            clearLoadingChanges()
         }
     }
 
@@ -32,11 +410,13 @@ abstract class AbstractResourceOperator<R : HasMetadata> : IResourceOperator<R>
         logger<AbstractResourceOperator<*>>().debug("Adding resource ${resource.metadata.name}.")
         // don't add resource if different instance of same resource is already contained
         synchronized(_allResources) {
-            @Suppress("UNCHECKED_CAST")
-            return when (val existing = _allResources.find { resource.isSameResource(it) }) {
-                null -> _allResources.add(resource as R)
+            return when (_allResources.get(resource)) {
+                null -> {
+                    put(resource)
+                    true
+                }
                 resource -> false
-                else -> replace(existing, resource)
+                else -> put(resource)
             }
         }
     }
@@ -47,10 +427,17 @@ abstract class AbstractResourceOperator<R : HasMetadata> : IResourceOperator<R>
         }
         logger<AbstractResourceOperator<*>>().debug("Removing resource ${resource.metadata.name}.")
         synchronized(_allResources) {
+            if (loading != null) {
+                removedWhileLoading[ResourceKey.create(resource)] = resource.metadata?.uid
+            }
             // do not remove by instance equality (ex. when removal is triggered by resource watch)
             // or equals bcs instance to be removed can be different and not equals either
             // (#equals would not match bcs properties - ex. phase - changed)
-            return _allResources.removeIf { resource.isSameResource(it) }
+            if (_allResources.remove(resource) == null) {
+                return false
+            }
+            changed()
+            return true
         }
     }
 
@@ -60,21 +447,173 @@ abstract class AbstractResourceOperator<R : HasMetadata> : IResourceOperator<R>
         }
         logger<AbstractResourceOperator<*>>().debug("Replacing resource ${resource.metadata.name}.")
         synchronized(_allResources) {
-            val toReplace = _allResources.find { resource.isSameResource(it) } ?: return false
-            return replace(toReplace, resource)
+            if (!_allResources.contains(resource)) {
+                return false
+            }
+            return put(resource)
         }
     }
 
-    private fun replace(toReplace: R, replaceBy: HasMetadata): Boolean {
-        val indexOf = _allResources.indexOf(toReplace)
-        if (indexOf < 0) {
-            return false
+    private fun put(resource: HasMetadata): Boolean {
+        if (tableRows) {
+            // resources that are received by the watch have no row
+            keepTableRow(_allResources.get(resource), resource)
         }
         @Suppress("UNCHECKED_CAST")
-        _allResources[indexOf] = replaceBy as R
+        _allResources.put(resource as R)
+        changed()
         return true
     }
 
+    /**
+     * Resets the snapshot and updates the [cachedCount] after the cached resources changed.
+     * Has to be called while holding the lock on the cached resources.
+     */
+    private fun changed() {
+        snapshot = null
+        cachedCount = _allResources.size
+    }
+
+    /**
+     * Lists resources in pages of [pageSize] resources so that large lists are not transferred
+     * and deserialized in a single response. The pages are requested with the continue token of the previous page
+     * until the last page was received. The version of the list becomes the [resourceVersion]
+     * once the loaded resources are cached.
+     *
+     * @param list the operation that lists a page of resources for the given list options
+     * @return all resources
+     */
+    protected fun listInPages(list: (options: ListOptions) -> KubernetesResourceList<R>?): List<R> {
+        val resources = mutableListOf<R>()
+        var continueToken: String? = null
+        do {
+            val options = ListOptionsBuilder()
+                .withLimit(pageSize)
+                .withContinue(continueToken)
+                .build()
+            val page = list.invoke(options) ?: break
+            resources.addAll(page.items ?: emptyList())
+            setListedVersion(page.metadata?.resourceVersion)
+            continueToken = page.metadata?.`continue`
+        } while (!continueToken.isNullOrEmpty())
+        return resources
+    }
+
+    /**
+     * Lists a page of resources using the given operation and options.
+     * Only the metadata of the resources is requested if this operator is [metadataOnly],
+     * the rows that the cluster prints for them if it is [tableRows].
+     *
+     * @param operation the operation to list the resources with
+     * @param options the options to list the resources with
+     * @param client the client to request the metadata of the resources with
+     * @return the page of resources
+     */
+    protected fun listPage(
+        operation: Listable<out KubernetesResourceList<R>>,
+        options: ListOptions,
+        client: Client
+    ): KubernetesResourceList<R>? {
+        if (tableRows
+            || metadataOnly) {
+            val httpClient = (client as? HttpClientAware)?.httpClient
+            if (httpClient != null) {
+                val metadataOperation =
+                    if (tableRows) {
+                        TableOperation(kind, httpClient)
+                    } else {
+                        PartialObjectMetadataOperation(kind, httpClient)
+                    }
+                val page = metadataOperation.list(operation, options)
+                if (page != null) {
+                    return page
+                }
+            }
+        }
+        return operation.list(options)
+    }
+
+    /**
+     * Returns the options to watch all resources starting at the [resourceVersion] of the cached resources.
+     * The resources are loaded if this wasn't done yet so that the watch starts at the version that was listed.
+     * Changes that happened in between listing and watching are therefore neither missed nor replayed.
+     */
+    protected fun getWatchAllOptions(): ListOptions {
+        if (resourceVersion == null) {
+            allResources // list and get resource version
+        }
+        return ListOptionsBuilder()
+            .withResourceVersion(resourceVersion)
+            .build()
+    }
+
+    /**
+     * Returns a watcher that updates the [resourceVersion] with each event
+     * before handing it on to the given watcher. The resources of the events are prepared for being cached.
+     *
+     * @see ingest
+     * A watch that is restarted after a disconnect may thus resume at the last version that was seen.
+     *
+     * @param watcher the watcher to hand the events on to
+     */
+    protected fun trackResourceVersion(watcher: Watcher<R>): Watcher<R> {
+        return synchronized(_allResources) {
+            ResourceVersionWatcher(filterIngested(watcher), invalidations, scopes)
+        }
+    }
+
+    /**
+     * Notifies this operator that the resources that it is for changed (ex. its namespace).
+     * Drops the events of the watches that were started before.
+     */
+    protected fun scopeChanged() {
+        synchronized(_allResources) {
+            scopes++
+        }
+    }
+
+    /**
+     * Returns a watcher that prepares the resources of the events for being cached
+     * before handing them on to the given watcher.
+     *
+     * @param watcher the watcher to hand the events on to
+     *
+     * @see ingest
+     */
+    protected fun filterIngested(watcher: Watcher<R>): Watcher<R> {
+        return IngestFilterWatcher(watcher)
+    }
+
+    /**
+     * Prepares the given resource that a watch received for being cached.
+     * Only the metadata is kept if this operator [cachesMetadataOnly] so that the cache doesn't fill up with
+     * full resources (ex. the data of secrets). Resources are then filtered by the [ingestFilter].
+     * Resources that are cached as [tableRows] keep the row of the resource that they replace once they're cached.
+     *
+     * @param resource the resource that was received
+     * @return the resource to cache
+     */
+    private fun ingest(resource: R): R {
+        val toCache =
+            if (cachesMetadataOnly) {
+                toMetadataOnly(resource)
+            } else {
+                resource
+            }
+        return ingestFilter.apply(toCache)
+    }
+
+    /**
+     * Watches all resources of this operator starting at the given version. The resources are neither listed
+     * nor cached and the events are handed on as they are received, the [ingestFilter] is not applied.
+     * Returns `null` if the resources cannot be watched.
+     *
+     * @param resourceVersion the version to start watching at. Watches from the current version if `null`
+     * @param watcher the watcher to notify
+     * @return the watch
+     */
+    abstract fun watchAllFrom(resourceVersion: String?, watcher: Watcher<in R>): Watch?
+
     protected fun removeResourceVersion(toCreate: R) {
         toCreate.metadata.resourceVersion = null
     }
@@ -86,4 +625,69 @@ abstract class AbstractResourceOperator<R : HasMetadata> : IResourceOperator<R>
     private fun isCorrectKind(resource: HasMetadata): Boolean {
         return kind.clazz.isAssignableFrom(resource::class.java)
     }
+
+    private inner class IngestFilterWatcher(private val target: Watcher<R>): Watcher<R> {
+
+        override fun eventReceived(action: Watcher.Action, resource: R) {
+            target.eventReceived(action, ingest(resource))
+        }
+
+        override fun onClose() {
+            target.onClose()
+        }
+
+        override fun onClose(e: WatcherException?) {
+            target.onClose(e)
+        }
+    }
+
+    /**
+     * A watcher that updates the [resourceVersion] with the events that it receives.
+     * The version is not updated once the cached resources were invalidated after this watcher was created.
+     * Events are dropped once the resources that this operator is for changed after this watcher was created.
+     */
+    private inner class ResourceVersionWatcher(
+        private val target: Watcher<R>,
+        private val generation: Int,
+        private val scope: Int
+    ): Watcher<R> {
+
+        override fun eventReceived(action: Watcher.Action, resource: R) {
+            if (!track(resource.metadata?.resourceVersion)) {
+                logger<AbstractResourceOperator<*>>().debug(
+                    "Dropped $action event for $kind resource ${resource.metadata?.name} of stale watch.")
+                return
+            }
+            target.eventReceived(action, resource)
+        }
+
+        /**
+         * Sets the given version if the cached resources were not invalidated since this watcher was created.
+         * Returns `false` if the resources that this operator is for changed in the meantime.
+         */
+        private fun track(version: String?): Boolean {
+            synchronized(_allResources) {
+                if (scope != scopes) {
+                    return false
+                }
+                if (version == null
+                    || generation != invalidations) {
+                    return true
+                }
+                resourceVersion = version
+                if (loading != null) {
+                    versionWhileLoading = version
+                }
+                return true
+            }
+        }
+
+        override fun onClose() {
+            target.onClose()
+        }
+
+        override fun onClose(e: WatcherException?) {
+            target.onClose(e)
+        }
+    }
 }
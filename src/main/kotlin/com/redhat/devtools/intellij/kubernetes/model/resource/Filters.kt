@@ -63,6 +63,19 @@ class BuildConfigFor(build: Build) : Predicate<BuildConfig> {
 	}
 }
 
+/**
+ * A [Predicate] that matches resources that have all the given labels.
+ * Resources matching such a predicate can be looked up in the label index of the resource operators.
+ *
+ * @see com.redhat.devtools.intellij.kubernetes.model.resource.IResourceOperator.getAllWithLabels
+ */
+interface ILabelsFilter<R: HasMetadata>: Predicate<R> {
+	/**
+	 * The labels that matching resources have. Nothing is matching if `null`.
+	 */
+	val labels: Map<String, String>?
+}
+
 class PodForService(service: Service)
 	: PodForResource<Pod>(service.spec.selector)
 
@@ -72,16 +85,13 @@ class PodForDeployment(deployment: Deployment)
 class PodForStatefulSet(statefulSet: StatefulSet)
 	: PodForResource<Pod>(statefulSet.spec.selector.matchLabels)
 
-open class PodForResource<R: HasMetadata>(private val selectorLabels: Map<String, String>?): Predicate<Pod> {
-
-	override fun test(pod: Pod): Boolean {
-		return selectorLabels?.all { pod.metadata.labels.entries.contains(it) } ?: false
-	}
-}
+class PodForDaemonSet(daemonSet: DaemonSet)
+	: PodForResource<Pod>(daemonSet.spec.selector.matchLabels)
 
-class PodForDaemonSet(private val resource: DaemonSet) : Predicate<Pod> {
+open class PodForResource<R: HasMetadata>(override val labels: Map<String, String>?): ILabelsFilter<Pod> {
 
 	override fun test(pod: Pod): Boolean {
-		return resource.spec.selector.matchLabels.all { pod.metadata.labels.entries.contains(it) }
+		val podLabels = pod.metadata.labels ?: return false
+		return labels?.all { podLabels[it.key] == it.value } ?: false
 	}
 }
@@ -17,6 +17,7 @@ import io.fabric8.kubernetes.client.Watcher
 interface IResourceOperator<R: HasMetadata> {
     val kind: ResourceKind<R>
     val allResources: Collection<R>
+    fun getAllWithLabels(labels: Map<String, String>): Collection<R>
     fun watchAll(watcher: Watcher<in R>): Watch?
     fun watch(resource: HasMetadata, watcher: Watcher<in R>): Watch?
     fun invalidate()
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource
+
+import com.intellij.openapi.diagnostic.logger
+import com.intellij.openapi.util.registry.Registry
+import com.redhat.devtools.intellij.kubernetes.model.util.setStripped
+import io.fabric8.kubernetes.api.model.HasMetadata
+import java.lang.reflect.Method
+import java.util.MissingResourceException
+import java.util.Optional
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A filter that removes the parts of the resources that are not displayed in the tree before the operators cache them.
+ * They're often most of the size of a resource. Resources that had parts removed are marked as stripped.
+ * The marker replaces the managed fields and is never serialized.
+ * The filter is only applied to the resources that the operators cache, never to the resources that editors watch.
+ * The full resource needs to be requested from the cluster if it is edited.
+ *
+ * @param managedFields `true` if the managed fields should be removed from the metadata
+ * @param lastAppliedConfiguration `true` if the annotation with the last applied configuration should be removed
+ * @param status `true` if the status should be removed
+ *
+ * @see com.redhat.devtools.intellij.kubernetes.model.util.isStripped
+ */
+data class IngestFilter(
+    val managedFields: Boolean = true,
+    val lastAppliedConfiguration: Boolean = true,
+    val status: Boolean = true
+) {
+
+    companion object {
+        const val REGISTRY_KEY = "kubernetes.cache.strip"
+        const val LAST_APPLIED_CONFIGURATION = "kubectl.kubernetes.io/last-applied-configuration"
+
+        /** a filter that keeps the resources as they are **/
+        @JvmField
+        val NONE = IngestFilter(managedFields = false, lastAppliedConfiguration = false, status = false)
+
+        /** the filter that the operators use unless stripping is disabled in the registry **/
+        @JvmStatic
+        val DEFAULT: IngestFilter by lazy {
+            if (isEnabled()) {
+                IngestFilter()
+            } else {
+                NONE
+            }
+        }
+
+        /** the accessors for the status by resource class, empty if a class has no status **/
+        private val statusAccessors = ConcurrentHashMap<Class<*>, Optional<Pair<Method, Method>>>()
+
+        private fun isEnabled(): Boolean {
+            return try {
+                Registry.get(REGISTRY_KEY).asBoolean()
+            } catch (e: MissingResourceException) {
+                true
+            }
+        }
+    }
+
+    /**
+     * Removes the parts of the given resource that this filter is configured for.
+     * The given resource is changed and returned.
+     *
+     * @param resource the resource to remove parts of
+     * @return the given resource
+     */
+    fun <R : HasMetadata> apply(resource: R): R {
+        val metadata = resource.metadata ?: return resource
+        var stripped = false
+        if (managedFields
+            && !metadata.managedFields.isNullOrEmpty()) {
+            // replaced by the marker
+            stripped = true
+        }
+        val annotations = metadata.annotations
+        if (lastAppliedConfiguration
+            && annotations?.containsKey(LAST_APPLIED_CONFIGURATION) == true) {
+            metadata.annotations = annotations.filterKeys { it != LAST_APPLIED_CONFIGURATION }
+            stripped = true
+        }
+        if (status) {
+            stripped = removeStatus(resource) || stripped
+        }
+        if (stripped) {
+            setStripped(resource)
+        }
+        return resource
+    }
+
+    private fun removeStatus(resource: HasMetadata): Boolean {
+        val (getter, setter) = getStatusAccessors(resource.javaClass) ?: return false
+        return try {
+            if (getter.invoke(resource) == null) {
+                return false
+            }
+            setter.invoke(resource, null)
+            true
+        } catch (e: ReflectiveOperationException) {
+            logger<IngestFilter>().debug("Could not remove status of ${resource.kind} ${resource.metadata.name}.", e)
+            false
+        }
+    }
+
+    private fun getStatusAccessors(clazz: Class<*>): Pair<Method, Method>? {
+        return statusAccessors.computeIfAbsent(clazz) {
+            val getter = clazz.methods.find { method ->
+                method.name == "getStatus"
+                        && method.parameterCount == 0
+            }
+            val setter = clazz.methods.find { method ->
+                method.name == "setStatus"
+                        && method.parameterCount == 1
+                        && !method.parameterTypes[0].isPrimitive
+            }
+            if (getter == null
+                || setter == null) {
+                Optional.empty()
+            } else {
+                Optional.of(Pair(getter, setter))
+            }
+        }.orElse(null)
+    }
+}
@@ -13,6 +13,7 @@ package com.redhat.devtools.intellij.kubernetes.model.resource
 import com.intellij.openapi.diagnostic.logger
 import io.fabric8.kubernetes.api.model.HasMetadata
 import io.fabric8.kubernetes.api.model.KubernetesResourceList
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder
 import io.fabric8.kubernetes.client.Client
 import io.fabric8.kubernetes.client.Watch
 import io.fabric8.kubernetes.client.Watcher
@@ -33,31 +34,140 @@ abstract class NamespacedResourceOperator<R : HasMetadata, C: Client>(
         this.namespace = namespace
     }
 
+    /**
+     * The operator for the resources of the same kind in all namespaces. If it has its resources cached,
+     * the resources in the current namespace are looked up in them instead of being held a second time.
+     */
+    @Volatile
+    var clusterWide: AbstractResourceOperator<R>? = null
+
     final override var namespace: String? = null
         set(namespace) {
             logger<NamespacedResourceOperator<*, *>>().debug("Using new namespace $namespace.")
-            invalidate()
-            field = namespace
+            synchronized(_allResources) {
+                invalidate()
+                scopeChanged()
+                field = namespace
+            }
         }
 
-    override val allResources: List<R>
+    override val allResources: Collection<R>
         get() {
-            synchronized(_allResources) {
-                if (_allResources.isEmpty()) {
-                    if (namespace != null) {
-                        _allResources.addAll(loadAllResources(namespace!!))
-                    } else {
-                        logger<NamespacedResourceOperator<*, *>>().debug("Could not load $kind resources: no namespace set.")
-                    }
+            val inNamespace = getFromClusterWide()
+            if (inNamespace != null) {
+                return inNamespace
+            }
+            return getAllResources {
+                val namespace = this.namespace
+                if (namespace != null) {
+                    loadAllResources(namespace)
+                } else {
+                    logger<NamespacedResourceOperator<*, *>>().debug("Could not load $kind resources: no namespace set.")
+                    emptyList()
                 }
-                return _allResources
             }
         }
 
 
+    /**
+     * Returns the resources in the current namespace that the [clusterWide] operator has cached.
+     * Returns `null` if it has no resources cached.
+     */
+    private fun getFromClusterWide(): Collection<R>? {
+        val inNamespace = clusterWide?.getCachedIn(namespace) ?: return null
+        if (hasCached()) {
+            // dont hold the resources twice
+            clearCache()
+        }
+        return inNamespace
+    }
+
+    override fun getAllWithLabels(labels: Map<String, String>): Collection<R> {
+        if (!isServedByClusterWide()) {
+            return super.getAllWithLabels(labels)
+        }
+        val namespace = this.namespace
+        return clusterWide?.getAllWithLabels(labels)
+            ?.filter { namespace == it.metadata?.namespace }
+            ?: emptyList()
+    }
+
+    override fun added(resource: HasMetadata): Boolean {
+        if (isServedByClusterWide()) {
+            // cluster wide operator is notified, too
+            return false
+        }
+        return super.added(resource)
+    }
+
+    override fun removed(resource: HasMetadata): Boolean {
+        if (isServedByClusterWide()) {
+            return false
+        }
+        return super.removed(resource)
+    }
+
+    override fun replaced(resource: HasMetadata): Boolean {
+        if (isServedByClusterWide()) {
+            return false
+        }
+        return super.replaced(resource)
+    }
+
+    /**
+     * Returns `true` if the resources in the current namespace are looked up in the resources
+     * that the [clusterWide] operator has cached. The watch for all resources then notifies
+     * the resources in the current namespace, too.
+     *
+     * @return true if the resources of this operator are served by the cluster wide operator
+     */
+    fun isServedByClusterWide(): Boolean {
+        return clusterWide?.hasCached() ?: false
+    }
+
+    /**
+     * Returns the resources that are cached for the current namespace and the version that they're at.
+     * Returns `null` if none are cached, their version is unknown or they're filtered from the [clusterWide] resources.
+     *
+     * @return the resources in the current namespace and their version or `null`
+     *
+     * @see com.redhat.devtools.intellij.kubernetes.model.WarmNamespaces
+     * @see com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots
+     */
+    fun getCachedInNamespace(): Pair<Collection<R>, String>? {
+        if (isServedByClusterWide()) {
+            return null
+        }
+        return getCachedWithVersion()
+    }
+
+    /**
+     * Caches the given resources that are at the given version if the given namespace is the current namespace.
+     *
+     * @param namespace the namespace that the given resources are in
+     * @param resources the resources to cache
+     * @param resourceVersion the version that the given resources are at
+     * @return true if the resources were cached
+     *
+     * @see com.redhat.devtools.intellij.kubernetes.model.WarmNamespaces
+     * @see com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots
+     */
+    fun setCachedInNamespace(namespace: String, resources: Collection<R>, resourceVersion: String): Boolean {
+        synchronized(_allResources) {
+            if (namespace != this.namespace) {
+                return false
+            }
+            logger<NamespacedResourceOperator<*, *>>().debug(
+                "Using ${resources.size} cached $kind resources in namespace $namespace.")
+            setCached(resources, resourceVersion)
+            return true
+        }
+    }
+
     protected open fun loadAllResources(namespace: String): List<R> {
         logger<NamespacedResourceOperator<*, *>>().debug("Loading $kind resources in namespace $namespace.")
-        return getOperation()?.inNamespace(namespace)?.list()?.items ?: emptyList()
+        val operation = getOperation()?.inNamespace(namespace) ?: return emptyList()
+        return listInPages { options -> listPage(operation, options, client) }
     }
 
     override fun watchAll(watcher: Watcher<in R>): Watch? {
@@ -69,7 +179,35 @@ abstract class NamespacedResourceOperator<R : HasMetadata, C: Client>(
         val typedWatcher = watcher as? Watcher<R> ?: return null
         return getOperation()
             ?.inNamespace(namespace!!)
-            ?.watch(typedWatcher)
+            ?.watch(getWatchAllOptions(), trackResourceVersion(typedWatcher))
+    }
+
+    /**
+     * Watches all resources in the given namespace starting at the given version.
+     * Returns `null` if the resources cannot be watched.
+     *
+     * @param namespace the namespace to watch the resources in
+     * @param resourceVersion the version to start watching at
+     * @param watcher the watcher to notify
+     * @return the watch
+     */
+    open fun watchAll(namespace: String, resourceVersion: String?, watcher: Watcher<in R>): Watch? {
+        @Suppress("UNCHECKED_CAST")
+        val typedWatcher = watcher as? Watcher<R> ?: return null
+        return getOperation()
+            ?.inNamespace(namespace)
+            ?.watch(
+                ListOptionsBuilder().withResourceVersion(resourceVersion).build(),
+                filterIngested(typedWatcher))
+    }
+
+    override fun watchAllFrom(resourceVersion: String?, watcher: Watcher<in R>): Watch? {
+        val namespace = this.namespace ?: return null
+        @Suppress("UNCHECKED_CAST")
+        val typedWatcher = watcher as? Watcher<R> ?: return null
+        return getOperation()
+            ?.inNamespace(namespace)
+            ?.watch(ListOptionsBuilder().withResourceVersion(resourceVersion).build(), typedWatcher)
     }
 
     override fun watch(resource: HasMetadata, watcher: Watcher<in R>): Watch? {
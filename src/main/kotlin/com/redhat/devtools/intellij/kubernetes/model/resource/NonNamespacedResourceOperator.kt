@@ -14,6 +14,7 @@ import com.intellij.openapi.diagnostic.logger
 import com.redhat.devtools.intellij.kubernetes.model.util.isSameNamespace
 import io.fabric8.kubernetes.api.model.HasMetadata
 import io.fabric8.kubernetes.api.model.KubernetesResourceList
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder
 import io.fabric8.kubernetes.client.Client
 import io.fabric8.kubernetes.client.Watch
 import io.fabric8.kubernetes.client.Watcher
@@ -28,25 +29,52 @@ abstract class NonNamespacedResourceOperator<R : HasMetadata, C : Client>(
     protected val client: C
 ) : AbstractResourceOperator<R>(), INonNamespacedResourceOperator<R, C> {
 
-    override val allResources: List<R>
+    override val allResources: Collection<R>
         get() {
-            synchronized(_allResources) {
-                if (_allResources.isEmpty()) {
-                    _allResources.addAll(loadAllResources())
-                }
-                return _allResources
-            }
+            return getAllResources { loadAllResources() }
         }
 
     protected open fun loadAllResources(): List<R> {
         logger<NamespacedResourceOperator<*, *>>().debug("Loading all $kind resources.")
-        return getOperation()?.list()?.items ?: emptyList()
+        val operation = getOperation() ?: return emptyList()
+        return listInPages { options -> listPage(operation, options, client) }
+    }
+
+    /**
+     * Returns the cached resources and the version that they're at.
+     * Returns `null` if none are cached or their version is unknown.
+     *
+     * @return the cached resources and their version or `null`
+     *
+     * @see com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots
+     */
+    fun getCachedClusterWide(): Pair<Collection<R>, String>? {
+        return getCachedWithVersion()
+    }
+
+    /**
+     * Caches the given resources that are at the given version.
+     *
+     * @param resources the resources to cache
+     * @param resourceVersion the version that the given resources are at
+     *
+     * @see com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots
+     */
+    fun setCachedClusterWide(resources: Collection<R>, resourceVersion: String) {
+        logger<NonNamespacedResourceOperator<*, *>>().debug("Using ${resources.size} cached $kind resources.")
+        setCached(resources, resourceVersion)
     }
 
     override fun watchAll(watcher: Watcher<in R>): Watch? {
         @Suppress("UNCHECKED_CAST")
         val typedWatcher = watcher as? Watcher<R> ?: return null
-        return getOperation()?.watch(typedWatcher)
+        return getOperation()?.watch(getWatchAllOptions(), trackResourceVersion(typedWatcher))
+    }
+
+    override fun watchAllFrom(resourceVersion: String?, watcher: Watcher<in R>): Watch? {
+        @Suppress("UNCHECKED_CAST")
+        val typedWatcher = watcher as? Watcher<R> ?: return null
+        return getOperation()?.watch(ListOptionsBuilder().withResourceVersion(resourceVersion).build(), typedWatcher)
     }
 
     override fun watch(resource: HasMetadata, watcher: Watcher<in R>): Watch? {
@@ -41,39 +41,18 @@ import io.fabric8.openshift.client.OpenShiftClient
 
 object OperatorFactory {
 
-    private val openshift =
-        listOf<Pair<ResourceKind<out HasMetadata>, (Clients<out OpenShiftClient>) -> IResourceOperator<out HasMetadata>>>(
+    private val kubernetesNonNamespaced =
+        listOf<Pair<ResourceKind<out HasMetadata>, (Clients<out KubernetesClient>) -> IResourceOperator<out HasMetadata>>>(
             NamespacesOperator.KIND to ::NamespacesOperator,
             NodesOperator.KIND to ::NodesOperator,
             AllPodsOperator.KIND to ::AllPodsOperator,
-            DeploymentsOperator.KIND to ::DeploymentsOperator,
-            StatefulSetsOperator.KIND to ::StatefulSetsOperator,
-            DaemonSetsOperator.KIND to ::DaemonSetsOperator,
-            JobsOperator.KIND to ::JobsOperator,
-            CronJobsOperator.KIND to ::CronJobsOperator,
-            NamespacedPodsOperator.KIND to ::NamespacedPodsOperator,
-            ProjectsOperator.KIND to ::ProjectsOperator,
-            ImageStreamsOperator.KIND to ::ImageStreamsOperator,
-            DeploymentConfigsOperator.KIND to ::DeploymentConfigsOperator,
-            BuildsOperator.KIND to ::BuildsOperator,
-            BuildConfigsOperator.KIND to ::BuildConfigsOperator,
-            ReplicationControllersOperator.KIND to ::ReplicationControllersOperator,
-            ServicesOperator.KIND to ::ServicesOperator,
-            EndpointsOperator.KIND to ::EndpointsOperator,
             PersistentVolumesOperator.KIND to ::PersistentVolumesOperator,
-            PersistentVolumeClaimsOperator.KIND to ::PersistentVolumeClaimsOperator,
             StorageClassesOperator.KIND to ::StorageClassesOperator,
-            ConfigMapsOperator.KIND to ::ConfigMapsOperator,
-            SecretsOperator.KIND to ::SecretsOperator,
-            IngressOperator.KIND to ::IngressOperator,
             CustomResourceDefinitionsOperator.KIND to ::CustomResourceDefinitionsOperator
         )
 
-    private val kubernetes =
+    private val kubernetesNamespaced =
         listOf<Pair<ResourceKind<out HasMetadata>, (Clients<out KubernetesClient>) -> IResourceOperator<out HasMetadata>>>(
-            NamespacesOperator.KIND to ::NamespacesOperator,
-            NodesOperator.KIND to ::NodesOperator,
-            AllPodsOperator.KIND to ::AllPodsOperator,
             DeploymentsOperator.KIND to ::DeploymentsOperator,
             StatefulSetsOperator.KIND to ::StatefulSetsOperator,
             DaemonSetsOperator.KIND to ::DaemonSetsOperator,
@@ -82,15 +61,66 @@ object OperatorFactory {
             NamespacedPodsOperator.KIND to ::NamespacedPodsOperator,
             ServicesOperator.KIND to ::ServicesOperator,
             EndpointsOperator.KIND to ::EndpointsOperator,
-            PersistentVolumesOperator.KIND to ::PersistentVolumesOperator,
             PersistentVolumeClaimsOperator.KIND to ::PersistentVolumeClaimsOperator,
-            StorageClassesOperator.KIND to ::StorageClassesOperator,
             ConfigMapsOperator.KIND to ::ConfigMapsOperator,
             SecretsOperator.KIND to ::SecretsOperator,
-            IngressOperator.KIND to ::IngressOperator,
-            CustomResourceDefinitionsOperator.KIND to ::CustomResourceDefinitionsOperator
+            IngressOperator.KIND to ::IngressOperator
+        )
+
+    private val openshiftNonNamespaced =
+        listOf<Pair<ResourceKind<out HasMetadata>, (Clients<out OpenShiftClient>) -> IResourceOperator<out HasMetadata>>>(
+            *kubernetesNonNamespaced.toTypedArray(),
+            ProjectsOperator.KIND to ::ProjectsOperator
+        )
+
+    private val openshiftNamespaced =
+        listOf<Pair<ResourceKind<out HasMetadata>, (Clients<out OpenShiftClient>) -> IResourceOperator<out HasMetadata>>>(
+            *kubernetesNamespaced.toTypedArray(),
+            ImageStreamsOperator.KIND to ::ImageStreamsOperator,
+            DeploymentConfigsOperator.KIND to ::DeploymentConfigsOperator,
+            BuildsOperator.KIND to ::BuildsOperator,
+            BuildConfigsOperator.KIND to ::BuildConfigsOperator,
+            ReplicationControllersOperator.KIND to ::ReplicationControllersOperator
         )
 
+    private val openshift = openshiftNonNamespaced + openshiftNamespaced
+
+    private val kubernetes = kubernetesNonNamespaced + kubernetesNamespaced
+
+    /**
+     * Returns the factories for the kubernetes operators by kind. Returns the factories for the operators of
+     * resources in the current namespace if [namespaced] is `true`, the ones for cluster wide resources otherwise.
+     * The operators are only created once the factories are invoked.
+     *
+     * @param namespaced whether the factories for the namespaced operators should be returned
+     * @return the factories for the operators by kind
+     */
+    fun getKubernetes(namespaced: Boolean)
+            : List<Pair<ResourceKind<out HasMetadata>, (Clients<out KubernetesClient>) -> IResourceOperator<out HasMetadata>>> {
+        return if (namespaced) {
+            kubernetesNamespaced
+        } else {
+            kubernetesNonNamespaced
+        }
+    }
+
+    /**
+     * Returns the factories for the openshift operators by kind.
+     *
+     * @param namespaced whether the factories for the namespaced operators should be returned
+     * @return the factories for the operators by kind
+     *
+     * @see getKubernetes
+     */
+    fun getOpenShift(namespaced: Boolean)
+            : List<Pair<ResourceKind<out HasMetadata>, (Clients<out OpenShiftClient>) -> IResourceOperator<out HasMetadata>>> {
+        return if (namespaced) {
+            openshiftNamespaced
+        } else {
+            openshiftNonNamespaced
+        }
+    }
+
     fun createKubernetes(clients: Clients<out KubernetesClient>): List<IResourceOperator<out HasMetadata>> {
         return kubernetes.map { it.second.invoke(clients) }
     }
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.intellij.openapi.diagnostic.logger
+import com.redhat.devtools.intellij.kubernetes.model.util.setMetadataOnly
+import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.KubernetesResourceList
+import io.fabric8.kubernetes.api.model.ListMeta
+import io.fabric8.kubernetes.api.model.ListOptions
+import io.fabric8.kubernetes.api.model.ObjectMeta
+import io.fabric8.kubernetes.client.dsl.base.OperationSupport
+import io.fabric8.kubernetes.client.utils.Serialization
+import okhttp3.HttpUrl
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import java.net.URL
+
+/**
+ * An operation that lists resources with their metadata only.
+ * The cluster is asked to return a `PartialObjectMetadataList` by content negotiation.
+ * The resources that are returned only have their metadata and are marked as such.
+ * Clusters that don't support it return the full resources, of which only the metadata is kept.
+ *
+ * @see com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+ */
+open class PartialObjectMetadataOperation<R : HasMetadata>(
+    protected val kind: ResourceKind<R>,
+    private val httpClient: OkHttpClient
+) {
+
+    companion object {
+        const val ACCEPT_PARTIAL_OBJECT_METADATA_LIST =
+            "application/json;as=PartialObjectMetadataList;g=meta.k8s.io;v=v1,application/json"
+        const val METADATA = "metadata"
+        private const val ITEMS = "items"
+    }
+
+    protected open val accept: String = ACCEPT_PARTIAL_OBJECT_METADATA_LIST
+
+    /**
+     * Lists the resources at the url of the given operation. Returns `null` if the operation has no url.
+     *
+     * @param operation the operation whose url shall be listed
+     * @param options the options (limit, continue etc.) to list with
+     * @return the list of resources that only have metadata
+     */
+    fun list(operation: Any, options: ListOptions): KubernetesResourceList<R>? {
+        val url = (operation as? OperationSupport)?.namespacedUrl ?: return null
+        return list(url, options)
+    }
+
+    fun list(url: URL, options: ListOptions): KubernetesResourceList<R>? {
+        logger<PartialObjectMetadataOperation<*>>().debug("Listing metadata of $kind resources at $url.")
+        val request = Request.Builder()
+            .get()
+            .url(createUrl(url, options).build())
+            .header("Accept", accept)
+            .build()
+        httpClient.newCall(request).execute().use { response ->
+            if (!response.isSuccessful) {
+                throw OperationSupport.requestFailure(request, OperationSupport.createStatus(response))
+            }
+            val body = response.body()?.string() ?: return null
+            return createList(Serialization.jsonMapper().readTree(body))
+        }
+    }
+
+    protected open fun createUrl(url: URL, options: ListOptions): HttpUrl.Builder {
+        val builder = HttpUrl.get(url.toString()).newBuilder()
+        if (options.limit != null) {
+            builder.addQueryParameter("limit", options.limit.toString())
+        }
+        if (options.`continue` != null) {
+            builder.addQueryParameter("continue", options.`continue`)
+        }
+        return builder
+    }
+
+    private fun createList(node: JsonNode): KubernetesResourceList<R> {
+        val metadata = node.get(METADATA)?.let { Serialization.jsonMapper().treeToValue(it, ListMeta::class.java) }
+        return MetadataOnlyList(metadata, createResources(node))
+    }
+
+    protected open fun createResources(list: JsonNode): List<R> {
+        return list.get(ITEMS)
+            ?.mapNotNull { item -> item.get(METADATA) }
+            ?.map { createResource(it) }
+            ?: emptyList()
+    }
+
+    protected fun createResource(metadata: JsonNode): R {
+        return createResource(Serialization.jsonMapper().treeToValue(metadata, ObjectMeta::class.java))
+    }
+
+    private fun createResource(metadata: ObjectMeta): R {
+        val resource = kind.clazz.newInstance()
+        resource.metadata = metadata
+        setMetadataOnly(resource)
+        return resource
+    }
+
+    private class MetadataOnlyList<R : HasMetadata>(
+        private val metadata: ListMeta?,
+        private val items: List<R>
+    ) : KubernetesResourceList<R> {
+
+        override fun getMetadata(): ListMeta? {
+            return metadata
+        }
+
+        override fun getItems(): List<R> {
+            return items
+        }
+    }
+}
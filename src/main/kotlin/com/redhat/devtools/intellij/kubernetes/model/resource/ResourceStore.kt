@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource
+
+import io.fabric8.kubernetes.api.model.HasMetadata
+import java.util.Collections
+import java.util.TreeMap
+
+/**
+ * A store for resources that are keyed by kind, apiVersion, namespace and name.
+ * Resources are additionally indexed by uid, by labels and by namespace. Adding, removing and replacing a resource is done in
+ * constant time while [values] are kept in the order in which the resources were added.
+ * Replacing a resource keeps its position.
+ * The resources are also kept sorted by name, [sorted] returns an immutable snapshot of them that is only
+ * created again once the store changed.
+ *
+ * This class is not thread safe, callers have to synchronize access.
+ *
+ * @see ResourceKey
+ */
+open class ResourceStore<R : HasMetadata> {
+
+    private val resources = LinkedHashMap<ResourceKey, R>()
+    private val keysByUid = HashMap<String, ResourceKey>()
+    private val keysByLabel = HashMap<Pair<String, String>, MutableSet<ResourceKey>>()
+    private val sortedResources = TreeMap<ResourceKey, R>(ResourceKey.BY_NAME)
+    private var sortedSnapshot: List<R>? = null
+    private val sortedByNamespace = HashMap<String?, TreeMap<ResourceKey, R>>()
+    private val sortedSnapshotsByNamespace = HashMap<String?, List<R>>()
+
+    /**
+     * The resources in this store in the order they were added.
+     * This is a live view of this store.
+     */
+    val values: Collection<R>
+        get() {
+            return resources.values
+        }
+
+    /**
+     * The resources in this store sorted by name (and namespace, kind, apiVersion for resources with the same name).
+     * This is an immutable snapshot that stays the same until this store is changed.
+     */
+    val sorted: List<R>
+        get() {
+            return sortedSnapshot
+                ?: Collections.unmodifiableList(ArrayList(sortedResources.values))
+                    .also { sortedSnapshot = it }
+        }
+
+    val size: Int
+        get() {
+            return resources.size
+        }
+
+    fun isEmpty(): Boolean {
+        return resources.isEmpty()
+    }
+
+    /**
+     * Returns the resource in this store that is the same resource as the given one.
+     * Returns `null` if there's none.
+     *
+     * @param resource the resource to look up
+     * @return the resource in this store that's the same resource as the given one
+     *
+     * @see ResourceKey
+     */
+    fun get(resource: HasMetadata): R? {
+        return resources[ResourceKey.create(resource)]
+    }
+
+    /**
+     * Returns the resource with the given uid. Returns `null` if there's none.
+     *
+     * @param uid the uid of the resource to look up
+     * @return the resource with the given uid
+     */
+    fun getByUid(uid: String?): R? {
+        if (uid == null) {
+            return null
+        }
+        val key = keysByUid[uid] ?: return null
+        return resources[key]
+    }
+
+    /**
+     * Returns all resources that have all the given labels (keys and values).
+     * The resources are looked up in the label index,
+     * the cost is bound by the number of resources with the rarest of the given labels.
+     * Returns all resources if the given labels are empty.
+     * The resources are sorted by name.
+     *
+     * @param labels the labels that the resources have to have
+     * @return the resources that have all the given labels
+     */
+    fun getAllWithLabels(labels: Map<String, String>): Collection<R> {
+        if (labels.isEmpty()) {
+            return sorted
+        }
+        val keys = labels.entries
+            .map { keysByLabel[Pair(it.key, it.value)] ?: return emptyList() }
+            .sortedBy { it.size }
+        val matching = keys.first().toMutableSet()
+        keys.drop(1).forEach { matching.retainAll(it) }
+        return matching
+            .sortedWith(ResourceKey.BY_NAME)
+            .mapNotNull { resources[it] }
+    }
+
+    /**
+     * Returns the resources in the given namespace sorted by name.
+     * The resources are looked up in the namespace index, resources in other namespaces are not iterated.
+     * This is an immutable snapshot that stays the same until resources in the given namespace change.
+     *
+     * @param namespace the namespace that the resources have to be in
+     * @return the resources in the given namespace
+     */
+    fun getAllInNamespace(namespace: String?): List<R> {
+        return sortedSnapshotsByNamespace[namespace]
+            ?: Collections.unmodifiableList(ArrayList(sortedByNamespace[namespace]?.values ?: emptyList<R>()))
+                .also { sortedSnapshotsByNamespace[namespace] = it }
+    }
+
+    fun contains(resource: HasMetadata): Boolean {
+        return resources.containsKey(ResourceKey.create(resource))
+    }
+
+    /**
+     * Adds the given resource to this store. An existing instance of the same resource is replaced.
+     *
+     * @param resource the resource to add
+     * @return the resource that was replaced, `null` if there was none
+     */
+    fun put(resource: R): R? {
+        val key = ResourceKey.create(resource)
+        val existing = resources.put(key, resource)
+        removeIndexes(existing, key)
+        addIndexes(resource, key)
+        sortedResources[key] = resource
+        sortedSnapshot = null
+        sortedByNamespace.getOrPut(key.namespace) { TreeMap(ResourceKey.BY_NAME) }[key] = resource
+        sortedSnapshotsByNamespace.remove(key.namespace)
+        return existing
+    }
+
+    fun putAll(resources: Collection<R>) {
+        resources.forEach { put(it) }
+    }
+
+    /**
+     * Removes the resource that is the same resource as the given one.
+     *
+     * @param resource the resource to remove
+     * @return the resource that was removed, `null` if there was none
+     */
+    fun remove(resource: HasMetadata): R? {
+        val key = ResourceKey.create(resource)
+        val removed = resources.remove(key) ?: return null
+        removeIndexes(removed, key)
+        sortedResources.remove(key)
+        sortedSnapshot = null
+        val inNamespace = sortedByNamespace[key.namespace]
+        inNamespace?.remove(key)
+        if (inNamespace?.isEmpty() == true) {
+            sortedByNamespace.remove(key.namespace)
+        }
+        sortedSnapshotsByNamespace.remove(key.namespace)
+        return removed
+    }
+
+    fun clear() {
+        resources.clear()
+        keysByUid.clear()
+        keysByLabel.clear()
+        sortedResources.clear()
+        sortedSnapshot = null
+        sortedByNamespace.clear()
+        sortedSnapshotsByNamespace.clear()
+    }
+
+    private fun addIndexes(resource: R, key: ResourceKey) {
+        val uid = resource.metadata?.uid
+        if (uid != null) {
+            keysByUid[uid] = key
+        }
+        resource.metadata?.labels?.forEach {
+            keysByLabel.getOrPut(Pair(it.key, it.value)) { HashSet() }.add(key)
+        }
+    }
+
+    private fun removeIndexes(resource: R?, key: ResourceKey) {
+        if (resource == null) {
+            return
+        }
+        val uid = resource.metadata?.uid
+        if (uid != null
+            && keysByUid[uid] == key) {
+            keysByUid.remove(uid)
+        }
+        resource.metadata?.labels?.forEach {
+            val label = Pair(it.key, it.value)
+            val keys = keysByLabel[label] ?: return@forEach
+            keys.remove(key)
+            if (keys.isEmpty()) {
+                keysByLabel.remove(label)
+            }
+        }
+    }
+}
+
+/**
+ * The identity of a resource regardless of its version and state.
+ *
+ * @see com.redhat.devtools.intellij.kubernetes.model.util.isSameResource
+ */
+data class ResourceKey(
+    val kind: String?,
+    val apiVersion: String?,
+    val namespace: String?,
+    val name: String?
+) {
+    companion object {
+        /** orders keys by name, namespace, kind and apiVersion **/
+        @JvmField
+        val BY_NAME: Comparator<ResourceKey> = compareBy(
+            { it.name },
+            { it.namespace },
+            { it.kind },
+            { it.apiVersion })
+
+        @JvmStatic
+        fun create(resource: HasMetadata): ResourceKey {
+            return ResourceKey(
+                resource.kind,
+                resource.apiVersion,
+                resource.metadata?.namespace,
+                resource.metadata?.name)
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.redhat.devtools.intellij.kubernetes.model.util.setTableRow
+import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.ListOptions
+import okhttp3.HttpUrl
+import okhttp3.OkHttpClient
+import java.net.URL
+
+/**
+ * An operation that lists resources as rows of a `meta.k8s.io/v1 Table` that the cluster prints.
+ * The rows hold the columns that kubectl shows for the resources and the metadata of the resources.
+ * The resources that are returned only have their metadata and the (default priority) columns of their row.
+ * Clusters that don't support tables return the full resources, of which only the metadata is kept.
+ *
+ * @see com.redhat.devtools.intellij.kubernetes.model.util.getTableRow
+ * @see com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+ */
+class TableOperation<R : HasMetadata>(
+    kind: ResourceKind<R>,
+    httpClient: OkHttpClient
+) : PartialObjectMetadataOperation<R>(kind, httpClient) {
+
+    companion object {
+        const val ACCEPT_TABLE = "application/json;as=Table;g=meta.k8s.io;v=v1,application/json"
+        private const val COLUMN_DEFINITIONS = "columnDefinitions"
+        private const val NAME = "name"
+        private const val PRIORITY = "priority"
+        private const val ROWS = "rows"
+        private const val CELLS = "cells"
+        private const val OBJECT = "object"
+    }
+
+    override val accept: String = ACCEPT_TABLE
+
+    override fun createUrl(url: URL, options: ListOptions): HttpUrl.Builder {
+        return super.createUrl(url, options)
+            .addQueryParameter("includeObject", "Metadata")
+    }
+
+    override fun createResources(list: JsonNode): List<R> {
+        val rows = list.get(ROWS) ?: return super.createResources(list)
+        val columns = list.get(COLUMN_DEFINITIONS)
+            ?.map { column -> Pair(column.get(NAME)?.asText(), column.get(PRIORITY)?.asInt() ?: 0) }
+            ?: emptyList()
+        return rows.mapNotNull { row -> createResource(row, columns) }
+    }
+
+    private fun createResource(row: JsonNode, columns: List<Pair<String?, Int>>): R? {
+        val metadata = row.get(OBJECT)?.get(METADATA) ?: return null
+        val resource = createResource(metadata)
+        setTableRow(resource, createRow(row.get(CELLS), columns))
+        return resource
+    }
+
+    private fun createRow(cells: JsonNode?, columns: List<Pair<String?, Int>>): Map<String, String> {
+        if (cells == null) {
+            return emptyMap()
+        }
+        val row = LinkedHashMap<String, String>()
+        columns.forEachIndexed { index, column ->
+            val name = column.first
+            val cell = cells.get(index)
+            if (name != null
+                && column.second == 0 // columns that kubectl shows by default
+                && cell != null
+                && !cell.isNull) {
+                row[name] = cell.asText()
+            }
+        }
+        return row
+    }
+}
@@ -41,6 +41,18 @@ abstract class AbstractResourceFactory<T : HasMetadata> {
         return createResources(items)
     }
 
+    /**
+     * Returns the resourceVersion of the given list of resources. Returns `null` if there's none.
+     *
+     * @param resourcesList the list of resources
+     * @return the resourceVersion of the given list
+     */
+    fun getResourceVersion(resourcesList: Map<String, Any?>): String? {
+        @Suppress("UNCHECKED_CAST")
+        val metadata = resourcesList[METADATA] as? Map<String, Any?> ?: return null
+        return metadata[RESOURCE_VERSION] as? String?
+    }
+
     private fun createResources(items: List<Map<String, Any?>>): List<T> {
         return items.stream()
             .map { createResource(it) }
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes
 
+import com.redhat.devtools.intellij.kubernetes.model.resource.IngestFilter
 import com.redhat.devtools.intellij.kubernetes.model.resource.NonNamespacedOperation
 import com.redhat.devtools.intellij.kubernetes.model.resource.NonNamespacedResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
@@ -27,6 +28,9 @@ class AllPodsOperator(clients: Clients<out KubernetesClient>)
 
     override val kind = KIND
 
+    // the status of pods is displayed
+    override val ingestFilter = IngestFilter.DEFAULT.copy(status = false)
+
     override fun getOperation(): NonNamespacedOperation<Pod>? {
         return client.pods()
     }
@@ -25,6 +25,7 @@ class ConfigMapsOperator(clients: Clients<out KubernetesClient>)
     }
 
     override val kind = KIND
+    override val tableRows = true
 
     override fun getOperation(): NamespacedOperation<ConfigMap>? {
         return client.configMaps()
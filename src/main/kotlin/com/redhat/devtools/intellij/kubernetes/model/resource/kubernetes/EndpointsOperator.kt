@@ -25,6 +25,7 @@ class EndpointsOperator(clients: Clients<out KubernetesClient>)
     }
 
     override val kind = KIND
+    override val tableRows = true
 
     override fun getOperation(): NamespacedOperation<Endpoints>? {
         return client.endpoints()
@@ -26,6 +26,7 @@ class JobsOperator(clients: Clients<out KubernetesClient>)
     }
 
     override val kind = KIND
+    override val tableRows = true
 
     override fun getOperation(): NamespacedOperation<Job>? {
         return client.jobs()
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes
 
+import com.redhat.devtools.intellij.kubernetes.model.resource.IngestFilter
 import com.redhat.devtools.intellij.kubernetes.model.resource.NamespacedOperation
 import com.redhat.devtools.intellij.kubernetes.model.resource.NamespacedResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
@@ -26,6 +27,9 @@ open class NamespacedPodsOperator(clients: Clients<out KubernetesClient>)
 
     override val kind = KIND
 
+    // the status of pods is displayed
+    override val ingestFilter = IngestFilter.DEFAULT.copy(status = false)
+
     override fun getOperation(): NamespacedOperation<Pod>? {
         return client.pods()
     }
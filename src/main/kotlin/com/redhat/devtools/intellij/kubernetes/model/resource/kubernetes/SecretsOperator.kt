@@ -25,6 +25,7 @@ class SecretsOperator(clients: Clients<out KubernetesClient>)
     }
 
     override val kind = KIND
+    override val tableRows = true
 
     override fun getOperation(): NamespacedOperation<Secret>? {
         return client.secrets()
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom
+
+import com.intellij.openapi.diagnostic.logger
+import com.redhat.devtools.intellij.kubernetes.model.util.getApiGroupAndVersion
+import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder
+import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinition
+import io.fabric8.kubernetes.client.KubernetesClient
+import io.fabric8.kubernetes.client.KubernetesClientException
+import io.fabric8.kubernetes.client.Watch
+import io.fabric8.kubernetes.client.Watcher
+import io.fabric8.kubernetes.client.WatcherException
+
+/**
+ * The custom resource definitions that exist on a cluster.
+ * The definitions are listed once and then kept current by a watch. They're indexed by kind, group and version
+ * so that finding the definition for a resource is a lookup.
+ * The definitions are listed again once the watch was closed.
+ * They're listed on each request if they cannot be watched.
+ *
+ * @param client the client to list and watch the definitions with
+ */
+open class CustomResourceDefinitions(private val client: KubernetesClient) {
+
+    private data class Key(val kind: String?, val group: String?, val version: String?)
+
+    /**
+     * Definitions by name and by kind, group and version. Replaced as a whole when they change.
+     */
+    private class Definitions(val byName: Map<String, CustomResourceDefinition>) {
+        val index: Map<Key, CustomResourceDefinition> = createIndex(byName.values)
+
+        private fun createIndex(definitions: Collection<CustomResourceDefinition>): Map<Key, CustomResourceDefinition> {
+            val index = HashMap<Key, CustomResourceDefinition>()
+            definitions.forEach { definition ->
+                val spec = definition.spec
+                getVersions(definition).forEach { version ->
+                    index.putIfAbsent(Key(spec.names?.kind, spec.group, version), definition)
+                }
+            }
+            return index
+        }
+
+        /**
+         * Returns the versions of the given definition.
+         * Falls back to the single version in the spec for definitions that don't list their versions.
+         */
+        private fun getVersions(definition: CustomResourceDefinition): List<String> {
+            val versions = definition.spec.versions?.mapNotNull { it.name }
+            return if (versions.isNullOrEmpty()) {
+                listOfNotNull(definition.spec.version)
+            } else {
+                versions
+            }
+        }
+    }
+
+    /** the watcher that keeps the definitions current. `null` if they're not watched **/
+    @Volatile private var watcher: DefinitionsWatcher? = null
+    private var closed = false
+
+    /**
+     * Returns the definition for the given resource. Returns `null` if there's none.
+     *
+     * @param resource the resource to get the definition for
+     * @return the definition for the given resource
+     */
+    fun getDefinitionFor(resource: HasMetadata): CustomResourceDefinition? {
+        val groupAndVersion = getApiGroupAndVersion(resource)
+        return load().index[Key(resource.kind, groupAndVersion.first, groupAndVersion.second)]
+    }
+
+    fun isCustomResource(resource: HasMetadata): Boolean {
+        return getDefinitionFor(resource) != null
+    }
+
+    /**
+     * Returns all definitions on the cluster.
+     *
+     * @return all definitions
+     */
+    fun getAll(): Collection<CustomResourceDefinition> {
+        return load().byName.values
+    }
+
+    /**
+     * Stops watching the definitions and drops them.
+     */
+    fun close() {
+        synchronized(this) {
+            closed = true
+            watcher?.watch?.close()
+            watcher = null
+        }
+    }
+
+    /**
+     * Returns the definitions that are kept current. Lists and watches them if there are none.
+     * Listing and watching happen outside of the lock, the definitions are then published as a whole.
+     * The definitions of a concurrent request win if they were published first.
+     */
+    private fun load(): Definitions {
+        val existing = watcher
+        if (existing != null) {
+            return existing.definitions
+        }
+        logger<CustomResourceDefinitions>().debug("Listing custom resource definitions.")
+        val list = client.apiextensions().v1beta1().customResourceDefinitions().list()
+        val loaded = Definitions((list?.items ?: emptyList()).associateBy { it.metadata.name })
+        val watcher = DefinitionsWatcher(loaded)
+        val watch = startWatch(list?.metadata?.resourceVersion, watcher)
+            ?: return loaded
+        synchronized(this) {
+            val published = this.watcher
+            if (closed
+                || published != null
+                || watcher.isClosed) {
+                watch.close()
+                return published?.definitions ?: watcher.definitions
+            }
+            // only keep definitions that are kept current
+            watcher.watch = watch
+            this.watcher = watcher
+            return watcher.definitions
+        }
+    }
+
+    private fun startWatch(resourceVersion: String?, watcher: DefinitionsWatcher): Watch? {
+        return try {
+            val options = ListOptionsBuilder()
+                .withResourceVersion(resourceVersion)
+                .build()
+            client.apiextensions().v1beta1().customResourceDefinitions()
+                .watch(options, watcher)
+        } catch (e: KubernetesClientException) {
+            logger<CustomResourceDefinitions>().debug("Could not watch custom resource definitions.", e)
+            null
+        }
+    }
+
+    /**
+     * Keeps the definitions that it was created with current.
+     * Applies the events that it receives before it is published so that none of them are lost.
+     */
+    private inner class DefinitionsWatcher(
+        @Volatile var definitions: Definitions
+    ): Watcher<CustomResourceDefinition> {
+
+        @Volatile var watch: Watch? = null
+        @Volatile var isClosed = false
+
+        override fun eventReceived(action: Watcher.Action, definition: CustomResourceDefinition) {
+            val name = definition.metadata?.name ?: return
+            synchronized(this) {
+                val existing = definitions.byName
+                val changed = when (action) {
+                    Watcher.Action.ADDED,
+                    Watcher.Action.MODIFIED ->
+                        existing + (name to definition)
+                    Watcher.Action.DELETED ->
+                        existing - name
+                    else ->
+                        return
+                }
+                this.definitions = Definitions(changed)
+            }
+        }
+
+        override fun onClose(e: WatcherException?) {
+            logger<CustomResourceDefinitions>().debug("Watch for custom resource definitions closed.", e)
+            isClosed = true
+            synchronized(this@CustomResourceDefinitions) {
+                if (this === watcher) {
+                    // list again on next request
+                    watcher = null
+                }
+            }
+        }
+    }
+}
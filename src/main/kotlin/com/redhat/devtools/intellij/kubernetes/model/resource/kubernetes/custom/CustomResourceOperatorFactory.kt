@@ -29,6 +29,15 @@ object CustomResourceOperatorFactory {
 
     fun create(resource: HasMetadata, definitions: Collection<CustomResourceDefinition>, client: KubernetesClient): IResourceOperator<GenericCustomResource>? {
         val definition = CustomResourceDefinitionMapping.getDefinitionFor(resource, definitions) ?: return null
+        return create(resource, definition, client)
+    }
+
+    fun create(resource: HasMetadata, definitions: CustomResourceDefinitions, client: KubernetesClient): IResourceOperator<GenericCustomResource>? {
+        val definition = definitions.getDefinitionFor(resource) ?: return null
+        return create(resource, definition, client)
+    }
+
+    private fun create(resource: HasMetadata, definition: CustomResourceDefinition, client: KubernetesClient): IResourceOperator<GenericCustomResource> {
         return when (definition.spec.scope) {
             CustomResourceScope.CLUSTER -> NonNamespacedCustomResourceOperator(definition, client)
             CustomResourceScope.NAMESPACED -> NamespacedCustomResourceOperator(definition, resource.metadata.namespace, client)
@@ -48,8 +48,14 @@ class GenericCustomResourceWatchable(private val watchSupplier: (options: ListOp
 			target.eventReceived(action, customResource)
 		}
 
+		override fun onClose() {
+			logger<DelegatingResourceWatcher>().debug("Watcher $target was closed.")
+			target.onClose()
+		}
+
 		override fun onClose(e: WatcherException?) {
 			logger<DelegatingResourceWatcher>().debug("Watcher $target was closed.", e)
+			target.onClose(e)
 		}
 	}
 }
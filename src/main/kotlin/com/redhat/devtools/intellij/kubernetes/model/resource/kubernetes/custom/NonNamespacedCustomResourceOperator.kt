@@ -13,6 +13,8 @@ package com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom
 import com.redhat.devtools.intellij.kubernetes.model.resource.NonNamespacedResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
 import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.ListOptions
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder
 import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinition
 import io.fabric8.kubernetes.client.KubernetesClient
 import io.fabric8.kubernetes.client.Watch
@@ -29,24 +31,33 @@ class NonNamespacedCustomResourceOperator(
 
     override fun loadAllResources(): List<GenericCustomResource> {
         val resourcesList = operation.get().list()
+        setListedVersion(GenericCustomResourceFactory.getResourceVersion(resourcesList))
         return GenericCustomResourceFactory.createResources(resourcesList)
     }
 
     override fun watch(resource: HasMetadata, watcher: Watcher<in GenericCustomResource>): Watch? {
-        return watch(resource.metadata.namespace, resource.metadata.name, watcher)
+        @Suppress("UNCHECKED_CAST")
+        val typedWatcher = watcher as? Watcher<GenericCustomResource> ?: return null
+        return watch(resource.metadata.namespace, resource.metadata.name, ListOptionsBuilder().build(), typedWatcher)
     }
 
     override fun watchAll(watcher: Watcher<in GenericCustomResource>): Watch? {
-        return watch(null, null, watcher)
+        @Suppress("UNCHECKED_CAST")
+        val typedWatcher = watcher as? Watcher<GenericCustomResource> ?: return null
+        return watch(null, null, getWatchAllOptions(), trackResourceVersion(typedWatcher))
     }
 
-    private fun watch(namespace: String?, name: String?, watcher: Watcher<in GenericCustomResource>): Watch? {
+    override fun watchAllFrom(resourceVersion: String?, watcher: Watcher<in GenericCustomResource>): Watch? {
         @Suppress("UNCHECKED_CAST")
         val typedWatcher = watcher as? Watcher<GenericCustomResource> ?: return null
-        val watchableWrapper = GenericCustomResourceWatchable { options, customResourceWatcher ->
-            operation.get().watch(namespace, name, null, options, customResourceWatcher)
+        return watch(null, null, ListOptionsBuilder().withResourceVersion(resourceVersion).build(), typedWatcher)
+    }
+
+    private fun watch(namespace: String?, name: String?, options: ListOptions, watcher: Watcher<GenericCustomResource>): Watch? {
+        val watchableWrapper = GenericCustomResourceWatchable { watchOptions, customResourceWatcher ->
+            operation.get().watch(namespace, name, null, watchOptions, customResourceWatcher)
         }
-        return watchableWrapper.watch(typedWatcher)
+        return watchableWrapper.watch(options, watcher)
     }
 
     override fun delete(resources: List<HasMetadata>): Boolean {
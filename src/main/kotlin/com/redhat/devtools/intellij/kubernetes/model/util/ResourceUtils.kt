@@ -10,18 +10,26 @@
  ******************************************************************************/
 package com.redhat.devtools.intellij.kubernetes.model.util
 
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.node.MissingNode
 import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntry
 import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinition
 import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinitionSpec
+import io.fabric8.kubernetes.client.KubernetesClientException
 import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext
 import io.fabric8.kubernetes.client.utils.KubernetesVersionPriority
 import io.fabric8.kubernetes.client.utils.Serialization
 import io.fabric8.kubernetes.model.annotation.Group
 import io.fabric8.kubernetes.model.annotation.Version
 import io.fabric8.kubernetes.model.util.Helper
+import java.io.IOException
+import java.util.Collections
 import java.util.stream.Collectors
 
 const val MARKER_WILL_BE_DELETED = "willBeDeleted"
+const val MARKER_METADATA_ONLY = "metadataOnly"
+const val MARKER_TABLE_ROW = "tableRow"
 const val API_GROUP_VERSION_DELIMITER = '/'
 
 /**
@@ -246,6 +254,100 @@ fun isWillBeDeleted(resource: HasMetadata?): Boolean {
 	return MARKER_WILL_BE_DELETED == resource?.metadata?.deletionTimestamp
 }
 
+/**
+ * Marks the given resource as having its metadata only. The full resource needs to be requested from the cluster
+ * if more than the metadata is needed.
+ *
+ * @param resource the resource that has its metadata only
+ */
+fun setMetadataOnly(resource: HasMetadata) {
+	resource.metadata?.setAdditionalProperty(MARKER_METADATA_ONLY, true)
+}
+
+fun isMetadataOnly(resource: HasMetadata?): Boolean {
+	return true == resource?.metadata?.additionalProperties?.get(MARKER_METADATA_ONLY)
+}
+
+/**
+ * Returns a new resource of the type of the given resource that only has the metadata of it.
+ * It is marked as having its metadata only.
+ *
+ * @param resource the resource whose metadata shall be kept
+ * @return a resource with the metadata of the given resource only
+ *
+ * @see setMetadataOnly
+ */
+fun <R: HasMetadata> toMetadataOnly(resource: R): R {
+	@Suppress("UNCHECKED_CAST")
+	val metadataOnly = resource.javaClass.newInstance() as R
+	metadataOnly.metadata = resource.metadata
+	setMetadataOnly(metadataOnly)
+	return metadataOnly
+}
+
+/**
+ * The managed fields that stripped resources are marked with.
+ * Empty managed fields are never serialized, the marker therefore never shows in the yaml of a resource.
+ * Resources are identified as stripped by this very instance.
+ */
+private val MANAGED_FIELDS_STRIPPED: List<ManagedFieldsEntry> = Collections.unmodifiableList(ArrayList())
+
+/**
+ * Marks the given resource as having parts removed that are not displayed (ex. managed fields).
+ * The full resource needs to be requested from the cluster if it is edited.
+ * Replaces the managed fields of the given resource.
+ *
+ * @param resource the resource that had parts removed
+ *
+ * @see com.redhat.devtools.intellij.kubernetes.model.resource.IngestFilter
+ */
+fun setStripped(resource: HasMetadata) {
+	resource.metadata?.managedFields = MANAGED_FIELDS_STRIPPED
+}
+
+fun isStripped(resource: HasMetadata?): Boolean {
+	return MANAGED_FIELDS_STRIPPED === resource?.metadata?.managedFields
+}
+
+/**
+ * Sets the row (column names and cells) that the cluster printed for the given resource.
+ *
+ * @param resource the resource to set the row to
+ * @param row the column names and cells
+ *
+ * @see com.redhat.devtools.intellij.kubernetes.model.resource.TableOperation
+ */
+fun setTableRow(resource: HasMetadata, row: Map<String, String>) {
+	resource.metadata?.setAdditionalProperty(MARKER_TABLE_ROW, row)
+}
+
+/**
+ * Returns the row (column names and cells) that the cluster printed for the given resource.
+ * Returns `null` if there's none.
+ *
+ * @param resource the resource to get the row for
+ * @return the column names and cells
+ */
+fun getTableRow(resource: HasMetadata?): Map<String, String>? {
+	@Suppress("UNCHECKED_CAST")
+	return resource?.metadata?.additionalProperties?.get(MARKER_TABLE_ROW) as? Map<String, String>
+}
+
+/**
+ * Sets the row of the given previous resource to the given resource if the latter has none.
+ * Resources that are received by a watch have no row, the cluster only prints rows when listing.
+ *
+ * @param previous the resource whose row shall be kept
+ * @param resource the resource that replaces the previous one
+ */
+fun keepTableRow(previous: HasMetadata?, resource: HasMetadata) {
+	if (getTableRow(resource) != null) {
+		return
+	}
+	val row = getTableRow(previous) ?: return
+	setTableRow(resource, row)
+}
+
 /**
  * Returns a message listing the given resources by name while using ',' as delimiter.
  * Duplicate resources are ignored. Names that are longer than 20 characters are trimmed.
@@ -305,3 +407,44 @@ inline fun <reified T> createResource(jsonYaml: String): T {
 	return Serialization.unmarshal(jsonYaml, T::class.java)
 }
 
+/**
+ * Returns the tree for the given json or yaml string.
+ * Parsing the string once allows to create instances of several types from the tree.
+ *
+ * @param jsonYaml the string that should be parsed
+ * @return the tree for the given string
+ *
+ * @see createResource
+ */
+fun createTree(jsonYaml: String): JsonNode {
+	try {
+		val trimmed = jsonYaml.trimStart()
+		val mapper = if (trimmed.startsWith("{")
+			|| trimmed.startsWith("[")) {
+			Serialization.jsonMapper()
+		} else {
+			Serialization.yamlMapper()
+		}
+		return mapper.readTree(jsonYaml) ?: MissingNode.getInstance()
+	} catch (e: IOException) {
+		throw KubernetesClientException.launderThrowable(e)
+	}
+}
+
+/**
+ * Returns an instance of the given type for the given (json or yaml) tree.
+ *
+ * @param tree the tree that should be unmarshalled
+ * @return the instance of the given type
+ *
+ * @see createTree
+ */
+inline fun <reified T> createResource(tree: JsonNode): T {
+	try {
+		return Serialization.jsonMapper().treeToValue(tree, T::class.java)
+			?: throw KubernetesClientException("Could not create ${T::class.java.simpleName} from empty yaml/json")
+	} catch (e: IOException) {
+		throw KubernetesClientException.launderThrowable(e)
+	}
+}
+
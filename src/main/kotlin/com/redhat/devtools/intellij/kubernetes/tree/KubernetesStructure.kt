@@ -14,6 +14,7 @@ import com.intellij.ide.util.treeView.NodeDescriptor
 import com.intellij.openapi.project.Project
 import com.intellij.ui.tree.LeafState
 import io.fabric8.kubernetes.api.model.ConfigMap
+import io.fabric8.kubernetes.api.model.HasMetadata
 import io.fabric8.kubernetes.api.model.Namespace
 import io.fabric8.kubernetes.api.model.Node
 import io.fabric8.kubernetes.api.model.Pod
@@ -50,7 +51,7 @@ import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.Service
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.StatefulSetsOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.StorageClassesOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.GenericCustomResource
-import com.redhat.devtools.intellij.kubernetes.model.resourceName
+import com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
 import com.redhat.devtools.intellij.kubernetes.tree.KubernetesStructure.Folders.CONFIGURATION
 import com.redhat.devtools.intellij.kubernetes.tree.KubernetesStructure.Folders.CONFIG_MAPS
 import com.redhat.devtools.intellij.kubernetes.tree.KubernetesStructure.Folders.CRONJOBS
@@ -153,7 +154,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(NamespacesOperator.KIND)
 								.inNoNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { getRootElement() }
 				},
@@ -190,7 +190,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(NodesOperator.KIND)
 								.inNoNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { getRootElement() }
 				},
@@ -200,7 +199,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(AllPodsOperator.KIND)
 								.inAnyNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { NODES }
 				}
@@ -227,7 +225,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(DeploymentsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { WORKLOADS }
 				},
@@ -238,7 +235,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 								.inCurrentNamespace()
 								.filtered(PodForDeployment(it))
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { DEPLOYMENTS }
 				},
@@ -248,7 +244,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(StatefulSetsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { WORKLOADS }
 				},
@@ -259,7 +254,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 								.inCurrentNamespace()
 								.filtered(PodForStatefulSet(it))
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { WORKLOADS }
 				},
@@ -269,7 +263,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(DaemonSetsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { WORKLOADS }
 				},
@@ -280,7 +273,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 								.inCurrentNamespace()
 								.filtered(PodForDaemonSet(it))
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { WORKLOADS }
 				},
@@ -290,7 +282,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(JobsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { WORKLOADS }
 				},
@@ -300,7 +291,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(CronJobsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { WORKLOADS }
 				},
@@ -310,7 +300,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(NamespacedPodsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { WORKLOADS }
 				}
@@ -335,7 +324,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(ServicesOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { NETWORK }
 				},
@@ -346,7 +334,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 								.inCurrentNamespace()
 								.filtered(PodForService(it))
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { SERVICES }
 				},
@@ -356,7 +343,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(EndpointsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { NETWORK }
 				},
@@ -366,7 +352,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(IngressOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { NETWORK }
 				}
@@ -391,7 +376,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(PersistentVolumesOperator.KIND)
 								.inAnyNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { STORAGE }
 				},
@@ -401,7 +385,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(PersistentVolumeClaimsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { STORAGE }
 				},
@@ -411,7 +394,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(StorageClassesOperator.KIND)
 								.inAnyNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { STORAGE }
 				}
@@ -435,14 +417,13 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(ConfigMapsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { CONFIGURATION }
 				},
 				element<ConfigMap> {
 					anchor { it is ConfigMap }
 					childElements {
-						KubernetesDescriptors.createDataDescriptorFactories((it).data, it)
+						KubernetesDescriptors.createDataDescriptorFactories(getFull(it).data, it)
 					}
 					parentElements { CONFIGURATION }
 				},
@@ -452,14 +433,13 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(SecretsOperator.KIND)
 								.inCurrentNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { CONFIGURATION }
 				},
 				element<Secret>{
 					anchor { it is Secret }
 					childElements {
-						KubernetesDescriptors.createDataDescriptorFactories((it).data, it)
+						KubernetesDescriptors.createDataDescriptorFactories(getFull(it).data, it)
 					}
 					parentElements { CONFIGURATION }
 				}
@@ -474,7 +454,6 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 						model.resources(CustomResourceDefinitionsOperator.KIND)
 								.inAnyNamespace()
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { getRootElement() }
 				},
@@ -483,13 +462,23 @@ class KubernetesStructure(model: IResourceModel) : AbstractTreeStructureContribu
 					childElements {
 						model.resources(it)
 								.list()
-								.sortedBy(resourceName)
 					}
 					parentElements { CUSTOM_RESOURCES_DEFINITIONS }
 				}
 		)
 	}
 
+	/**
+	 * Returns the full resource for the given resource if it has its metadata only.
+	 * Returns the given resource otherwise.
+	 */
+	private fun <R: HasMetadata> getFull(resource: R): R {
+		if (!isMetadataOnly(resource)) {
+			return resource
+		}
+		return model.get(resource) ?: resource
+	}
+
 	override fun getLeafState(element: Any): LeafState? {
 		return when(element) {
 			is Namespace,
@@ -34,7 +34,6 @@ import com.redhat.devtools.intellij.kubernetes.model.resource.openshift.Deployme
 import com.redhat.devtools.intellij.kubernetes.model.resource.openshift.ImageStreamsOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.openshift.ProjectsOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.openshift.ReplicationControllersOperator
-import com.redhat.devtools.intellij.kubernetes.model.resourceName
 import com.redhat.devtools.intellij.kubernetes.tree.KubernetesStructure.Folders.NODES
 import com.redhat.devtools.intellij.kubernetes.tree.KubernetesStructure.Folders.WORKLOADS
 import com.redhat.devtools.intellij.kubernetes.tree.TreeStructure.Folder
@@ -68,18 +67,15 @@ class OpenShiftStructure(model: IResourceModel): AbstractTreeStructureContributi
                         .inCurrentNamespace()
                         .filtered(ReplicationControllerFor(element))
                         .list()
-                        .sortedBy(resourceName)
             is BuildConfig ->
                 model.resources(BuildsOperator.KIND)
                         .inCurrentNamespace()
                         .filtered(BuildFor(element))
                         .list()
-                        .sortedBy(resourceName)
             PROJECTS ->
                 model.resources(ProjectsOperator.KIND)
                         .inNoNamespace()
                         .list()
-                        .sortedBy(resourceName)
             IMAGESTREAMS ->
                 model.resources(ImageStreamsOperator.KIND)
                         .inCurrentNamespace()
@@ -88,12 +84,10 @@ class OpenShiftStructure(model: IResourceModel): AbstractTreeStructureContributi
                 model.resources(DeploymentConfigsOperator.KIND)
                         .inCurrentNamespace()
                         .list()
-                        .sortedBy(resourceName)
             BUILDCONFIGS ->
                 model.resources(BuildConfigsOperator.KIND)
                         .inCurrentNamespace()
                         .list()
-                        .sortedBy(resourceName)
             else -> emptyList()
         }
     }
@@ -124,7 +118,6 @@ class OpenShiftStructure(model: IResourceModel): AbstractTreeStructureContributi
                             .inCurrentNamespace()
                             .filtered(DeploymentConfigFor(element))
                             .list()
-                            .sortedBy(resourceName)
                 is BuildConfig ->
                     BuildConfigsOperator
                 BUILDCONFIGS ->
@@ -134,7 +127,6 @@ class OpenShiftStructure(model: IResourceModel): AbstractTreeStructureContributi
                             .inCurrentNamespace()
                             .filtered(BuildConfigFor(element))
                             .list()
-                            .sortedBy(resourceName)
                 else ->
                     // fallback to (calling) tree structure
                     null
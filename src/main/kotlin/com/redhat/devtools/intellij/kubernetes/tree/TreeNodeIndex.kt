@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.tree
+
+import com.intellij.ide.util.treeView.NodeDescriptor
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKey
+import io.fabric8.kubernetes.api.model.HasMetadata
+import java.util.concurrent.ConcurrentHashMap
+import javax.swing.JTree
+import javax.swing.event.TreeExpansionEvent
+import javax.swing.event.TreeExpansionListener
+import javax.swing.event.TreeModelEvent
+import javax.swing.event.TreeModelListener
+import javax.swing.tree.DefaultMutableTreeNode
+import javax.swing.tree.TreeModel
+
+/**
+ * An index of the nodes in a tree model by the key of their element.
+ * Resources are indexed by their [ResourceKey] so that any version of a resource finds its node.
+ * Folders are indexed by their kind too since changes in a folder are notified as changes of its kind.
+ *
+ * The index is kept current with the nodes that the tree model notifies as inserted, removed and changed.
+ * Nodes that the tree model loads for the first time are not notified by it. They are indexed once the tree that
+ * displays them is notified or expands them (see [install]). Elements that are not indexed are not in the tree.
+ */
+class TreeNodeIndex(private val treeModel: TreeModel) : TreeModelListener, TreeExpansionListener {
+
+    private val nodesByKey = ConcurrentHashMap<Any, DefaultMutableTreeNode>()
+
+    init {
+        treeModel.addTreeModelListener(this)
+        indexSubtree(treeModel.root as? DefaultMutableTreeNode)
+    }
+
+    /**
+     * Indexes the nodes that the given tree loads and displays: the ones that its (asynchronous) model notifies
+     * and the ones below the nodes that it expands.
+     *
+     * @param tree the tree that displays the nodes of the tree model of this index
+     */
+    fun install(tree: JTree) {
+        tree.model.addTreeModelListener(this)
+        tree.addTreeExpansionListener(this)
+    }
+
+    /**
+     * Returns the node for the given element. Returns a node with a different version of the given element
+     * if it is a resource and a node exists for it. Returns `null` if there is none, the element is then not
+     * in the tree.
+     *
+     * @param element the element to look up the node for
+     * @return the node for the given element
+     */
+    fun find(element: Any?): DefaultMutableTreeNode? {
+        if (element == null) {
+            return null
+        }
+        val key = getKey(element) ?: return null
+        return getAttached(key)
+    }
+
+    private fun getAttached(key: Any): DefaultMutableTreeNode? {
+        val node = nodesByKey[key] ?: return null
+        if (node.root != treeModel.root) {
+            nodesByKey.remove(key, node)
+            return null
+        }
+        return node
+    }
+
+    private fun index(node: DefaultMutableTreeNode) {
+        getKeys(node).forEach { key -> nodesByKey[key] = node }
+    }
+
+    private fun indexSubtree(node: DefaultMutableTreeNode?) {
+        node?.depthFirstEnumeration()?.toList()
+            ?.filterIsInstance<DefaultMutableTreeNode>()
+            ?.forEach { index(it) }
+    }
+
+    private fun removeSubtree(node: DefaultMutableTreeNode?) {
+        node?.depthFirstEnumeration()?.toList()
+            ?.filterIsInstance<DefaultMutableTreeNode>()
+            ?.forEach { child ->
+                getKeys(child).forEach { key -> nodesByKey.remove(key, child) }
+            }
+    }
+
+    private fun getKeys(node: DefaultMutableTreeNode): List<Any> {
+        val element = (node.userObject as? NodeDescriptor<*>)?.element
+        return if (element is TreeStructure.Folder) {
+            listOfNotNull(element, element.kind)
+        } else {
+            listOfNotNull(getKey(element))
+        }
+    }
+
+    private fun getKey(element: Any?): Any? {
+        return when (element) {
+            is HasMetadata -> ResourceKey.create(element)
+            else -> element
+        }
+    }
+
+    override fun treeNodesInserted(event: TreeModelEvent?) {
+        event?.children?.forEach { indexSubtree(it as? DefaultMutableTreeNode) }
+    }
+
+    override fun treeNodesRemoved(event: TreeModelEvent?) {
+        event?.children?.forEach { removeSubtree(it as? DefaultMutableTreeNode) }
+    }
+
+    override fun treeNodesChanged(event: TreeModelEvent?) {
+        event?.children?.forEach { (it as? DefaultMutableTreeNode)?.let { node -> index(node) } }
+    }
+
+    override fun treeStructureChanged(event: TreeModelEvent?) {
+        val node = event?.treePath?.lastPathComponent as? DefaultMutableTreeNode
+        if (node == null
+            || node == treeModel.root) {
+            nodesByKey.clear()
+        } else {
+            nodesByKey.values.removeIf { indexed -> indexed != node && indexed.isNodeAncestor(node) }
+        }
+        indexSubtree(node)
+    }
+
+    override fun treeExpanded(event: TreeExpansionEvent?) {
+        indexSubtree(event?.path?.lastPathComponent as? DefaultMutableTreeNode)
+    }
+
+    override fun treeCollapsed(event: TreeExpansionEvent?) {
+        // collapsed nodes are still in the tree
+    }
+}
@@ -26,7 +26,9 @@ import com.redhat.devtools.intellij.kubernetes.model.IResourceModel
 import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext
 import com.redhat.devtools.intellij.kubernetes.model.context.IContext
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import com.redhat.devtools.intellij.kubernetes.model.util.getTableRow
 import com.redhat.devtools.intellij.kubernetes.model.util.hasDeletionTimestamp
+import com.redhat.devtools.intellij.kubernetes.model.util.isSameResource
 import com.redhat.devtools.intellij.kubernetes.model.util.isWillBeDeleted
 import java.util.Optional
 import javax.swing.Icon
@@ -253,6 +255,24 @@ open class TreeStructure(
             return element.metadata.name
         }
 
+        /**
+         * Replaces the resource of this descriptor by the given version of it.
+         * Returns `false` if the given resource is not the same resource as the current one.
+         *
+         * @param resource the new version of the resource
+         * @return true if the resource was replaced
+         */
+        fun setResource(resource: HasMetadata): Boolean {
+            val current = element ?: return false
+            if (!current.isSameResource(resource)
+                || !current.javaClass.isInstance(resource)) {
+                return false
+            }
+            @Suppress("UNCHECKED_CAST")
+            replaceElement(resource as T)
+            return true
+        }
+
         override fun update(presentation: PresentationData) {
             super.update(presentation)
             if (isWillBeDeleted(element)) {
@@ -262,11 +282,20 @@ open class TreeStructure(
                 presentation.presentableText += " (terminating)"
                 presentation.setAttributesKey(CodeInsightColors.WRONG_REFERENCES_ATTRIBUTES)
             }
+            updateLocation(presentation)
+        }
+
+        private fun updateLocation(presentation: PresentationData) {
+            val row = getTableRow(element) ?: return
+            presentation.locationString = row
+                .filterKeys { name -> name != "Name" } // name is the label already
+                .map { (name, cell) -> "$name: $cell" }
+                .joinToString("  ")
         }
     }
 
     open class Descriptor<T>(
-            private val element: T,
+            private var element: T,
             parent: NodeDescriptor<*>?,
             protected val model: IResourceModel,
             project: Project
@@ -289,6 +318,10 @@ open class TreeStructure(
             return element
         }
 
+        protected fun replaceElement(element: T) {
+            this.element = element
+        }
+
         open fun invalidate() {
             model.invalidate(element)
         }
@@ -13,14 +13,21 @@ package com.redhat.devtools.intellij.kubernetes.tree
 import com.intellij.ide.util.treeView.AbstractTreeStructure
 import com.intellij.ide.util.treeView.NodeDescriptor
 import com.intellij.ui.tree.StructureTreeModel
+import com.intellij.util.concurrency.AppExecutorUtil
 import com.redhat.devtools.intellij.kubernetes.model.IResourceModel
 import com.redhat.devtools.intellij.kubernetes.model.ModelChangeObservable
+import io.fabric8.kubernetes.api.model.HasMetadata
+import java.util.concurrent.TimeUnit
 import javax.swing.tree.DefaultMutableTreeNode
 import javax.swing.tree.TreePath
 
 /**
  * An adapter that listens to events of the IKubernetesResourceModel and operates these changes on the
- * StructureTreeModel (to which the swing tree listens and updates accordingly)
+ * StructureTreeModel (to which the swing tree listens and updates accordingly).
+ * Events are collected for [BATCH_DELAY] ms and then applied at once, invalidating each affected path a single time.
+ * Paths that are within another invalidated path are skipped.
+ * The nodes for the elements are looked up in a [TreeNodeIndex]. Elements that are not in it are not in the tree
+ * and their changes are therefore ignored.
  *
  * @see IResourceModel
  * @see StructureTreeModel
@@ -28,15 +35,25 @@ import javax.swing.tree.TreePath
 class TreeUpdater<Structure: AbstractTreeStructure>(
     private val treeModel: StructureTreeModel<Structure>,
     private val structure: AbstractTreeStructure,
-    model: IResourceModel)
+    model: IResourceModel,
+    private val nodes: TreeNodeIndex = TreeNodeIndex(treeModel))
     : ModelChangeObservable.IResourceChangeListener {
 
+    companion object {
+        /** the time in ms during which events are collected before they're applied to the tree **/
+        const val BATCH_DELAY = 100L
+    }
+
+    /** the elements whose nodes are to be invalidated **/
+    private val toInvalidate = LinkedHashSet<Any>()
+    private var isFlushScheduled = false
+
     init {
         model.addListener(this)
     }
 
     override fun currentNamespace(namespace: String?) {
-        invalidateRoot()
+        invalidate(structure.rootElement)
     }
 
     override fun removed(removed: Any) {
@@ -48,36 +65,55 @@ class TreeUpdater<Structure: AbstractTreeStructure>(
     }
 
     override fun modified(modified: Any) {
-        invalidatePath { getTreePath(modified) }
+        invalidate(modified)
     }
 
     private fun invalidateParent(element: Any) {
         val parent = getParentElement(element)
         if (parent is Collection<*>) {
-            invalidatePath(parent)
+            parent.forEach { invalidate(it) }
         } else {
-            invalidatePath { getTreePath(parent) }
+            invalidate(parent)
         }
     }
 
-    private fun invalidatePath(parent: Collection<*>) {
-        parent.forEach {
-            if (it != null) {
-                invalidatePath { getTreePath(it) }
+    private fun invalidate(element: Any?) {
+        if (element == null) {
+            return
+        }
+        synchronized(toInvalidate) {
+            toInvalidate.add(element)
+            if (isFlushScheduled) {
+                return
             }
+            isFlushScheduled = true
         }
+        AppExecutorUtil.getAppScheduledExecutorService().schedule(
+            Runnable { treeModel.invoker.runOrInvokeLater { flush() } },
+            BATCH_DELAY,
+            TimeUnit.MILLISECONDS)
     }
 
-    private fun invalidatePath(pathSupplier: () -> TreePath?) {
-        treeModel.invoker.runOrInvokeLater {
-            val path = pathSupplier()
-            if (path != null) {
-                if (path.lastPathComponent == treeModel.root) {
-                    invalidateRoot()
-                } else {
-                    treeModel.invalidate(path, true)
-                }
-            }
+    private fun flush() {
+        val elements = synchronized(toInvalidate) {
+            val elements = toInvalidate.toList()
+            toInvalidate.clear()
+            isFlushScheduled = false
+            elements
+        }
+        val paths = elements
+            .mapNotNull { getTreePath(it) }
+            .distinct()
+        paths
+            .filter { path -> paths.none { other -> other != path && other.isDescendant(path) } }
+            .forEach { invalidatePath(it) }
+    }
+
+    private fun invalidatePath(path: TreePath) {
+        if (path.lastPathComponent == treeModel.root) {
+            invalidateRoot()
+        } else {
+            treeModel.invalidate(path, true)
         }
     }
 
@@ -89,14 +125,15 @@ class TreeUpdater<Structure: AbstractTreeStructure>(
         return structure.getParentElement(element)
     }
 
-    private fun getTreePath(element: Any?): TreePath {
-        val path =
-            if (isRootNode(element)) {
-                TreePath(treeModel.root)
-            } else {
-                findTreePath(element, treeModel.root as? DefaultMutableTreeNode)
-            }
-        return path ?: TreePath(treeModel.root)
+    /**
+     * Returns the path to the node of the given element. Returns `null` if the element is not in the tree.
+     */
+    private fun getTreePath(element: Any?): TreePath? {
+        return if (isRootNode(element)) {
+            TreePath(treeModel.root)
+        } else {
+            findTreePath(element)
+        }
     }
 
     private fun isRootNode(element: Any?): Boolean {
@@ -104,32 +141,31 @@ class TreeUpdater<Structure: AbstractTreeStructure>(
         return descriptor?.element == element
     }
 
-    private fun findTreePath(element: Any?, start: DefaultMutableTreeNode?): TreePath? {
-        if (element == null
-            || start == null) {
-            return null
-        }
-        for (child in start.children()) {
-            if (child !is DefaultMutableTreeNode) {
-                continue
-            }
-            if (hasElement(element, child)) {
-                return TreePath(child.path)
-            }
-            val path = findTreePath(element, child)
-            if (path != null) {
-                return path
-            }
+    private fun findTreePath(element: Any?): TreePath? {
+        val node = nodes.find(element) ?: return null
+        return if (hasElement(element, node)
+            || setResource(element, node)) {
+            TreePath(node.path)
+        } else {
+            // node has an element that cannot be replaced, reload it with its siblings
+            (node.parent as? DefaultMutableTreeNode)?.let { parent -> TreePath(parent.path) }
         }
-        return null
+    }
+
+    /**
+     * Sets the given resource to the descriptor of the given node if it holds a different version of it.
+     * The node then only needs to be updated, its siblings don't need to be reloaded.
+     */
+    private fun setResource(element: Any?, node: DefaultMutableTreeNode): Boolean {
+        val resource = element as? HasMetadata ?: return false
+        val descriptor = node.userObject as? TreeStructure.ResourceDescriptor<*> ?: return false
+        return descriptor.setResource(resource)
     }
 
     private fun hasElement(element: Any?, node: DefaultMutableTreeNode): Boolean {
         val descriptor = node.userObject as? NodeDescriptor<*> ?: return false
-        return if (descriptor is TreeStructure.Descriptor) {
-            descriptor.isMatching(element)
-        } else {
-            descriptor.element == element
-        }
+        return descriptor.element == element
+                || (descriptor is TreeStructure.Descriptor
+                    && descriptor.isMatching(element))
     }
 }
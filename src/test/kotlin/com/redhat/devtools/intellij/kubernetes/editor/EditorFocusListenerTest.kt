@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.editor
+
+import com.intellij.openapi.fileEditor.FileEditor
+import com.intellij.openapi.fileEditor.FileEditorManager
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import org.junit.Test
+import java.util.concurrent.Future
+
+class EditorFocusListenerTest {
+
+    private val project: Project = mock()
+    private val fileEditor1: FileEditor = mock()
+    private val fileEditor2: FileEditor = mock()
+    private val resourceEditor: ResourceEditor = mock<ResourceEditor>().apply {
+        doReturn(this)
+            .whenever(this).startWatch()
+    }
+    private val getResourceEditor: (editor: FileEditor?, project: Project?) -> ResourceEditor? =
+        mock<(editor: FileEditor?, project: Project?) -> ResourceEditor?>().apply {
+            doReturn(resourceEditor)
+                .whenever(this).invoke(any(), any())
+        }
+    private val getExistingResourceEditor: (editor: FileEditor?) -> ResourceEditor? =
+        mock<(editor: FileEditor?) -> ResourceEditor?>().apply {
+            doReturn(resourceEditor)
+                .whenever(this).invoke(any())
+        }
+    private val listener = TestableEditorFocusListener(project, getResourceEditor, getExistingResourceEditor)
+
+    @Test
+    fun `#selectionChanged should NOT get resource editor for new editor in calling thread`() {
+        // given
+        // when
+        listener.selectionChanged(selectionChanged(null, fileEditor1))
+        // then
+        verify(getResourceEditor, never()).invoke(any(), any())
+    }
+
+    @Test
+    fun `#selectionChanged should get resource editor for new editor in background, start watch and update it`() {
+        // given
+        listener.selectionChanged(selectionChanged(null, fileEditor1))
+        // when
+        listener.runnables.last().invoke()
+        // then
+        verify(getResourceEditor).invoke(fileEditor1, project)
+        verify(resourceEditor).startWatch()
+        verify(resourceEditor).update()
+    }
+
+    @Test
+    fun `#selectionChanged should cancel previous selection that is still running`() {
+        // given
+        listener.selectionChanged(selectionChanged(null, fileEditor1))
+        val previous = listener.operations.last()
+        // when
+        listener.selectionChanged(selectionChanged(fileEditor1, fileEditor2))
+        // then
+        verify(previous).cancel(true)
+        verify(listener.operations.last(), never()).cancel(any())
+    }
+
+    @Test
+    fun `#selectionChanged should stop watch of existing resource editor for old editor`() {
+        // given
+        // when
+        listener.selectionChanged(selectionChanged(fileEditor1, null))
+        // then
+        verify(getExistingResourceEditor).invoke(fileEditor1)
+        verify(resourceEditor).stopWatch()
+        verify(getResourceEditor, never()).invoke(any(), any())
+    }
+
+    @Test
+    fun `#beforeFileClosed should cancel selection of editor that is closed`() {
+        // given
+        listener.selectionChanged(selectionChanged(null, fileEditor1))
+        val selection = listener.operations.last()
+        // when
+        listener.beforeFileClosed(fileEditorManager(fileEditor1), mock())
+        // then
+        verify(selection).cancel(true)
+        verify(resourceEditor).close()
+    }
+
+    @Test
+    fun `#beforeFileClosed should NOT cancel selection of editor that is not closed`() {
+        // given
+        listener.selectionChanged(selectionChanged(null, fileEditor1))
+        val selection = listener.operations.last()
+        // when
+        listener.beforeFileClosed(fileEditorManager(fileEditor2), mock())
+        // then
+        verify(selection, never()).cancel(any())
+    }
+
+    private fun selectionChanged(oldEditor: FileEditor?, newEditor: FileEditor?): FileEditorManagerEvent {
+        return mock {
+            on { this.oldEditor } doReturn oldEditor
+            on { this.newEditor } doReturn newEditor
+        }
+    }
+
+    private fun fileEditorManager(selected: FileEditor): FileEditorManager {
+        return mock {
+            on { getSelectedEditor(any<VirtualFile>()) } doReturn selected
+            on { project } doReturn project
+        }
+    }
+
+    private class TestableEditorFocusListener(
+        project: Project,
+        getResourceEditor: (editor: FileEditor?, project: Project?) -> ResourceEditor?,
+        getExistingResourceEditor: (editor: FileEditor?) -> ResourceEditor?
+    ) : EditorFocusListener(project, getResourceEditor, getExistingResourceEditor) {
+
+        val runnables = mutableListOf<() -> Unit>()
+        val operations = mutableListOf<Future<*>>()
+
+        override fun executeInBackground(runnable: () -> Unit): Future<*>? {
+            // dont execute in application thread pool
+            runnables.add(runnable)
+            val operation: Future<*> = mock()
+            operations.add(operation)
+            return operation
+        }
+    }
+}
@@ -48,6 +48,7 @@ import io.fabric8.kubernetes.client.KubernetesClientException
 import io.fabric8.kubernetes.client.utils.Serialization
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.Test
+import java.util.concurrent.Future
 import java.util.concurrent.atomic.AtomicReference
 
 class ResourceEditorTest {
@@ -357,6 +358,62 @@ class ResourceEditorTest {
         verify(pushNotification).show()
     }
 
+    @Test
+    fun `#update should cancel previous update that is still running`() {
+        // given
+        editor.deferBackground = true
+        editor.update()
+        val previous = editor.deferredOperations.last()
+        // when
+        editor.update()
+        // then
+        verify(previous).cancel(true)
+        verify(editor.deferredOperations.last(), never()).cancel(any())
+    }
+
+    @Test
+    fun `#updateAfterChange should update once if called twice within quiet period`() {
+        // given
+        doReturn("kind: Pod")
+            .whenever(document).text
+        editor.deferBackground = true
+        editor.updateAfterChange()
+        val first = editor.deferredOperations.last()
+        editor.updateAfterChange()
+        // when
+        editor.deferredRunnables.last().invoke()
+        // then
+        verify(first).cancel(true)
+        verify(createResource, times(1)).invoke(any(), any())
+    }
+
+    @Test
+    fun `#updateAfterChange should NOT update if content is the same as in previous update`() {
+        // given
+        doReturn("kind: Pod")
+            .whenever(document).text
+        editor.updateAfterChange()
+        verify(createResource, times(1)).invoke(any(), any())
+        // when
+        editor.updateAfterChange()
+        // then
+        verify(createResource, times(1)).invoke(any(), any())
+    }
+
+    @Test
+    fun `#updateAfterChange should update if content changed since previous update`() {
+        // given
+        doReturn("kind: Pod")
+            .whenever(document).text
+        editor.updateAfterChange()
+        doReturn("kind: Service")
+            .whenever(document).text
+        // when
+        editor.updateAfterChange()
+        // then
+        verify(createResource, times(2)).invoke(any(), any())
+    }
+
     @Test
     fun `#push should push resource to cluster`() {
         // given
@@ -627,10 +684,32 @@ class ResourceEditorTest {
     ) {
         public override var editorResource: HasMetadata? = super.editorResource
 
+        override fun <R> executeReadAction(computable: () -> R): R {
+            // dont execute in read action
+            return computable.invoke()
+        }
+
         override fun executeWriteAction(runnable: () -> Unit) {
             // dont execute in application thread pool
             runnable.invoke()
         }
+
+        /** `true` if background operations should only be recorded and not be executed **/
+        var deferBackground = false
+        val deferredRunnables = mutableListOf<() -> Unit>()
+        val deferredOperations = mutableListOf<Future<*>>()
+
+        override fun executeInBackground(delay: Long, runnable: () -> Unit): Future<*>? {
+            // dont execute in application thread pool
+            if (deferBackground) {
+                deferredRunnables.add(runnable)
+                val operation: Future<*> = mock()
+                deferredOperations.add(operation)
+                return operation
+            }
+            runnable.invoke()
+            return null
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import io.fabric8.kubernetes.client.KubernetesClient
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class ClientsRegistryTest {
+
+    private val created = mutableMapOf<String?, MutableList<KubernetesClient>>()
+    private var fingerprint = "yavin"
+    private val registry = ClientsRegistry(
+        { context -> mock<KubernetesClient>().apply { created.getOrPut(context) { mutableListOf() }.add(this) } },
+        { "death-star" },
+        { fingerprint })
+
+    @Test
+    fun `#acquire should return same clients for same context`() {
+        // given
+        val clients1 = registry.acquire("rebels")
+        // when
+        val clients2 = registry.acquire("rebels")
+        // then
+        assertThat(clients2).isSameAs(clients1)
+        assertThat(created["rebels"]).hasSize(1)
+    }
+
+    @Test
+    fun `#acquire should return clients that were created concurrently and close duplicate`() {
+        // given
+        lateinit var registry: ClientsRegistry
+        var concurrent: Clients<out KubernetesClient>? = null
+        registry = ClientsRegistry(
+            { context ->
+                val client = mock<KubernetesClient>().apply { created.getOrPut(context) { mutableListOf() }.add(this) }
+                if (created[context]?.size == 1) {
+                    // other user acquires while the client is created
+                    concurrent = registry.acquire(context)
+                }
+                client
+            },
+            { "death-star" },
+            { "yavin" })
+        // when
+        val clients = registry.acquire("rebels")
+        // then
+        assertThat(clients).isSameAs(concurrent)
+        assertThat(created["rebels"]).hasSize(2)
+        verify(created["rebels"]!![0]).close()
+        verify(created["rebels"]!![1], never()).close()
+    }
+
+    @Test
+    fun `#acquire should return new clients if context resolves differently`() {
+        // given
+        val clients = registry.acquire("rebels")
+        // kube config changed
+        fingerprint = "hoth"
+        // when
+        val newClients = registry.acquire("rebels")
+        // then
+        assertThat(newClients).isNotSameAs(clients)
+        assertThat(created["rebels"]).hasSize(2)
+    }
+
+    @Test
+    fun `#close should close clients that context resolved to before`() {
+        // given
+        val clients = registry.acquire("rebels")
+        fingerprint = "hoth"
+        registry.acquire("rebels")
+        // when
+        clients.close()
+        // then
+        verify(created["rebels"]!![0]).close()
+        verify(created["rebels"]!![1], never()).close()
+    }
+
+    @Test
+    fun `#acquire should return different clients for different contexts`() {
+        // given
+        val rebels = registry.acquire("rebels")
+        // when
+        val empire = registry.acquire("empire")
+        // then
+        assertThat(empire).isNotSameAs(rebels)
+    }
+
+    @Test
+    fun `#acquire should return clients for current context if no context is given`() {
+        // given
+        val current = registry.acquire("death-star")
+        // when
+        val clients = registry.acquire()
+        // then
+        assertThat(clients).isSameAs(current)
+    }
+
+    @Test
+    fun `#close should NOT close client as long as there are other users`() {
+        // given
+        val clients = registry.acquire("rebels")
+        registry.acquire("rebels")
+        // when
+        clients.close()
+        // then
+        verify(created["rebels"]!!.first(), never()).close()
+    }
+
+    @Test
+    fun `#acquire should create new clients if all users closed existing ones`() {
+        // given
+        val clients = registry.acquire("rebels")
+        clients.close()
+        // when
+        val newClients = registry.acquire("rebels")
+        // then
+        verify(created["rebels"]!!.first()).close()
+        assertThat(newClients).isNotSameAs(clients)
+        assertThat(created["rebels"]).hasSize(2)
+    }
+}
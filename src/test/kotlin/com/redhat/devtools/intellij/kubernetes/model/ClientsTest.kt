@@ -12,6 +12,7 @@ package com.redhat.devtools.intellij.kubernetes.model
 
 import com.nhaarman.mockitokotlin2.doReturn
 import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.verify
 import io.fabric8.kubernetes.client.AppsAPIGroupClient
 import io.fabric8.kubernetes.client.KubernetesClient
@@ -92,6 +93,42 @@ class ClientsTest {
         verify(adapted).close()
     }
 
+    @Test
+    fun `#close should NOT close client if it was retained`() {
+        // given
+        val client = mock<KubernetesClient>()
+        val clients = createClients(client)
+        clients.retain()
+        // when
+        clients.close()
+        // then
+        verify(client, never()).close()
+    }
+
+    @Test
+    fun `#close should close client once it was closed as many times as it was retained`() {
+        // given
+        val client = mock<KubernetesClient>()
+        val clients = createClients(client)
+        clients.retain()
+        clients.close()
+        // when
+        clients.close()
+        // then
+        verify(client).close()
+    }
+
+    @Test
+    fun `#retain should return false if clients were closed`() {
+        // given
+        val clients = createClients(mock<KubernetesClient>())
+        clients.close()
+        // when
+        val retained = clients.retain()
+        // then
+        assertThat(retained).isFalse()
+    }
+
     private fun <T : KubernetesClient> createClients(client: T): Clients<T> {
         return Clients(client)
     }
@@ -68,6 +68,28 @@ class ContextsTest {
 		verify(contexts.all).clear()
 	}
 
+	@Test
+	fun `#close() should close existing context`() {
+		// given
+		contexts.current // create current context
+		// when
+		contexts.close()
+		// then
+		verify(currentContext).close()
+	}
+
+	@Test
+	fun `#close() should NOT create context if there's none`() {
+		// given
+		contexts.current = null
+		clearInvocations(contextFactory)
+		// when
+		contexts.close()
+		// then
+		verify(contextFactory, never()).invoke(any(), anyOrNull())
+		verify(currentContext, never()).close()
+	}
+
 	@Test
 	fun `#refresh() should close existing context`() {
 		// given
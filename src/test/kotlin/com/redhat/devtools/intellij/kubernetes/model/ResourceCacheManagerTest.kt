@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.redhat.devtools.intellij.kubernetes.model.ResourceCacheManager.Usage
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import io.fabric8.kubernetes.api.model.Namespace
+import io.fabric8.kubernetes.api.model.Node
+import io.fabric8.kubernetes.api.model.Pod
+import io.fabric8.kubernetes.api.model.PodBuilder
+import io.fabric8.kubernetes.client.utils.Serialization
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class ResourceCacheManagerTest {
+
+    private val podKind = ResourceKind.create(Pod::class.java)
+    private val nodeKind = ResourceKind.create(Node::class.java)
+    private val namespaceKind = ResourceKind.create(Namespace::class.java)
+    private val pods = Usage(podKind, "rebels", 10, 100)
+    private val nodes = Usage(nodeKind, null, 10, 100)
+    private val namespaces = Usage(namespaceKind, null, 10, 100)
+
+    @Test
+    fun `#estimate should return number of resources times serialized size`() {
+        // given
+        val luke = PodBuilder()
+            .withNewMetadata()
+                .withName("luke")
+                .withNamespace("rebels")
+            .endMetadata()
+            .build()
+        val size = Serialization.jsonMapper().writeValueAsBytes(luke).size.toLong()
+        val manager = ResourceCacheManager(1000)
+        // when
+        val usage = manager.estimate(podKind, "rebels", listOf(luke, luke, luke))
+        // then
+        assertThat(usage.resources).isEqualTo(3)
+        assertThat(usage.bytes).isEqualTo(3 * size)
+    }
+
+    @Test
+    fun `#estimate(count) should NOT sample resources if average size of kind was estimated`() {
+        // given
+        val luke = PodBuilder()
+            .withNewMetadata()
+                .withName("luke")
+                .withNamespace("rebels")
+            .endMetadata()
+            .build()
+        val size = Serialization.jsonMapper().writeValueAsBytes(luke).size.toLong()
+        val manager = ResourceCacheManager(1000)
+        manager.estimate(podKind, "rebels", listOf(luke))
+        var sampled = false
+        // when
+        val usage = manager.estimate(podKind, "empire", 42) {
+            sampled = true
+            listOf(luke)
+        }
+        // then
+        assertThat(sampled).isFalse()
+        assertThat(usage.resources).isEqualTo(42)
+        assertThat(usage.bytes).isEqualTo(42 * size)
+    }
+
+    @Test
+    fun `#estimate(count) should NOT sample resources if there are none`() {
+        // given
+        val manager = ResourceCacheManager(1000)
+        var sampled = false
+        // when
+        val usage = manager.estimate(podKind, "rebels", 0) {
+            sampled = true
+            emptyList()
+        }
+        // then
+        assertThat(sampled).isFalse()
+        assertThat(usage.bytes).isEqualTo(0)
+    }
+
+    @Test
+    fun `#evict should NOT evict if usage is within budget`() {
+        // given
+        val manager = ResourceCacheManager(300)
+        val evicted = mutableListOf<Usage>()
+        // when
+        manager.evict(listOf(pods, nodes, namespaces)) { evicted.add(it) }
+        // then
+        assertThat(evicted).isEmpty()
+    }
+
+    @Test
+    fun `#evict should evict least recently used until usage is within budget`() {
+        // given
+        val manager = ResourceCacheManager(150)
+        manager.used(podKind, "rebels")
+        manager.used(nodeKind, null)
+        manager.used(namespaceKind, null)
+        manager.used(podKind, "rebels")
+        // when
+        val evicted = manager.evict(listOf(pods, nodes, namespaces)) { true }
+        // then
+        assertThat(evicted).containsExactly(nodes, namespaces)
+    }
+
+    @Test
+    fun `#evict should evict caches that were never used first`() {
+        // given
+        val manager = ResourceCacheManager(250)
+        manager.used(podKind, "rebels")
+        manager.used(nodeKind, null)
+        // when
+        val evicted = manager.evict(listOf(pods, nodes, namespaces)) { true }
+        // then
+        assertThat(evicted).containsExactly(namespaces)
+    }
+
+    @Test
+    fun `#evict should skip caches that are not evicted`() {
+        // given
+        val manager = ResourceCacheManager(250)
+        manager.used(podKind, "rebels")
+        manager.used(nodeKind, null)
+        manager.used(namespaceKind, null)
+        // when
+        val evicted = manager.evict(listOf(pods, nodes, namespaces)) { usage -> usage != pods }
+        // then
+        assertThat(evicted).containsExactly(nodes)
+    }
+
+    @Test
+    fun `#evict should skip empty caches`() {
+        // given
+        val manager = ResourceCacheManager(150)
+        val empty = Usage(podKind, "empire", 0, 0)
+        val evicted = mutableListOf<Usage>()
+        // when
+        manager.evict(listOf(empty, pods, nodes)) { evicted.add(it) }
+        // then
+        assertThat(evicted).doesNotContain(empty)
+    }
+}
@@ -37,6 +37,7 @@ import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
 import com.redhat.devtools.intellij.kubernetes.model.mocks.Mocks.activeContext
 import com.redhat.devtools.intellij.kubernetes.model.mocks.Mocks.context
 import com.redhat.devtools.intellij.kubernetes.model.mocks.Mocks.contextFactory
+import com.redhat.devtools.intellij.kubernetes.model.resource.PodForResource
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.NamespacedPodsOperator
 import org.junit.Test
@@ -100,6 +101,18 @@ class ResourceModelTest {
         verify(filter, times(3)).test(any())
     }
 
+    @Test
+    fun `#getResources(kind) should query context by labels if predicate is labels filter`() {
+        // given
+        val labels = mapOf("app" to "jedi")
+        val filter = PodForResource<Pod>(labels)
+        // when
+        model.getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE, filter)
+        // then
+        verify(activeContext).getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE, labels)
+        verify(activeContext, never()).getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
+    }
+
     @Test
     fun `#getCustomResources should call activeContext#getCustomResources`() {
         // given
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots.Snapshot
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import com.redhat.devtools.intellij.kubernetes.model.util.getTableRow
+import com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+import com.redhat.devtools.intellij.kubernetes.model.util.setTableRow
+import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.Namespace
+import io.fabric8.kubernetes.api.model.NamespaceBuilder
+import io.fabric8.kubernetes.api.model.Pod
+import io.fabric8.kubernetes.api.model.PodBuilder
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.After
+import org.junit.Test
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ResourceSnapshotsTest {
+
+    private val directory: Path = Files.createTempDirectory("snapshots")
+    private val snapshots = ResourceSnapshots(directory)
+    private val podKind = ResourceKind.create(Pod::class.java)
+    private val namespaceKind = ResourceKind.create(Namespace::class.java)
+    private val luke = PodBuilder()
+        .withNewMetadata()
+            .withName("luke")
+            .withNamespace("rebels")
+            .withUid("lukeUid")
+            .withResourceVersion("1")
+            .addToLabels("side", "light")
+            .addToAnnotations("kubectl.kubernetes.io/last-applied-configuration", "{\"secret\": \"father\"}")
+        .endMetadata()
+        .withNewSpec()
+            .withHostname("tatooine")
+        .endSpec()
+        .build()
+    private val rebels = NamespaceBuilder()
+        .withNewMetadata()
+            .withName("rebels")
+            .withUid("rebelsUid")
+            .withResourceVersion("2")
+        .endMetadata()
+        .build()
+
+    @After
+    fun after() {
+        directory.toFile().deleteRecursively()
+    }
+
+    @Test
+    fun `#load should return saved snapshots`() {
+        // given
+        snapshots.save("yavin", listOf(
+            Snapshot(podKind, "rebels", "1", listOf(luke)),
+            Snapshot(namespaceKind, null, "2", listOf(rebels))))
+        // when
+        val loaded = snapshots.load("yavin")
+        // then
+        assertThat(loaded).hasSize(2)
+        val pods = loaded.first { it.kind == podKind }
+        assertThat(pods.namespace).isEqualTo("rebels")
+        assertThat(pods.resourceVersion).isEqualTo("1")
+        assertThat(pods.resources.map { it.metadata.name }).containsExactly("luke")
+        val namespaces = loaded.first { it.kind == namespaceKind }
+        assertThat(namespaces.namespace).isNull()
+        assertThat(namespaces.resources.map { it.metadata.name }).containsExactly("rebels")
+    }
+
+    @Test
+    fun `#load should return resources with metadata only`() {
+        // given
+        snapshots.save("yavin", listOf(Snapshot(podKind, "rebels", "1", listOf(luke))))
+        // when
+        val pod = snapshots.load("yavin").first().resources.first() as Pod
+        // then
+        assertThat(pod).isInstanceOf(Pod::class.java)
+        assertThat(pod.spec).isNull()
+        assertThat(pod.metadata.labels).containsEntry("side", "light")
+        assertThat(isMetadataOnly(pod)).isTrue()
+    }
+
+    @Test
+    fun `#load should return resources without annotations`() {
+        // given
+        snapshots.save("yavin", listOf(Snapshot(podKind, "rebels", "1", listOf(luke))))
+        // when
+        val pod = snapshots.load("yavin").first().resources.first()
+        // then
+        assertThat(pod.metadata.annotations).isNullOrEmpty()
+    }
+
+    @Test
+    fun `#load should return resources with table row`() {
+        // given
+        val row = mapOf("NAME" to "luke", "STATUS" to "Running")
+        setTableRow(luke, row)
+        snapshots.save("yavin", listOf(Snapshot(podKind, "rebels", "1", listOf(luke))))
+        // when
+        val pod = snapshots.load("yavin").first().resources.first()
+        // then
+        assertThat(getTableRow(pod)).isEqualTo(row)
+    }
+
+    @Test
+    fun `#load should return empty list for context that was not saved`() {
+        // given
+        snapshots.save("yavin", listOf(Snapshot(podKind, "rebels", "1", listOf(luke))))
+        // when
+        val loaded = snapshots.load("hoth")
+        // then
+        assertThat(loaded).isEmpty()
+    }
+
+    @Test
+    fun `#load should return empty list if file is corrupt`() {
+        // given
+        snapshots.save("yavin", listOf(Snapshot(podKind, "rebels", "1", listOf(luke))))
+        Files.list(directory).forEach { Files.write(it, "{ death star".toByteArray()) }
+        // when
+        val loaded = snapshots.load("yavin")
+        // then
+        assertThat(loaded).isEmpty()
+    }
+
+    @Test
+    fun `#save should remove saved snapshots if there are none given`() {
+        // given
+        snapshots.save("yavin", listOf(Snapshot(podKind, "rebels", "1", listOf(luke))))
+        // when
+        snapshots.save("yavin", emptyList())
+        // then
+        assertThat(snapshots.load("yavin")).isEmpty()
+        assertThat(Files.list(directory).count()).isEqualTo(0)
+    }
+
+    @Test
+    fun `#save should replace snapshots that were saved before`() {
+        // given
+        snapshots.save("yavin", listOf(Snapshot(podKind, "rebels", "1", listOf(luke))))
+        // when
+        snapshots.save("yavin", listOf(Snapshot(namespaceKind, null, "2", listOf<HasMetadata>(rebels))))
+        // then
+        val loaded = snapshots.load("yavin")
+        assertThat(loaded.map { it.kind }).containsExactly(namespaceKind)
+    }
+}
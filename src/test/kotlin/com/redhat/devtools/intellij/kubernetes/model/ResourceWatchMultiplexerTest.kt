@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.argumentCaptor
+import com.nhaarman.mockitokotlin2.eq
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.redhat.devtools.intellij.kubernetes.model.ResourceWatch.WatchListeners
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
+import com.redhat.devtools.intellij.kubernetes.model.resource.AbstractResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.Pod
+import io.fabric8.kubernetes.client.Watch
+import io.fabric8.kubernetes.client.Watcher
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class ResourceWatchMultiplexerTest {
+
+    private val luke = resource<Pod>("luke", "rebels", "lukeUid", "v1", "42")
+    private val leia = resource<Pod>("leia", "rebels", "leiaUid", "v1", "43")
+    private val vader = resource<Pod>("vader", "empire", "vaderUid", "v1", "44")
+    private val operator: AbstractResourceOperator<Pod> = mock()
+    private val sharedWatch: ResourceWatch<ResourceWatchMultiplexer.Key> = mock()
+    private val multiplexer = ResourceWatchMultiplexer({ operator }, sharedWatch)
+    private val watchOperation: (Watcher<in HasMetadata>) -> Watch? = { null }
+
+    @Test
+    fun `#watch for resources of same kind in same namespace should start single shared watch`() {
+        // given
+        val lukeWatch = multiplexer.createWatch()
+        val leiaWatch = multiplexer.createWatch()
+        // when
+        lukeWatch.watch(luke, watchOperation, listeners())
+        leiaWatch.watch(leia, watchOperation, listeners())
+        // then
+        verify(sharedWatch, times(1)).watch(
+            eq(ResourceWatchMultiplexer.Key(ResourceKind.create(Pod::class.java), "rebels")),
+            any(),
+            any())
+    }
+
+    @Test
+    fun `#watch for resources of same kind in different namespaces should start a shared watch per namespace`() {
+        // given
+        val lukeWatch = multiplexer.createWatch()
+        val vaderWatch = multiplexer.createWatch()
+        // when
+        lukeWatch.watch(luke, watchOperation, listeners())
+        vaderWatch.watch(vader, watchOperation, listeners())
+        // then
+        verify(sharedWatch, times(2)).watch(any(), any(), any())
+    }
+
+    @Test
+    fun `#watch should watch single resource if there is no operator for the kind`() {
+        // given
+        val multiplexer = ResourceWatchMultiplexer({ null }, sharedWatch)
+        // when
+        multiplexer.createWatch().watch(luke, watchOperation, listeners())
+        // then
+        verify(sharedWatch).watch(
+            eq(ResourceWatchMultiplexer.Key(ResourceKind.create(Pod::class.java), "rebels", "luke")),
+            any(),
+            any())
+    }
+
+    @Test
+    fun `shared watch should dispatch event to subscriber of resource with same name`() {
+        // given
+        val lukeReplaced = mutableListOf<HasMetadata>()
+        val leiaReplaced = mutableListOf<HasMetadata>()
+        multiplexer.createWatch().watch(luke, watchOperation, listeners(lukeReplaced))
+        multiplexer.createWatch().watch(leia, watchOperation, listeners(leiaReplaced))
+        val sharedListeners = getSharedListeners()
+        // when
+        sharedListeners.replaced.invoke(luke)
+        // then
+        assertThat(lukeReplaced).containsExactly(luke)
+        assertThat(leiaReplaced).isEmpty()
+    }
+
+    @Test
+    fun `shared watch should NOT cache event in operator`() {
+        // given
+        multiplexer.createWatch().watch(luke, watchOperation, listeners())
+        val sharedListeners = getSharedListeners()
+        // when
+        sharedListeners.replaced.invoke(luke)
+        // then
+        verify(operator, never()).replaced(any())
+    }
+
+    @Test
+    fun `shared watch should watch from version of resource that subscribed without listing`() {
+        // given
+        multiplexer.createWatch().watch(luke, watchOperation, listeners())
+        val watcher: Watcher<in HasMetadata> = mock()
+        // when
+        getSharedWatchOperation().invoke(watcher)
+        // then
+        verify(operator).watchAllFrom("42", watcher)
+        verify(operator, never()).watchAll(any())
+        verify(operator, never()).allResources
+    }
+
+    @Test
+    fun `shared watch should resume at version of last event`() {
+        // given
+        multiplexer.createWatch().watch(luke, watchOperation, listeners())
+        val replaced = resource<Pod>("leia", "rebels", "leiaUid", "v1", "84")
+        getSharedListeners().replaced.invoke(replaced)
+        val watcher: Watcher<in HasMetadata> = mock()
+        // when
+        getSharedWatchOperation().invoke(watcher)
+        // then
+        verify(operator).watchAllFrom("84", watcher)
+    }
+
+    @Test
+    fun `#stopWatch should NOT stop shared watch if there are other subscribers`() {
+        // given
+        val lukeWatch = multiplexer.createWatch()
+        lukeWatch.watch(luke, watchOperation, listeners())
+        multiplexer.createWatch().watch(leia, watchOperation, listeners())
+        // when
+        lukeWatch.stopWatch(luke)
+        // then
+        verify(sharedWatch, never()).stopWatch(any())
+    }
+
+    @Test
+    fun `#stopWatch should stop shared watch if last subscriber stopped`() {
+        // given
+        val lukeWatch = multiplexer.createWatch()
+        lukeWatch.watch(luke, watchOperation, listeners())
+        val leiaWatch = multiplexer.createWatch()
+        leiaWatch.watch(leia, watchOperation, listeners())
+        // when
+        lukeWatch.stopWatch(luke)
+        leiaWatch.close()
+        // then
+        verify(sharedWatch).stopWatch(ResourceWatchMultiplexer.Key(ResourceKind.create(Pod::class.java), "rebels"))
+    }
+
+    @Test
+    fun `#close should close shared watch`() {
+        // given
+        multiplexer.createWatch().watch(luke, watchOperation, listeners())
+        // when
+        multiplexer.close()
+        // then
+        verify(sharedWatch).close()
+    }
+
+    private fun getSharedWatchOperation(): (Watcher<in HasMetadata>) -> Watch? {
+        val captor = argumentCaptor<(Watcher<in HasMetadata>) -> Watch?>()
+        verify(sharedWatch).watch(any(), captor.capture(), any())
+        return captor.firstValue
+    }
+
+    private fun getSharedListeners(): WatchListeners {
+        val captor = argumentCaptor<WatchListeners>()
+        verify(sharedWatch).watch(any(), any(), captor.capture())
+        return captor.firstValue
+    }
+
+    private fun listeners(replaced: MutableList<HasMetadata> = mutableListOf()): WatchListeners {
+        return WatchListeners({}, {}, { replaced.add(it) })
+    }
+}
@@ -23,14 +23,18 @@ import io.fabric8.kubernetes.api.model.Pod
 import io.fabric8.kubernetes.client.KubernetesClientException
 import io.fabric8.kubernetes.client.Watch
 import io.fabric8.kubernetes.client.Watcher
+import io.fabric8.kubernetes.client.WatcherException
 import org.assertj.core.api.Assertions.assertThat
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
 import org.junit.Before
 import org.junit.Test
-import java.util.concurrent.BlockingDeque
-import java.util.concurrent.LinkedBlockingDeque
+import java.net.HttpURLConnection.HTTP_GONE
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.PriorityBlockingQueue
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 class ResourceWatchTest {
 
@@ -40,11 +44,14 @@ class ResourceWatchTest {
     private val removeOperation: (HasMetadata) -> Unit = { removeOperationState.operation(it) }
     private val replaceOperationState = OperationState()
     private val replaceOperation: (HasMetadata) -> Unit = { replaceOperationState.operation(it) }
+    private val outdatedOperationState = OperationState()
+    private val outdatedOperation: (Any?) -> Unit = { outdatedOperationState.operation(mock()) }
+    private val watchOperations = ResourceWatch.createQueue()
     private val resourceWatch: TestableResourceWatch = spy(TestableResourceWatch(
-        watchOperations = LinkedBlockingDeque<ResourceWatch.WatchOperation<*>>(),
+        watchOperations = watchOperations,
         watchOperationsRunner = mock()
     ))
-    private val watchListener = ResourceWatch.WatchListeners(addOperation, removeOperation, replaceOperation)
+    private val watchListener = ResourceWatch.WatchListeners(addOperation, removeOperation, replaceOperation, outdatedOperation)
     private val podKind = ResourceKind.create(Pod::class.java)
     private val podWatchOpProvider = WatchOperationProvider<Pod>()
     private val namespaceKind = ResourceKind.create(Namespace::class.java)
@@ -197,6 +204,82 @@ class ResourceWatchTest {
         assertThat(replaceOperationState.wasInvokedWithResource(resource)).isTrue()
     }
 
+    @Test
+    fun `should restart watch if watch is closed by cluster`() {
+        // given
+        // when
+        podWatchOpProvider.watcher?.onClose(WatcherException("Connection lost"))
+        // then
+        assertThat(queued()).containsExactly(podKind)
+        assertThat(resourceWatch.watches[podKind]).isEqualTo(ResourceWatch.WATCH_OPERATION_ENQUEUED)
+    }
+
+    @Test
+    fun `should NOT restart watch if watch is closed by client`() {
+        // given
+        // when
+        podWatchOpProvider.watcher?.onClose(null)
+        // then
+        assertThat(watchOperations).isEmpty()
+    }
+
+    @Test
+    fun `should NOT restart watch if watch was stopped`() {
+        // given
+        resourceWatch.stopWatch(podKind)
+        // when
+        podWatchOpProvider.watcher?.onClose(WatcherException("Connection lost"))
+        // then
+        assertThat(watchOperations).isEmpty()
+    }
+
+    @Test
+    fun `should restart watch with a delay that doubles with each restart`() {
+        // given
+        podWatchOpProvider.watcher?.onClose(WatcherException("Connection lost"))
+        watchOperations.poll()?.run()
+        // when
+        podWatchOpProvider.watcher?.onClose(WatcherException("Connection lost"))
+        // then
+        assertThat(resourceWatch.restartDelays).containsExactly(
+            ResourceWatch.MIN_RESTART_DELAY,
+            2 * ResourceWatch.MIN_RESTART_DELAY)
+    }
+
+    @Test
+    fun `should NOT keep watch that was stopped while it was being established`() {
+        // given
+        val watch = WatchFake()
+        // when
+        resourceWatch.watch(hasMetaKind1, { _ ->
+            resourceWatch.stopWatch(hasMetaKind1)
+            watch
+        }, watchListener)
+        // then
+        assertThat(resourceWatch.watches).doesNotContainKey(hasMetaKind1)
+        assertThat(watch.isClosed()).isTrue()
+    }
+
+    @Test
+    fun `#outdatedOperation should get invoked if watched version is gone`() {
+        // given
+        val gone = WatcherException("Gone", KubernetesClientException("Gone", HTTP_GONE, null))
+        // when
+        podWatchOpProvider.watcher?.onClose(gone)
+        // then
+        assertThat(outdatedOperationState.wasInvoked()).isTrue()
+        assertThat(queued()).containsExactly(podKind)
+    }
+
+    @Test
+    fun `#outdatedOperation should NOT get invoked if watch is closed by cluster for other reason than version gone`() {
+        // given
+        // when
+        podWatchOpProvider.watcher?.onClose(WatcherException("Connection lost"))
+        // then
+        assertThat(outdatedOperationState.wasInvoked()).isFalse()
+    }
+
     @Test
     fun `#close() should close existing watches`() {
         // given
@@ -207,19 +290,113 @@ class ResourceWatchTest {
         assertThat(namespaceWatchOp.watch?.isClosed()).isTrue()
     }
 
+    @Test
+    fun `should establish watches of the same priority in the order in which they were enqueued`() {
+        // given
+        podWatchOpProvider.watcher?.onClose(WatcherException("Connection lost"))
+        val requested = ResourceWatch<ResourceKind<out HasMetadata>>(watchOperations, mock())
+        // when
+        requested.watch(hasMetaKind1, WatchOperationProvider<HasMetadata>()::watch, watchListener)
+        requested.watch(hasMetaKind2, WatchOperationProvider<HasMetadata>()::watch, watchListener)
+        // then
+        assertThat(queued()).containsExactly(podKind, hasMetaKind1, hasMetaKind2)
+    }
+
+    @Test
+    fun `should establish visible watches before background watches`() {
+        // given
+        val requested = ResourceWatch<ResourceKind<out HasMetadata>>(watchOperations, mock())
+        requested.watch(hasMetaKind1, WatchOperationProvider<HasMetadata>()::watch, watchListener,
+            ResourceWatch.Priority.BACKGROUND)
+        // when
+        requested.watch(hasMetaKind2, WatchOperationProvider<HasMetadata>()::watch, watchListener)
+        // then
+        assertThat(queued()).containsExactly(hasMetaKind2, hasMetaKind1)
+    }
+
+    @Test
+    fun `should restart background watch with background priority`() {
+        // given
+        val background = WatchOperationProvider<HasMetadata>()
+        resourceWatch.watch(hasMetaKind1, background::watch, watchListener, ResourceWatch.Priority.BACKGROUND)
+        background.watcher?.onClose(WatcherException("Connection lost"))
+        // when
+        resourceWatch.watch(hasMetaKind2, WatchOperationProvider<HasMetadata>()::watch, watchListener)
+        podWatchOpProvider.watcher?.onClose(WatcherException("Connection lost"))
+        // then
+        assertThat(queued()).containsExactly(podKind, hasMetaKind1)
+    }
+
+    @Test
+    fun `#getLatency should report watches that were established`() {
+        // given
+        // pods and namespaces watched in @Before
+        // when
+        val latency = resourceWatch.getLatency()
+        // then
+        assertThat(latency.watches).isEqualTo(2)
+    }
+
+    @Test
+    fun `should establish watches concurrently up to given maximum`() {
+        // given
+        val watch = ResourceWatch<String>(2)
+        val running = AtomicInteger()
+        val maxRunning = AtomicInteger()
+        val twoStarted = CountDownLatch(2)
+        val release = CountDownLatch(1)
+        val watchOperation: (Watcher<in HasMetadata>) -> Watch? = {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+            twoStarted.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            running.decrementAndGet()
+            WatchFake()
+        }
+        try {
+            // when
+            watch.watch("luke", watchOperation, watchListener)
+            watch.watch("leia", watchOperation, watchListener)
+            watch.watch("yoda", watchOperation, watchListener)
+            // then
+            assertThat(twoStarted.await(10, TimeUnit.SECONDS)).isTrue()
+            assertThat(maxRunning.get()).isEqualTo(2)
+        } finally {
+            release.countDown()
+            watch.close()
+        }
+    }
+
+    /**
+     * Returns the keys of the queued operations in the order in which they are taken off the queue.
+     */
+    private fun queued(): List<Any?> {
+        val queue = PriorityBlockingQueue(watchOperations as PriorityBlockingQueue<ResourceWatch.WatchOperation<*>>)
+        return generateSequence { queue.poll() }
+            .map { it.key }
+            .toList()
+    }
+
     class TestableResourceWatch(
-        watchOperations: BlockingDeque<WatchOperation<*>>,
+        watchOperations: BlockingQueue<WatchOperation<*>>,
         watchOperationsRunner: Runnable = mock()
     ): ResourceWatch<ResourceKind<out HasMetadata>>(watchOperations, watchOperationsRunner) {
         public override val watches = spy(super.watches)
+        val restartDelays = mutableListOf<Long>()
+
+        override fun restart(operation: WatchOperation<ResourceKind<out HasMetadata>>, delay: Long) {
+            // enqueue right away
+            restartDelays.add(delay)
+            enqueue(operation)
+        }
 
         override fun watch(
             key: ResourceKind<out HasMetadata>,
             watchOperation: (watcher: Watcher<in HasMetadata>) -> Watch?,
-            watchListeners: WatchListeners
+            watchListeners: WatchListeners,
+            priority: Priority
         ) {
-            super.watch(key, watchOperation, watchListeners)
-            val queuedOperation = watchOperations.pollFirst(10, TimeUnit.SECONDS)
+            super.watch(key, watchOperation, watchListeners, priority)
+            val queuedOperation = watchOperations.poll(10, TimeUnit.SECONDS)
             // run in sequence, not in separate thread
             queuedOperation?.run()
         }
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.argumentCaptor
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.eq
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.redhat.devtools.intellij.kubernetes.model.ResourceWatch.WatchListeners
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
+import com.redhat.devtools.intellij.kubernetes.model.resource.NamespacedResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
+import io.fabric8.kubernetes.api.model.Pod
+import io.fabric8.kubernetes.client.KubernetesClient
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class WarmNamespacesTest {
+
+    private val podKind = ResourceKind.create(Pod::class.java)
+    private val luke = resource<Pod>("luke", "rebels", "lukeUid", "v1", "1")
+    private val leia = resource<Pod>("leia", "rebels", "leiaUid", "v1", "2")
+    private val vader = resource<Pod>("vader", "empire", "vaderUid", "v1", "3")
+    private val watch: ResourceWatch<WarmNamespaces.Key> = mock()
+
+    @Test
+    fun `#keep should watch cached resources in namespace`() {
+        // given
+        val warm = WarmNamespaces(watch = watch)
+        // when
+        warm.keep("rebels", listOf(operator(listOf(luke, leia), "2")))
+        // then
+        verify(watch).watch(eq(WarmNamespaces.Key(podKind, "rebels")), any(), any(), eq(ResourceWatch.Priority.BACKGROUND))
+        assertThat(warm.size).isEqualTo(2)
+    }
+
+    @Test
+    fun `#keep should NOT keep operator that has nothing cached`() {
+        // given
+        val warm = WarmNamespaces(watch = watch)
+        // when
+        warm.keep("rebels", listOf(operator(null)))
+        // then
+        verify(watch, never()).watch(any(), any(), any())
+        assertThat(warm.size).isEqualTo(0)
+    }
+
+    @Test
+    fun `#restore should hand kept resources to operator and stop watching them`() {
+        // given
+        val warm = WarmNamespaces(watch = watch)
+        warm.keep("rebels", listOf(operator(listOf(luke, leia), "2")))
+        val operator = operator(null)
+        // when
+        val restored = warm.restore("rebels", listOf(operator))
+        // then
+        assertThat(restored).containsExactly(podKind)
+        verify(operator).setCachedInNamespace(eq("rebels"), any(), eq("2"))
+        verify(watch).stopWatch(WarmNamespaces.Key(podKind, "rebels"))
+        assertThat(warm.size).isEqualTo(0)
+    }
+
+    @Test
+    fun `#restore should NOT restore namespace that was not kept`() {
+        // given
+        val warm = WarmNamespaces(watch = watch)
+        warm.keep("rebels", listOf(operator(listOf(luke, leia), "2")))
+        val operator = operator(null)
+        // when
+        val restored = warm.restore("empire", listOf(operator))
+        // then
+        assertThat(restored).isEmpty()
+        verify(operator, never()).setCachedInNamespace(any(), any(), any())
+    }
+
+    @Test
+    fun `#restore should hand resources that were updated by watch to operator`() {
+        // given
+        val warm = WarmNamespaces(watch = watch)
+        warm.keep("rebels", listOf(operator(listOf(luke), "1")))
+        val listeners = getListeners()
+        listeners.added.invoke(leia)
+        val operator = operator(null)
+        // when
+        warm.restore("rebels", listOf(operator))
+        // then
+        val captor = argumentCaptor<Collection<Pod>>()
+        verify(operator).setCachedInNamespace(eq("rebels"), captor.capture(), eq("2"))
+        assertThat(captor.firstValue).containsOnly(luke, leia)
+    }
+
+    @Test
+    fun `#keep should evict least recently kept namespace if there are too many namespaces`() {
+        // given
+        val warm = WarmNamespaces(1, 100, watch)
+        warm.keep("rebels", listOf(operator(listOf(luke, leia), "2")))
+        // when
+        warm.keep("empire", listOf(operator(listOf(vader), "3")))
+        // then
+        verify(watch).stopWatch(WarmNamespaces.Key(podKind, "rebels"))
+        assertThat(warm.size).isEqualTo(1)
+    }
+
+    @Test
+    fun `#keep should evict least recently kept namespace if there are too many resources`() {
+        // given
+        val warm = WarmNamespaces(10, 2, watch)
+        warm.keep("rebels", listOf(operator(listOf(luke, leia), "2")))
+        // when
+        warm.keep("empire", listOf(operator(listOf(vader), "3")))
+        // then
+        verify(watch).stopWatch(WarmNamespaces.Key(podKind, "rebels"))
+        verify(watch, never()).stopWatch(WarmNamespaces.Key(podKind, "empire"))
+        assertThat(warm.size).isEqualTo(1)
+    }
+
+    @Test
+    fun `outdated watch should drop kept resources`() {
+        // given
+        val warm = WarmNamespaces(watch = watch)
+        warm.keep("rebels", listOf(operator(listOf(luke, leia), "2")))
+        val listeners = getListeners()
+        // when
+        listeners.outdated.invoke(WarmNamespaces.Key(podKind, "rebels"))
+        // then
+        assertThat(warm.size).isEqualTo(0)
+        assertThat(warm.restore("rebels", listOf(operator(null)))).isEmpty()
+    }
+
+    private fun getListeners(): WatchListeners {
+        val captor = argumentCaptor<WatchListeners>()
+        verify(watch).watch(any(), any(), captor.capture(), any())
+        return captor.firstValue
+    }
+
+    private fun operator(
+        resources: List<Pod>?,
+        resourceVersion: String = "0"
+    ): NamespacedResourceOperator<Pod, KubernetesClient> {
+        val cached = if (resources == null) {
+            null
+        } else {
+            Pair(resources, resourceVersion)
+        }
+        return mock {
+            on { kind } doReturn podKind
+            on { getCachedInNamespace() } doReturn cached
+            on { setCachedInNamespace(any(), any(), any()) } doReturn true
+        }
+    }
+}
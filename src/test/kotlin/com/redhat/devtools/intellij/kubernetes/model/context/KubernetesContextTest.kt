@@ -17,6 +17,7 @@ import com.nhaarman.mockitokotlin2.atLeastOnce
 import com.nhaarman.mockitokotlin2.clearInvocations
 import com.nhaarman.mockitokotlin2.doReturn
 import com.nhaarman.mockitokotlin2.eq
+import com.nhaarman.mockitokotlin2.inOrder
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.spy
@@ -24,17 +25,27 @@ import com.nhaarman.mockitokotlin2.times
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.whenever
 import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.ListOptions
+import io.fabric8.kubernetes.api.model.NamedContext
 import io.fabric8.kubernetes.api.model.Namespace
 import io.fabric8.kubernetes.api.model.Node
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder
 import io.fabric8.kubernetes.api.model.Pod
+import io.fabric8.kubernetes.api.model.PodBuilder
 import io.fabric8.kubernetes.api.model.Secret
+import io.fabric8.kubernetes.api.model.SecretBuilder
+import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinitionBuilder
 import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinition
 import io.fabric8.kubernetes.client.NamespacedKubernetesClient
 import io.fabric8.kubernetes.client.Watcher
 import org.assertj.core.api.Assertions.assertThat
 import com.redhat.devtools.intellij.kubernetes.model.ModelChangeObservable
 import com.redhat.devtools.intellij.kubernetes.model.Notification
+import com.redhat.devtools.intellij.kubernetes.model.ResourceCacheManager
+import com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots
+import com.redhat.devtools.intellij.kubernetes.model.ResourceSnapshots.Snapshot
 import com.redhat.devtools.intellij.kubernetes.model.ResourceWatch
+import com.redhat.devtools.intellij.kubernetes.model.WarmNamespaces
 import com.redhat.devtools.intellij.kubernetes.model.context.IActiveContext.ResourcesIn
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.NAMESPACE1
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.NAMESPACE2
@@ -45,6 +56,11 @@ import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.POD3
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.client
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.customResource
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.customResourceDefinition
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.inNamespace
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.items
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.list
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.namedContext
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.pods
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
 import com.redhat.devtools.intellij.kubernetes.model.mocks.Mocks.namespacedResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.mocks.Mocks.nonNamespacedResourceOperator
@@ -53,10 +69,14 @@ import com.redhat.devtools.intellij.kubernetes.model.resource.INonNamespacedReso
 import com.redhat.devtools.intellij.kubernetes.model.resource.IResourceOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.ResourceKind
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.*
+import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceDefinitionsOperator
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.CustomResourceScope
 import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.GenericCustomResource
 import com.redhat.devtools.intellij.kubernetes.model.Clients
 import com.redhat.devtools.intellij.kubernetes.model.util.MultiResourceException
+import com.redhat.devtools.intellij.kubernetes.model.util.getTableRow
+import com.redhat.devtools.intellij.kubernetes.model.util.setMetadataOnly
+import com.redhat.devtools.intellij.kubernetes.model.util.setTableRow
 import io.fabric8.kubernetes.client.KubernetesClient
 import io.fabric8.kubernetes.client.Watch
 import org.junit.Before
@@ -161,6 +181,7 @@ class KubernetesContextTest {
 
 	private val resourceWatch: ResourceWatch<ResourceKind<out HasMetadata>> = mock()
 	private val notification: Notification = mock()
+	private val caches: ResourceCacheManager = mock()
 
 	private lateinit var context: TestableKubernetesContext
 
@@ -185,10 +206,191 @@ class KubernetesContextTest {
 				extensionResourceOperators,
 				Pair(namespacedCustomResourceOperator, nonNamespacedCustomResourcesOperator),
 				resourceWatch,
-				notification)
+				notification,
+				null,
+				caches)
 		)
 	}
 
+	@Test
+	fun `#getAllResources should mark cache as used and evict caches`() {
+		// given
+		// when
+		context.getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
+		// then
+		verify(caches).used(NamespacedPodsOperator.KIND, currentNamespace.metadata.name)
+		verify(caches, atLeastOnce()).evict(any(), any())
+	}
+
+	@Test
+	fun `#getAllResources should NOT evict caches if resources were cached already`() {
+		// given
+		items(list(pods(clients.get())), POD1, POD2, POD3)
+		val context = createContext(
+			clients,
+			listOf(namespacesOperator, AllPodsOperator(clients)),
+			snapshots())
+		context.getAllResources(AllPodsOperator.KIND, ResourcesIn.ANY_NAMESPACE)
+		clearInvocations(caches)
+		// when
+		context.getAllResources(AllPodsOperator.KIND, ResourcesIn.ANY_NAMESPACE)
+		// then
+		verify(caches).used(AllPodsOperator.KIND, null)
+		verify(caches, never()).evict(any(), any())
+	}
+
+	@Test
+	fun `#getAllResources should only create operator for requested kind`() {
+		// given
+		// when
+		context.getAllResources(NodesOperator.KIND, ResourcesIn.NO_NAMESPACE)
+		// then
+		assertThat((context.nonNamespacedOperators as ResourceOperators<*>).created)
+			.containsOnly(nodesOperator)
+		assertThat((context.namespacedOperators as ResourceOperators<*>).created).isEmpty()
+	}
+
+	@Test
+	fun `#getAllResources should set current namespace to namespaced operator that it created`() {
+		// given
+		// when
+		context.getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
+		// then
+		verify(namespacedPodsOperator).namespace = currentNamespace.metadata.name
+	}
+
+	@Test
+	fun `#getAllResources should NOT restore pods and definitions that were saved with their metadata only`() {
+		// given
+		val pod = PodBuilder()
+			.withNewMetadata()
+				.withName("smurf")
+				.withNamespace(currentNamespace.metadata.name)
+				.withUid("smurfUid")
+			.endMetadata()
+			.withNewStatus()
+				.withPhase("Running")
+			.endStatus()
+			.build()
+		val definition = CustomResourceDefinitionBuilder()
+			.withNewMetadata()
+				.withName("smurfs.smurfington")
+				.withUid("smurfsUid")
+			.endMetadata()
+			.withNewSpec()
+				.withGroup("smurfington")
+				.withScope(CustomResourceScope.NAMESPACED)
+				.withNewNames()
+					.withKind("Smurf")
+					.withPlural("smurfs")
+				.endNames()
+				.addNewVersion()
+					.withName("v1")
+				.endVersion()
+			.endSpec()
+			.build()
+		val clients = Clients(client(
+			currentNamespace.metadata.name,
+			allNamespaces,
+			customResourceDefinitions = listOf(definition)))
+		items(list(inNamespace(pods(clients.get()))), pod)
+		val snapshots = snapshots(
+			Snapshot(NamespacedPodsOperator.KIND, currentNamespace.metadata.name, "42", listOf(metadataOnly(pod))),
+			Snapshot(CustomResourceDefinitionsOperator.KIND, null, "42", listOf(metadataOnly(definition))))
+		val context = createContext(
+			clients,
+			listOf(namespacesOperator, NamespacedPodsOperator(clients), CustomResourceDefinitionsOperator(clients)),
+			snapshots)
+		// when
+		val pods = context.getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
+		val definitions = context.getAllResources(CustomResourceDefinitionsOperator.KIND, ResourcesIn.NO_NAMESPACE)
+		// then
+		// rendered
+		assertThat(pods.single().status.phase).isEqualTo("Running")
+		assertThat(definitions.single().spec.names.plural).isEqualTo("smurfs")
+		assertThat(definitions.single().spec.group).isEqualTo("smurfington")
+		// expanded
+		assertThat(context.getAllResources(definitions.single())).isNotNull
+	}
+
+	@Test
+	fun `#getAllResources should restore secrets that were saved with their metadata and table row only`() {
+		// given
+		val secret = metadataOnly(SecretBuilder()
+			.withNewMetadata()
+				.withName("gargamel")
+				.withNamespace(currentNamespace.metadata.name)
+				.withUid("gargamelUid")
+			.endMetadata()
+			.build())
+		setTableRow(secret, mapOf("NAME" to "gargamel", "TYPE" to "Opaque"))
+		val snapshots = snapshots(
+			Snapshot(SecretsOperator.KIND, currentNamespace.metadata.name, "42", listOf(secret)))
+		val context = createContext(
+			clients,
+			listOf(namespacesOperator, SecretsOperator(clients)),
+			snapshots)
+		// when
+		val secrets = context.getAllResources(SecretsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
+		// then
+		assertThat(secrets.map { it.metadata.name }).containsExactly("gargamel")
+		assertThat(getTableRow(secrets.single())).containsEntry("TYPE", "Opaque")
+		verify(clients.get(), never()).secrets()
+	}
+
+	@Test
+	fun `#getAllResources should NOT restore secrets that were saved without their table row`() {
+		// given
+		val secret = SecretBuilder()
+			.withNewMetadata()
+				.withName("gargamel")
+				.withNamespace(currentNamespace.metadata.name)
+				.withUid("gargamelUid")
+			.endMetadata()
+			.build()
+		val snapshots = snapshots(
+			Snapshot(SecretsOperator.KIND, currentNamespace.metadata.name, "42", listOf(metadataOnly(secret))))
+		val context = createContext(
+			clients,
+			listOf(namespacesOperator, SecretsOperator(clients)),
+			snapshots)
+		// when
+		context.getAllResources(SecretsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
+		// then
+		verify(clients.get(), atLeastOnce()).secrets()
+	}
+
+	private fun snapshots(vararg snapshots: Snapshot): ResourceSnapshots {
+		return mock {
+			on { load(any()) } doReturn snapshots.toList()
+		}
+	}
+
+	private fun <R: HasMetadata> metadataOnly(resource: R): R {
+		val copy = resource.javaClass.newInstance()
+		copy.metadata = ObjectMetaBuilder(resource.metadata).build()
+		setMetadataOnly(copy)
+		return copy
+	}
+
+	private fun createContext(
+		clients: Clients<KubernetesClient>,
+		internalResourcesOperators: List<IResourceOperator<out HasMetadata>>,
+		snapshots: ResourceSnapshots
+	): TestableKubernetesContext {
+		return TestableKubernetesContext(
+			modelChange,
+			clients,
+			internalResourcesOperators,
+			emptyList(),
+			Pair(namespacedCustomResourceOperator, nonNamespacedCustomResourcesOperator),
+			resourceWatch,
+			notification,
+			snapshots,
+			caches,
+			namedContext("smurfington", currentNamespace.metadata.name, "cluster", "user"))
+	}
+
 	@Test
 	fun `#setCurrentNamespace should remove all namespaced operators`() {
 		// given
@@ -217,7 +419,7 @@ class KubernetesContextTest {
 		// when
 		context.setCurrentNamespace(NAMESPACE1.metadata.name)
 		// then
-		verify(context.watch).watchAll(captor.capture(), any())
+		verify(context.watch).watchAll(captor.capture(), any(), eq(ResourceWatch.Priority.BACKGROUND))
 		assertThat(captor.firstValue).isNotEmpty
 		val reWatched = captor.firstValue.map { it.first }
 		assertThat(reWatched).containsOnly(*stopped.toTypedArray())
@@ -234,7 +436,7 @@ class KubernetesContextTest {
 		// when
 		context.setCurrentNamespace(NAMESPACE1.metadata.name)
 		// then
-		verify(context.watch).watchAll(captor.capture(), any())
+		verify(context.watch).watchAll(captor.capture(), any(), eq(ResourceWatch.Priority.BACKGROUND))
 		assertThat(captor.firstValue).isEmpty()
 	}
 
@@ -258,6 +460,31 @@ class KubernetesContextTest {
 		verify(namespacedPodsOperator, never()).invalidate()
 	}
 
+	@Test
+	fun `#setCurrentNamespace should evict caches once resources of previous namespace are kept`() {
+		// given
+		val warmNamespaces: WarmNamespaces = mock()
+		val context = TestableKubernetesContext(
+			modelChange,
+			clients,
+			listOf(namespacesOperator, namespacedPodsOperator),
+			emptyList(),
+			Pair(namespacedCustomResourceOperator, nonNamespacedCustomResourcesOperator),
+			resourceWatch,
+			notification,
+			null,
+			caches,
+			mock(),
+			warmNamespaces)
+		// when
+		context.setCurrentNamespace(NAMESPACE1.metadata.name)
+		// then
+		inOrder(warmNamespaces, caches) {
+			verify(warmNamespaces).keep(any(), any())
+			verify(caches).evict(any(), any())
+		}
+	}
+
 	@Test
 	fun `#setCurrentNamespace should fire change in current namespace`() {
 		// given
@@ -268,12 +495,21 @@ class KubernetesContextTest {
 	}
 
 	@Test
-	fun `#setCurrentNamespace should set namespace in client`() {
+	fun `#setCurrentNamespace should NOT set namespace in shared client`() {
+		// given
+		// when
+		context.setCurrentNamespace(NAMESPACE1.metadata.name)
+		// then
+		verify(clients.get().configuration, never()).namespace = any()
+	}
+
+	@Test
+	fun `#setCurrentNamespace should return new namespace as current namespace`() {
 		// given
 		// when
 		context.setCurrentNamespace(NAMESPACE1.metadata.name)
 		// then
-		verify(clients.get().configuration).namespace = NAMESPACE1.metadata.name
+		assertThat(context.getCurrentNamespace()).isEqualTo(NAMESPACE1.metadata.name)
 	}
 
 	@Test
@@ -309,6 +545,59 @@ class KubernetesContextTest {
 		assertThat(namespace).isNull()
 	}
 
+	@Test
+	fun `#getCurrentNamespace should not look up namespaces a 2nd time`() {
+		// given
+		context.getCurrentNamespace()
+		clearInvocations(namespacesOperator)
+		// when
+		context.getCurrentNamespace()
+		// then
+		verify(namespacesOperator, never()).allResources
+	}
+
+	@Test
+	fun `#getCurrentNamespace should look up namespaces again if namespace was added`() {
+		// given
+		context.getCurrentNamespace()
+		clearInvocations(namespacesOperator)
+		context.added(NAMESPACE3)
+		// when
+		context.getCurrentNamespace()
+		// then
+		verify(namespacesOperator).allResources
+	}
+
+	@Test
+	fun `#getCurrentNamespace should look up namespaces again if namespace was removed`() {
+		// given
+		context.getCurrentNamespace()
+		clearInvocations(namespacesOperator)
+		context.removed(NAMESPACE3)
+		// when
+		context.getCurrentNamespace()
+		// then
+		verify(namespacesOperator).allResources
+	}
+
+	@Test
+	fun `#added & #removed should not look up namespaces for events of namespaced resources`() {
+		// given
+		val pods = (0 until 1000).map { index ->
+			resource<Pod>("pod$index", currentNamespace.metadata.name, "podUid$index", "v1")
+		}
+		context.namespacedOperators // create operators
+		context.getCurrentNamespace()
+		clearInvocations(namespacesOperator)
+		// when
+		pods.forEach { pod ->
+			context.added(pod)
+			context.removed(pod)
+		}
+		// then
+		verify(namespacesOperator, never()).allResources
+	}
+
 	@Test
 	fun `#isCurrentNamespace should return false if given namespace is not in existing namespaces`() {
 		// given
@@ -328,6 +617,26 @@ class KubernetesContextTest {
 		assertThat(isCurrent).isFalse()
 	}
 
+	@Test
+	fun `#isCurrentNamespace should return true if given namespace is current namespace`() {
+		// given
+		// when
+		val isCurrent = context.isCurrentNamespace(currentNamespace)
+		// then
+		assertThat(isCurrent).isTrue()
+	}
+
+	@Test
+	fun `#isCurrentNamespace should not look up namespaces a 2nd time`() {
+		// given
+		context.isCurrentNamespace(currentNamespace)
+		clearInvocations(namespacesOperator)
+		// when
+		context.isCurrentNamespace(NAMESPACE3)
+		// then
+		verify(namespacesOperator, never()).allResources
+	}
+
 	@Test
 	fun `#getResources should get all resources in operator for given resource type in correct ResourcesIn type`() {
 		// given
@@ -548,7 +857,21 @@ class KubernetesContextTest {
 				function.invoke(mock()) ==
 						namespacedCustomResourceWatchOp.invoke(mock())
 			}),
-			any())
+			any(),
+			eq(ResourceWatch.Priority.VISIBLE))
+	}
+
+	@Test
+	fun `#getAllResources should watch namespaces in the background`() {
+		// given
+		// when
+		context.getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
+		// then
+		verify(context.watch).watch(
+			eq(NamespacesOperator.KIND),
+			any(),
+			any(),
+			eq(ResourceWatch.Priority.BACKGROUND))
 	}
 
 	@Test
@@ -573,7 +896,31 @@ class KubernetesContextTest {
 				function.invoke(mock()) ==
 						nonNamespacedCustomResourceWatchOp.invoke(mock())
 			}),
-			any())
+			any(),
+			eq(ResourceWatch.Priority.VISIBLE))
+	}
+
+	@Test
+	fun `#watch(kind) should stop namespaced watch and watch cluster wide operator if it has the resources cached`() {
+		// given
+		val pods = pods(clients.get())
+		items(list(pods), POD1, POD2, POD3)
+		val inNamespace = inNamespace(pods)
+		val context = createContext(
+			clients,
+			listOf(namespacesOperator, NamespacedPodsOperator(clients), AllPodsOperator(clients)),
+			snapshots())
+		context.getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
+		context.getAllResources(AllPodsOperator.KIND, ResourcesIn.ANY_NAMESPACE)
+		// when
+		context.watch(NamespacedPodsOperator.KIND)
+		// then
+		verify(resourceWatch).stopWatch(NamespacedPodsOperator.KIND)
+		val watchOperation = argumentCaptor<(Watcher<in HasMetadata>) -> Watch?>()
+		verify(resourceWatch).watch(eq(AllPodsOperator.KIND), watchOperation.capture(), any(), eq(ResourceWatch.Priority.VISIBLE))
+		watchOperation.firstValue.invoke(mock())
+		verify(pods).watch(any<ListOptions>(), any())
+		verify(inNamespace, never()).watch(any<ListOptions>(), any())
 	}
 
 	@Test
@@ -618,6 +965,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#stopWatch(kind) should clear operators`() {
 		// given
+		context.getAllResources(NamespacesOperator.KIND, ResourcesIn.NO_NAMESPACE) // create operator
 		// when
 		context.stopWatch(NamespacesOperator.KIND)
 		// then
@@ -651,6 +999,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#added(namespace) should add to namespaces operator but not to pods operator`() {
 		// given
+		givenOperatorsCreated()
 		val namespace = resource<Namespace>("papa smurf namespace", "ns1", "someNamespaceUid", "v1")
 		// when
 		context.added(namespace)
@@ -662,6 +1011,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#added(pod) should add pod in current namespace to pods operator`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("pod", currentNamespace.metadata.name, "somePodUid", "v1")
 		// when
 		context.added(pod)
@@ -672,6 +1022,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#added(pod) should add pod to allPods operator`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("pod", "gargamel namespace", "gargamelUid", "v1")
 		// when
 		context.added(pod)
@@ -692,6 +1043,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#added(pod) should return true if pod was added to pods operator`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("pod", currentNamespace.metadata.name, "somePodUid", "v1")
 		whenever(namespacedPodsOperator.added(pod))
 			.thenReturn(true)
@@ -705,6 +1057,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#added(namespace) should return true if namespace was added to namespace operator`() {
 		// given
+		givenOperatorsCreated()
 		val namespace = resource<Namespace>("pod", null, "someNamespaceUid", "v1")
 		whenever(namespacesOperator.added(namespace))
 			.thenReturn(true)
@@ -729,6 +1082,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#added(pod) should fire if operator added pod`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("gargamel", currentNamespace.metadata.name, "gargamelUid", "v1")
 		whenever(namespacedPodsOperator.added(pod))
 			.thenReturn(true)
@@ -753,6 +1107,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#added(CustomResourceDefinition) should create namespaced custom resources operator if definition was added`() {
 		// given
+		givenOperatorsCreated()
 		val currentNamespace = currentNamespace.metadata.name
 		setNamespaceForResource(currentNamespace, namespacedDefinition)
 		whenever(customResourceDefinitionsOperator.added(namespacedDefinition))
@@ -770,6 +1125,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#added(CustomResourceDefinition) should create clusterwide custom resources operator if definition was added`() {
 		// given
+		givenOperatorsCreated()
 		whenever(customResourceDefinitionsOperator.added(clusterwideDefinition))
 				.doReturn(true)
 		// when
@@ -795,6 +1151,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#removed(pod) should remove pod from pods operator but not from namespace operator`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("pod", currentNamespace.metadata.name, "somePodUid", "v1")
 		// when
 		context.removed(pod)
@@ -806,6 +1163,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#removed(pod) should remove pod in current namespace from allPods && namespacedPods operator`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("pod", currentNamespace.metadata.name, "somePodUid", "v1")
 		// when
 		context.removed(pod)
@@ -817,6 +1175,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#removed(pod) should remove pod in non-current namespace from allPods operator but not from namespacedPods operator`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("pod", "42", "somePodUid", "v1")
 		// when
 		context.removed(pod)
@@ -828,6 +1187,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#removed(namespace) should remove from namespaces operator but not from pods operator`() {
 		// given
+		givenOperatorsCreated()
 		val namespace = NAMESPACE1
 		// when
 		context.removed(namespace)
@@ -839,6 +1199,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#removed(pod) should fire if operator removed pod`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("gargamel", currentNamespace.metadata.name, "gargamelUid", "v1")
 		whenever(namespacedPodsOperator.removed(pod))
 			.thenReturn(true)
@@ -863,6 +1224,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#removed(CustomResourceDefinition) should remove clusterwide custom resource operator when definition is removed`() {
 		// given
+		givenOperatorsCreated()
 		givenCustomResourceOperatorInContext(clusterwideDefinition,
 				customResourceDefinitionsOperator,
 				nonNamespacedCustomResourcesOperator)
@@ -876,6 +1238,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#removed(CustomResourceDefinition) should stop watch when definition is removed `() {
 		// given
+		givenOperatorsCreated()
 		givenCustomResourceOperatorInContext(clusterwideDefinition,
 				customResourceDefinitionsOperator,
 				nonNamespacedCustomResourcesOperator)
@@ -889,6 +1252,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#removed(CustomResourceDefinition) should remove namespaced custom resource operator when definition is removed`() {
 		// given
+		givenOperatorsCreated()
 		givenCustomResourceOperatorInContext(namespacedDefinition,
 				customResourceDefinitionsOperator,
 				namespacedCustomResourceOperator)
@@ -917,6 +1281,9 @@ class KubernetesContextTest {
 	@Test
 	fun `#invalidate() should invalidate all resource operators`() {
 		// given
+		// create operators
+		context.getAllResources(NamespacesOperator.KIND, ResourcesIn.NO_NAMESPACE)
+		context.getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE)
 		// when
 		context.invalidate()
 		// then
@@ -924,9 +1291,20 @@ class KubernetesContextTest {
 		verify(namespacedPodsOperator).invalidate()
 	}
 
+	@Test
+	fun `#invalidate() should NOT create resource operators`() {
+		// given
+		// when
+		context.invalidate()
+		// then
+		assertThat((context.namespacedOperators as ResourceOperators<*>).created).isEmpty()
+		assertThat((context.nonNamespacedOperators as ResourceOperators<*>).created).isEmpty()
+	}
+
 	@Test
 	fun `#invalidate(kind) should invalidate resource operator for this kind`() {
 		// given
+		context.getAllResources(NamespacedPodsOperator.KIND, ResourcesIn.CURRENT_NAMESPACE) // create operator
 		// when
 		context.invalidate(namespacedPodsOperator.kind)
 		// then
@@ -937,6 +1315,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#replace(resource) should replace in namespaced resource operator`() {
 		// given
+		givenOperatorsCreated()
 		val pod = allPods[0]
 		// when
 		context.replaced(pod)
@@ -948,6 +1327,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#replace(resource) should replace in non-namespaced resource operator`() {
 		// given
+		givenOperatorsCreated()
 		val namespace = allNamespaces[0]
 		// when
 		context.replaced(namespace)
@@ -971,6 +1351,7 @@ class KubernetesContextTest {
 	@Test
 	fun `#replaced(pod) should fire if operator replaced pod`() {
 		// given
+		givenOperatorsCreated()
 		val pod = resource<Pod>("gargamel", "ns1", "gargamelUid", "v1")
 		whenever(namespacedPodsOperator.replaced(pod))
 			.thenReturn(true)
@@ -1001,6 +1382,12 @@ class KubernetesContextTest {
 		verify(clients.get()).close()
 	}
 
+	private fun givenOperatorsCreated() {
+		// events are only dispatched to operators that were created
+		context.namespacedOperators.entries
+		context.nonNamespacedOperators.entries
+	}
+
 	private fun givenCustomResourceOperatorInContext(
 		definition: CustomResourceDefinition,
 		definitionOperator: IResourceOperator<CustomResourceDefinition>,
@@ -1038,8 +1425,12 @@ class KubernetesContextTest {
 					INamespacedResourceOperator<GenericCustomResource, KubernetesClient>,
 					INonNamespacedResourceOperator<GenericCustomResource, KubernetesClient>>,
         public override var watch: ResourceWatch<ResourceKind<out HasMetadata>>,
-        override val notification: Notification)
-		: KubernetesContext(observable, clients, mock()) {
+        override val notification: Notification,
+		override val snapshots: ResourceSnapshots? = null,
+		override val caches: ResourceCacheManager = ResourceCacheManager(Long.MAX_VALUE),
+		context: NamedContext = mock(),
+		override val warmNamespaces: WarmNamespaces = WarmNamespaces())
+		: KubernetesContext(observable, clients, context) {
 
 		public override val namespacedOperators
 				: MutableMap<ResourceKind<out HasMetadata>, INamespacedResourceOperator<out HasMetadata, KubernetesClient>>
@@ -1053,9 +1444,11 @@ class KubernetesContextTest {
 				return super.nonNamespacedOperators
 			}
 
-		override fun getInternalResourceOperators(clients: Clients<KubernetesClient>)
-				: List<IResourceOperator<out HasMetadata>> {
+		override fun getInternalResourceOperators(clients: Clients<KubernetesClient>, namespaced: Boolean)
+				: List<Pair<ResourceKind<out HasMetadata>, (Clients<KubernetesClient>) -> IResourceOperator<out HasMetadata>>> {
 			return internalResourceOperators
+				.filter { operator -> namespaced == (operator is INamespacedResourceOperator<*, *>) }
+				.map { operator -> Pair(operator.kind, { _: Clients<KubernetesClient> -> operator }) }
 		}
 
 		override fun getExtensionResourceOperators(clients: Clients<KubernetesClient>)
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.redhat.devtools.intellij.kubernetes.model.mocks
 
+import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.doReturn
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.whenever
@@ -18,6 +19,7 @@ import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom.
 import com.redhat.devtools.intellij.kubernetes.model.util.getApiVersion
 import io.fabric8.kubernetes.api.model.Context
 import io.fabric8.kubernetes.api.model.HasMetadata
+import io.fabric8.kubernetes.api.model.ListOptions
 import io.fabric8.kubernetes.api.model.NamedContext
 import io.fabric8.kubernetes.api.model.Namespace
 import io.fabric8.kubernetes.api.model.NamespaceList
@@ -81,6 +83,7 @@ object ClientMocks {
         }
         return mock {
             on { list() } doReturn namespaceList
+            on { list(any<ListOptions>()) } doReturn namespaceList
         }
     }
 
@@ -90,6 +93,7 @@ object ClientMocks {
         }
         val v1beta1CrdsOperation = mock<MixedOperation<CustomResourceDefinition, CustomResourceDefinitionList, Resource<CustomResourceDefinition>>> {
             on { list() } doReturn v1beta1CrdListOperation
+            on { list(any<ListOptions>()) } doReturn v1beta1CrdListOperation
         }
         val v1beta1Operation: V1beta1ApiextensionAPIGroupDSL = mock {
             on { customResourceDefinitions() } doReturn v1beta1CrdsOperation
@@ -122,6 +126,8 @@ object ClientMocks {
         val podList = mock<PodList>()
         whenever(nonNamespaceOperation.list())
             .doReturn(podList)
+        whenever(nonNamespaceOperation.list(any<ListOptions>()))
+            .doReturn(podList)
         return podList
 
     }
@@ -130,6 +136,8 @@ object ClientMocks {
         val podList = mock<PodList>()
         whenever(mixedOp.list())
             .doReturn(podList)
+        whenever(mixedOp.list(any<ListOptions>()))
+            .doReturn(podList)
         return podList
     }
 
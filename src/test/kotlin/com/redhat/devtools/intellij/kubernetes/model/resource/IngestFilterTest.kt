@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource
+
+import com.redhat.devtools.intellij.kubernetes.model.util.isStripped
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntryBuilder
+import io.fabric8.kubernetes.api.model.PodBuilder
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder
+import io.fabric8.kubernetes.client.utils.Serialization
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class IngestFilterTest {
+
+    @Test
+    fun `#apply should remove managed fields and mark resource as stripped`() {
+        // given
+        val pod = PodBuilder()
+            .withNewMetadata()
+                .withName("luke")
+                .withManagedFields(ManagedFieldsEntryBuilder()
+                    .withManager("kubectl")
+                    .build())
+            .endMetadata()
+            .build()
+        // when
+        IngestFilter().apply(pod)
+        // then
+        assertThat(pod.metadata.managedFields).isNullOrEmpty()
+        assertThat(isStripped(pod)).isTrue()
+    }
+
+    @Test
+    fun `#apply should remove last applied configuration but keep other annotations`() {
+        // given
+        val pod = PodBuilder()
+            .withNewMetadata()
+                .withName("leia")
+                .addToAnnotations(IngestFilter.LAST_APPLIED_CONFIGURATION, "{ \"kind\": \"Pod\" }")
+                .addToAnnotations("princess", "alderaan")
+            .endMetadata()
+            .build()
+        // when
+        IngestFilter().apply(pod)
+        // then
+        assertThat(pod.metadata.annotations)
+            .doesNotContainKey(IngestFilter.LAST_APPLIED_CONFIGURATION)
+            .containsEntry("princess", "alderaan")
+    }
+
+    @Test
+    fun `#apply should remove status`() {
+        // given
+        val deployment = DeploymentBuilder()
+            .withNewMetadata()
+                .withName("death star")
+            .endMetadata()
+            .withNewStatus()
+                .withReplicas(1)
+            .endStatus()
+            .build()
+        // when
+        IngestFilter().apply(deployment)
+        // then
+        assertThat(deployment.status).isNull()
+        assertThat(isStripped(deployment)).isTrue()
+    }
+
+    @Test
+    fun `#apply should keep status if filter does not remove it`() {
+        // given
+        val pod = PodBuilder()
+            .withNewMetadata()
+                .withName("yoda")
+            .endMetadata()
+            .withNewStatus()
+                .withPhase("Running")
+            .endStatus()
+            .build()
+        // when
+        IngestFilter().copy(status = false).apply(pod)
+        // then
+        assertThat(pod.status.phase).isEqualTo("Running")
+        assertThat(isStripped(pod)).isFalse()
+    }
+
+    @Test
+    fun `#apply should NOT mark resource as stripped if nothing was removed`() {
+        // given
+        val pod = PodBuilder()
+            .withNewMetadata()
+                .withName("han")
+                .withManagedFields(ManagedFieldsEntryBuilder()
+                    .withManager("kubectl")
+                    .build())
+            .endMetadata()
+            .build()
+        // when
+        IngestFilter.NONE.apply(pod)
+        // then
+        assertThat(pod.metadata.managedFields).isNotEmpty
+        assertThat(isStripped(pod)).isFalse()
+    }
+
+    @Test
+    fun `#apply should mark resource as stripped without marker showing in yaml`() {
+        // given
+        val pod = PodBuilder()
+            .withNewMetadata()
+                .withName("chewbacca")
+                .withManagedFields(ManagedFieldsEntryBuilder()
+                    .withManager("kubectl")
+                    .build())
+            .endMetadata()
+            .build()
+        // when
+        IngestFilter().apply(pod)
+        // then
+        assertThat(isStripped(pod)).isTrue()
+        assertThat(Serialization.asYaml(pod))
+            .doesNotContain("managedFields")
+            .doesNotContain("stripped")
+    }
+
+    @Test
+    fun `#isStripped should return false for resource with empty managed fields`() {
+        // given
+        val pod = PodBuilder()
+            .withNewMetadata()
+                .withName("lando")
+                .withManagedFields(emptyList())
+            .endMetadata()
+            .build()
+        // when
+        val stripped = isStripped(pod)
+        // then
+        assertThat(stripped).isFalse()
+    }
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+import io.fabric8.kubernetes.api.model.ConfigMap
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder
+import io.fabric8.kubernetes.client.KubernetesClientException
+import okhttp3.Call
+import okhttp3.MediaType
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import java.net.URL
+
+class PartialObjectMetadataOperationTest {
+
+    private val url = URL("https://localhost:6443/api/v1/namespaces/rebels/configmaps")
+    private val partialObjectMetadataList = """
+        {
+            "kind": "PartialObjectMetadataList",
+            "apiVersion": "meta.k8s.io/v1",
+            "metadata": {
+                "resourceVersion": "42",
+                "continue": "next"
+            },
+            "items": [
+                {
+                    "kind": "PartialObjectMetadata",
+                    "apiVersion": "meta.k8s.io/v1",
+                    "metadata": {
+                        "name": "luke",
+                        "namespace": "rebels",
+                        "uid": "luke-uid",
+                        "labels": { "side": "light" }
+                    }
+                },
+                {
+                    "kind": "PartialObjectMetadata",
+                    "apiVersion": "meta.k8s.io/v1",
+                    "metadata": {
+                        "name": "leia",
+                        "namespace": "rebels",
+                        "uid": "leia-uid"
+                    }
+                }
+            ]
+        }
+        """
+
+    @Test
+    fun `#list returns resources of operation kind with given metadata`() {
+        // given
+        val operation = createOperation(200, partialObjectMetadataList)
+        // when
+        val list = operation.list(url, ListOptionsBuilder().build())
+        // then
+        val items = list?.items
+        assertThat(items).hasSize(2)
+        assertThat(items?.map { it.metadata.name }).containsExactly("luke", "leia")
+        assertThat(items?.first()).isInstanceOf(ConfigMap::class.java)
+        assertThat(items?.first()?.kind).isEqualTo("ConfigMap")
+        assertThat(items?.first()?.metadata?.labels).containsEntry("side", "light")
+    }
+
+    @Test
+    fun `#list returns resources that are marked as metadata only`() {
+        // given
+        val operation = createOperation(200, partialObjectMetadataList)
+        // when
+        val list = operation.list(url, ListOptionsBuilder().build())
+        // then
+        assertThat(list?.items).allMatch { isMetadataOnly(it) }
+    }
+
+    @Test
+    fun `#list returns list metadata`() {
+        // given
+        val operation = createOperation(200, partialObjectMetadataList)
+        // when
+        val list = operation.list(url, ListOptionsBuilder().build())
+        // then
+        assertThat(list?.metadata?.resourceVersion).isEqualTo("42")
+        assertThat(list?.metadata?.`continue`).isEqualTo("next")
+    }
+
+    @Test
+    fun `#list requests PartialObjectMetadataList with limit and continue`() {
+        // given
+        var request: Request? = null
+        val operation = createOperation(200, partialObjectMetadataList) { request = it }
+        // when
+        operation.list(url, ListOptionsBuilder()
+            .withLimit(10)
+            .withContinue("page2")
+            .build())
+        // then
+        assertThat(request?.header("Accept")).isEqualTo(PartialObjectMetadataOperation.ACCEPT_PARTIAL_OBJECT_METADATA_LIST)
+        assertThat(request?.url()?.queryParameter("limit")).isEqualTo("10")
+        assertThat(request?.url()?.queryParameter("continue")).isEqualTo("page2")
+    }
+
+    @Test(expected = KubernetesClientException::class)
+    fun `#list throws if request fails`() {
+        // given
+        val operation = createOperation(403, "{}")
+        // when
+        operation.list(url, ListOptionsBuilder().build())
+        // then
+    }
+
+    private fun createOperation(
+        code: Int,
+        body: String,
+        requestListener: (Request) -> Unit = {}
+    ): PartialObjectMetadataOperation<ConfigMap> {
+        val httpClient = mock<OkHttpClient>()
+        whenever(httpClient.newCall(any()))
+            .doAnswer {
+                val request = it.getArgument<Request>(0)
+                requestListener.invoke(request)
+                createCall(request, code, body)
+            }
+        return PartialObjectMetadataOperation(ResourceKind.create(ConfigMap::class.java), httpClient)
+    }
+
+    private fun createCall(request: Request, code: Int, body: String): Call {
+        val response = Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(code)
+            .message("")
+            .body(ResponseBody.create(MediaType.get("application/json"), body))
+            .build()
+        return mock {
+            on { execute() } doReturn response
+        }
+    }
+}
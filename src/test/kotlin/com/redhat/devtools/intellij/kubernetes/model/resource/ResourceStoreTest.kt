@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource
+
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.whenever
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.POD1
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.POD2
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.POD3
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
+import io.fabric8.kubernetes.api.model.Pod
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+
+class ResourceStoreTest {
+
+    private val store = ResourceStore<Pod>()
+
+    @Before
+    fun before() {
+        store.putAll(listOf(POD1, POD2, POD3))
+    }
+
+    @Test
+    fun `#values returns resources in the order they were added`() {
+        // given
+        // when
+        val values = store.values
+        // then
+        assertThat(values).containsExactly(POD1, POD2, POD3)
+    }
+
+    @Test
+    fun `#get(resource) returns resource that is same resource but different instance`() {
+        // given
+        val pod2 = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, POD2.apiVersion)
+        // when
+        val found = store.get(pod2)
+        // then
+        assertThat(found).isSameAs(POD2)
+    }
+
+    @Test
+    fun `#get(resource) returns null if resource has different namespace`() {
+        // given
+        val pod2 = resource<Pod>(POD2.metadata.name, "sith", POD2.metadata.uid, POD2.apiVersion)
+        // when
+        val found = store.get(pod2)
+        // then
+        assertThat(found).isNull()
+    }
+
+    @Test
+    fun `#put(resource) replaces same resource at same position`() {
+        // given
+        val pod2 = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, POD2.apiVersion)
+        // when
+        val replaced = store.put(pod2)
+        // then
+        assertThat(replaced).isSameAs(POD2)
+        assertThat(store.values).containsExactly(POD1, pod2, POD3)
+    }
+
+    @Test
+    fun `#remove(resource) removes same resource`() {
+        // given
+        val pod2 = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, POD2.apiVersion)
+        // when
+        val removed = store.remove(pod2)
+        // then
+        assertThat(removed).isSameAs(POD2)
+        assertThat(store.values).containsExactly(POD1, POD3)
+    }
+
+    @Test
+    fun `#remove(resource) returns null if resource is not contained`() {
+        // given
+        val pod = resource<Pod>("papa-smurf", "smurf forest", "smurfUid", "v1")
+        // when
+        val removed = store.remove(pod)
+        // then
+        assertThat(removed).isNull()
+        assertThat(store.size).isEqualTo(3)
+    }
+
+    @Test
+    fun `#getByUid(uid) returns resource with given uid`() {
+        // given
+        // when
+        val found = store.getByUid(POD3.metadata.uid)
+        // then
+        assertThat(found).isSameAs(POD3)
+    }
+
+    @Test
+    fun `#getByUid(uid) returns null if resource was removed`() {
+        // given
+        store.remove(POD3)
+        // when
+        val found = store.getByUid(POD3.metadata.uid)
+        // then
+        assertThat(found).isNull()
+    }
+
+    @Test
+    fun `#getByUid(uid) returns null for old uid if resource was replaced by instance with new uid`() {
+        // given
+        val pod2 = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, "recreatedUid", POD2.apiVersion)
+        store.put(pod2)
+        // when
+        val old = store.getByUid(POD2.metadata.uid)
+        val new = store.getByUid("recreatedUid")
+        // then
+        assertThat(old).isNull()
+        assertThat(new).isSameAs(pod2)
+    }
+
+    @Test
+    fun `#getAllWithLabels(labels) returns resources that have all given labels`() {
+        // given
+        val jedi = podWithLabels("luke", mapOf("side" to "light", "rank" to "knight"))
+        val master = podWithLabels("yoda", mapOf("side" to "light", "rank" to "master"))
+        val sith = podWithLabels("vader", mapOf("side" to "dark", "rank" to "knight"))
+        store.putAll(listOf(jedi, master, sith))
+        // when
+        val found = store.getAllWithLabels(mapOf("side" to "light", "rank" to "knight"))
+        // then
+        assertThat(found).containsExactly(jedi)
+    }
+
+    @Test
+    fun `#getAllWithLabels(labels) returns empty list if no resource has one of the given labels`() {
+        // given
+        val jedi = podWithLabels("luke", mapOf("side" to "light"))
+        store.put(jedi)
+        // when
+        val found = store.getAllWithLabels(mapOf("side" to "light", "planet" to "tatooine"))
+        // then
+        assertThat(found).isEmpty()
+    }
+
+    @Test
+    fun `#getAllWithLabels(labels) returns all resources if given labels are empty`() {
+        // given
+        // when
+        val found = store.getAllWithLabels(emptyMap())
+        // then
+        assertThat(found).containsExactly(POD1, POD2, POD3)
+    }
+
+    @Test
+    fun `#getAllWithLabels(labels) does not return resource that was replaced by instance with different labels`() {
+        // given
+        val jedi = podWithLabels("anakin", mapOf("side" to "light"))
+        store.put(jedi)
+        val sith = podWithLabels("anakin", mapOf("side" to "dark"))
+        store.put(sith)
+        // when
+        val light = store.getAllWithLabels(mapOf("side" to "light"))
+        val dark = store.getAllWithLabels(mapOf("side" to "dark"))
+        // then
+        assertThat(light).isEmpty()
+        assertThat(dark).containsExactly(sith)
+    }
+
+    @Test
+    fun `#getAllWithLabels(labels) does not return resource that was removed`() {
+        // given
+        val jedi = podWithLabels("obiwan", mapOf("side" to "light"))
+        store.put(jedi)
+        store.remove(jedi)
+        // when
+        val found = store.getAllWithLabels(mapOf("side" to "light"))
+        // then
+        assertThat(found).isEmpty()
+    }
+
+    @Test
+    fun `#sorted returns resources sorted by name`() {
+        // given
+        val yoda = podWithLabels("yoda", emptyMap())
+        val anakin = podWithLabels("anakin", emptyMap())
+        store.put(yoda)
+        store.put(anakin)
+        // when
+        val sorted = store.sorted
+        // then
+        assertThat(sorted).containsExactly(anakin, POD1, POD2, POD3, yoda)
+    }
+
+    @Test
+    fun `#sorted returns same snapshot if store did not change`() {
+        // given
+        val sorted = store.sorted
+        // when
+        val sortedAgain = store.sorted
+        // then
+        assertThat(sortedAgain).isSameAs(sorted)
+    }
+
+    @Test
+    fun `#sorted returns new snapshot that keeps sort order if resource was added, replaced or removed`() {
+        // given
+        val sorted = store.sorted
+        val anakin = podWithLabels("anakin", emptyMap())
+        val pod2 = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, POD2.apiVersion)
+        // when
+        store.put(anakin)
+        store.put(pod2)
+        store.remove(POD3)
+        // then
+        assertThat(sorted).containsExactly(POD1, POD2, POD3)
+        assertThat(store.sorted).containsExactly(anakin, POD1, pod2)
+    }
+
+    @Test
+    fun `#getAllInNamespace(namespace) returns resources in namespace sorted by name`() {
+        // given
+        val yoda = resource<Pod>("yoda", POD2.metadata.namespace, "yodaUid", "v1")
+        val anakin = resource<Pod>("anakin", POD2.metadata.namespace, "anakinUid", "v1")
+        store.put(yoda)
+        store.put(anakin)
+        // when
+        val inNamespace = store.getAllInNamespace(POD2.metadata.namespace)
+        // then
+        assertThat(inNamespace).containsExactly(anakin, POD2, yoda)
+    }
+
+    @Test
+    fun `#getAllInNamespace(namespace) returns empty list if there are no resources in namespace`() {
+        // given
+        // when
+        val inNamespace = store.getAllInNamespace("death star")
+        // then
+        assertThat(inNamespace).isEmpty()
+    }
+
+    @Test
+    fun `#getAllInNamespace(namespace) returns same snapshot if resources in namespace did not change`() {
+        // given
+        val inNamespace = store.getAllInNamespace(POD2.metadata.namespace)
+        // when
+        store.put(resource<Pod>("yoda", POD1.metadata.namespace, "yodaUid", "v1"))
+        store.remove(POD3)
+        // then
+        assertThat(store.getAllInNamespace(POD2.metadata.namespace)).isSameAs(inNamespace)
+    }
+
+    @Test
+    fun `#getAllInNamespace(namespace) returns new snapshot if resource in namespace was added, replaced or removed`() {
+        // given
+        val inNamespace = store.getAllInNamespace(POD2.metadata.namespace)
+        val yoda = resource<Pod>("yoda", POD2.metadata.namespace, "yodaUid", "v1")
+        val pod2 = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, POD2.apiVersion)
+        // when
+        store.put(yoda)
+        store.put(pod2)
+        // then
+        assertThat(inNamespace).containsExactly(POD2)
+        assertThat(store.getAllInNamespace(POD2.metadata.namespace)).containsExactly(pod2, yoda)
+        // when
+        store.remove(pod2)
+        // then
+        assertThat(store.getAllInNamespace(POD2.metadata.namespace)).containsExactly(yoda)
+    }
+
+    @Test
+    fun `#getAllWithLabels(labels) returns resources sorted by name`() {
+        // given
+        val yoda = podWithLabels("yoda", mapOf("side" to "light"))
+        val luke = podWithLabels("luke", mapOf("side" to "light"))
+        val anakin = podWithLabels("anakin", mapOf("side" to "light"))
+        store.putAll(listOf(yoda, luke, anakin))
+        // when
+        val found = store.getAllWithLabels(mapOf("side" to "light"))
+        // then
+        assertThat(found).containsExactly(anakin, luke, yoda)
+    }
+
+    @Test
+    fun `#clear() removes all resources`() {
+        // given
+        // when
+        store.clear()
+        // then
+        assertThat(store.isEmpty()).isTrue()
+        assertThat(store.getByUid(POD1.metadata.uid)).isNull()
+    }
+
+    private fun podWithLabels(name: String, labels: Map<String, String>): Pod {
+        val pod = resource<Pod>(name, "galaxy", "$name-uid", "v1")
+        whenever(pod.metadata.labels)
+            .doReturn(labels)
+        return pod
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.redhat.devtools.intellij.kubernetes.model.util.getTableRow
+import com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder
+import io.fabric8.kubernetes.api.model.batch.Job
+import okhttp3.Call
+import okhttp3.MediaType
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.entry
+import org.junit.Test
+import java.net.URL
+
+class TableOperationTest {
+
+    private val url = URL("https://localhost:6443/apis/batch/v1/namespaces/rebels/jobs")
+    private val table = """
+        {
+            "kind": "Table",
+            "apiVersion": "meta.k8s.io/v1",
+            "metadata": {
+                "resourceVersion": "42",
+                "continue": "next"
+            },
+            "columnDefinitions": [
+                { "name": "Name", "type": "string", "priority": 0 },
+                { "name": "Completions", "type": "string", "priority": 0 },
+                { "name": "Age", "type": "string", "priority": 0 },
+                { "name": "Containers", "type": "string", "priority": 1 }
+            ],
+            "rows": [
+                {
+                    "cells": [ "destroy-death-star", "1/1", "3d", "x-wing" ],
+                    "object": {
+                        "kind": "PartialObjectMetadata",
+                        "apiVersion": "meta.k8s.io/v1",
+                        "metadata": {
+                            "name": "destroy-death-star",
+                            "namespace": "rebels",
+                            "uid": "destroy-death-star-uid"
+                        }
+                    }
+                },
+                {
+                    "cells": [ "rescue-leia", "0/1", "5m", "falcon" ],
+                    "object": {
+                        "kind": "PartialObjectMetadata",
+                        "apiVersion": "meta.k8s.io/v1",
+                        "metadata": {
+                            "name": "rescue-leia",
+                            "namespace": "rebels",
+                            "uid": "rescue-leia-uid"
+                        }
+                    }
+                }
+            ]
+        }
+        """
+
+    @Test
+    fun `#list returns metadata only resources of operation kind for rows`() {
+        // given
+        val operation = createOperation(table)
+        // when
+        val list = operation.list(url, ListOptionsBuilder().build())
+        // then
+        val items = list?.items
+        assertThat(items?.map { it.metadata.name }).containsExactly("destroy-death-star", "rescue-leia")
+        assertThat(items).allMatch { it is Job && isMetadataOnly(it) }
+        assertThat(list?.metadata?.`continue`).isEqualTo("next")
+    }
+
+    @Test
+    fun `#list returns resources with cells of default priority columns`() {
+        // given
+        val operation = createOperation(table)
+        // when
+        val list = operation.list(url, ListOptionsBuilder().build())
+        // then
+        val row = getTableRow(list?.items?.get(1))
+        assertThat(row).containsExactly(
+            entry("Name", "rescue-leia"),
+            entry("Completions", "0/1"),
+            entry("Age", "5m"))
+    }
+
+    @Test
+    fun `#list requests Table including object metadata`() {
+        // given
+        var request: Request? = null
+        val operation = createOperation(table) { request = it }
+        // when
+        operation.list(url, ListOptionsBuilder()
+            .withLimit(10)
+            .build())
+        // then
+        assertThat(request?.header("Accept")).isEqualTo(TableOperation.ACCEPT_TABLE)
+        assertThat(request?.url()?.queryParameter("includeObject")).isEqualTo("Metadata")
+        assertThat(request?.url()?.queryParameter("limit")).isEqualTo("10")
+    }
+
+    @Test
+    fun `#list returns metadata only resources without row if cluster returns list`() {
+        // given
+        val operation = createOperation("""
+            {
+                "kind": "JobList",
+                "apiVersion": "batch/v1",
+                "metadata": { "resourceVersion": "42" },
+                "items": [
+                    { "metadata": { "name": "destroy-death-star", "namespace": "rebels" }, "spec": {} }
+                ]
+            }
+            """)
+        // when
+        val list = operation.list(url, ListOptionsBuilder().build())
+        // then
+        val items = list?.items
+        assertThat(items?.map { it.metadata.name }).containsExactly("destroy-death-star")
+        assertThat(items).allMatch { isMetadataOnly(it) && getTableRow(it) == null }
+    }
+
+    private fun createOperation(
+        body: String,
+        requestListener: (Request) -> Unit = {}
+    ): TableOperation<Job> {
+        val httpClient = mock<OkHttpClient>()
+        whenever(httpClient.newCall(any()))
+            .doAnswer {
+                val request = it.getArgument<Request>(0)
+                requestListener.invoke(request)
+                createCall(request, body)
+            }
+        return TableOperation(ResourceKind.create(Job::class.java), httpClient)
+    }
+
+    private fun createCall(request: Request, body: String): Call {
+        val response = Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(200)
+            .message("")
+            .body(ResponseBody.create(MediaType.get("application/json"), body))
+            .build()
+        return mock {
+            on { execute() } doReturn response
+        }
+    }
+}
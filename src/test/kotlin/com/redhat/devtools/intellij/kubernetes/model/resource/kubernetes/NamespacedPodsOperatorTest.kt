@@ -11,8 +11,12 @@
 package com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes
 
 import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.argThat
 import com.nhaarman.mockitokotlin2.argumentCaptor
 import com.nhaarman.mockitokotlin2.clearInvocations
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.eq
+import com.nhaarman.mockitokotlin2.doReturn
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.spy
@@ -36,11 +40,23 @@ import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.pods
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
 import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.withName
 import com.redhat.devtools.intellij.kubernetes.model.Clients
+import com.redhat.devtools.intellij.kubernetes.model.resource.AbstractResourceOperator
+import com.redhat.devtools.intellij.kubernetes.model.util.getTableRow
+import com.redhat.devtools.intellij.kubernetes.model.util.isMetadataOnly
+import com.redhat.devtools.intellij.kubernetes.model.util.setTableRow
+import io.fabric8.kubernetes.api.model.ListMetaBuilder
+import io.fabric8.kubernetes.api.model.ListOptions
 import io.fabric8.kubernetes.api.model.PodBuilder
+import io.fabric8.kubernetes.api.model.PodList
 import io.fabric8.kubernetes.client.Watcher
 import org.junit.Before
 import org.junit.Test
 import org.mockito.ArgumentCaptor
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
 
 class NamespacedPodsOperatorTest {
 
@@ -82,6 +98,167 @@ class NamespacedPodsOperatorTest {
         verify(operator, times(2)).loadAllResources(namespace)
     }
 
+    @Test
+    fun `#getAllResources() returns same snapshot if pods did not change`() {
+        // given
+        val pods = operator.allResources
+        // when
+        val podsAgain = operator.allResources
+        // then
+        assertThat(podsAgain).isSameAs(pods)
+    }
+
+    @Test
+    fun `#getAllResources() returns snapshot that does not change if pod is added`() {
+        // given
+        val pods = operator.allResources
+        val pod = resource<Pod>("papa-smurf", "smurf forest", "smurfUid", "v1")
+        // when
+        operator.added(pod)
+        // then
+        assertThat(pods).doesNotContain(pod)
+        assertThat(operator.allResources).contains(pod)
+    }
+
+    @Test
+    fun `#getAllResources() loads pods once if requested concurrently`() {
+        // given
+        operator.invalidate()
+        clearInvocations(operator)
+        val loading = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        doAnswer {
+            loading.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            it.callRealMethod()
+        }.whenever(operator).loadAllResources(any())
+        val executor = Executors.newSingleThreadExecutor()
+        try {
+            val first = executor.submit(Callable { operator.allResources })
+            assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue()
+            // when
+            val second = CompletableFuture.supplyAsync { operator.allResources }
+            while (operator.deduplicatedLoads == 0L) {
+                Thread.sleep(10)
+            }
+            release.countDown()
+            // then
+            assertThat(second.get(10, TimeUnit.SECONDS)).containsExactly(POD1, POD2, POD3)
+            assertThat(first.get(10, TimeUnit.SECONDS)).containsExactly(POD1, POD2, POD3)
+            verify(operator, times(1)).loadAllResources(any())
+        } finally {
+            release.countDown()
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `#getAllResources() waits for load if pod was added while loading`() {
+        // given
+        operator.invalidate()
+        val added = resource<Pod>("papa-smurf", currentNamespace, "papaSmurfUid", "v1")
+        val loading = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        doAnswer {
+            loading.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            it.callRealMethod()
+        }.whenever(operator).loadAllResources(any())
+        val executor = Executors.newSingleThreadExecutor()
+        try {
+            val first = executor.submit(Callable { operator.allResources })
+            assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue()
+            // watch notifies while pods are listed
+            operator.added(added)
+            // when
+            val second = CompletableFuture.supplyAsync { operator.allResources }
+            while (operator.deduplicatedLoads == 0L
+                && !second.isDone) {
+                Thread.sleep(10)
+            }
+            release.countDown()
+            // then
+            assertThat(second.get(10, TimeUnit.SECONDS)).containsExactlyInAnyOrder(POD1, POD2, POD3, added)
+            assertThat(first.get(10, TimeUnit.SECONDS)).containsExactlyInAnyOrder(POD1, POD2, POD3, added)
+        } finally {
+            release.countDown()
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `#getAllResources() does not cache pod that was removed while loading`() {
+        // given
+        operator.invalidate()
+        doAnswer {
+            // deleted while pods are listed
+            operator.removed(POD2)
+            it.callRealMethod()
+        }.whenever(operator).loadAllResources(any())
+        // when
+        val pods = operator.allResources
+        // then
+        assertThat(pods).containsExactly(POD1, POD3)
+    }
+
+    @Test
+    fun `#getAllResources() caches pod that was created again while loading`() {
+        // given
+        operator.invalidate()
+        val deleted = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, "deletedUid", "v1")
+        doAnswer {
+            // pod with same name deleted before pods are listed
+            operator.removed(deleted)
+            it.callRealMethod()
+        }.whenever(operator).loadAllResources(any())
+        // when
+        val pods = operator.allResources
+        // then
+        assertThat(pods).containsExactly(POD1, POD2, POD3)
+    }
+
+    @Test
+    fun `#getAllResources() returns pods in current namespace of cluster wide operator if it has pods cached`() {
+        // given
+        operator.invalidate()
+        clearInvocations(operator)
+        operator.clusterWide = mock {
+            on { getCachedIn(currentNamespace) } doReturn listOf(POD2)
+        }
+        // when
+        val pods = operator.allResources
+        // then
+        assertThat(pods).containsExactly(POD2)
+        verify(operator, never()).loadAllResources(any())
+    }
+
+    @Test
+    fun `#getAllResources() loads pods if cluster wide operator has no pods cached`() {
+        // given
+        operator.invalidate()
+        clearInvocations(operator)
+        operator.clusterWide = mock {
+            on { getCachedIn(currentNamespace) } doReturn null
+        }
+        // when
+        operator.allResources
+        // then
+        verify(operator).loadAllResources(currentNamespace)
+    }
+
+    @Test
+    fun `#added(pod) does not add pod if cluster wide operator has pods cached`() {
+        // given
+        operator.clusterWide = mock {
+            on { hasCached() } doReturn true
+        }
+        val pod = resource<Pod>("papa-smurf", currentNamespace, "smurfUid", "v1")
+        // when
+        val added = operator.added(pod)
+        // then
+        assertThat(added).isFalse()
+    }
+
     @Test
     fun `#getAllResources() won't load resources if namespace is null`() {
         // given
@@ -93,6 +270,30 @@ class NamespacedPodsOperatorTest {
         verify(operator, never()).loadAllResources(any())
     }
 
+    @Test
+    fun `#getAllResources() lists pods in pages until there's no continue token`() {
+        // given
+        val op = clients.get().pods().inNamespace(currentNamespace)
+        val page1 = mock<PodList> {
+            on { items } doReturn listOf(POD1)
+            on { metadata } doReturn ListMetaBuilder().withContinue("page2").build()
+        }
+        val page2 = mock<PodList> {
+            on { items } doReturn listOf(POD2, POD3)
+            on { metadata } doReturn ListMetaBuilder().withResourceVersion("42").build()
+        }
+        whenever(op.list(argThat<ListOptions> { `continue` == null }))
+            .doReturn(page1)
+        whenever(op.list(argThat<ListOptions> { `continue` == "page2" }))
+            .doReturn(page2)
+        operator.invalidate()
+        // when
+        val pods = operator.allResources
+        // then
+        assertThat(pods).containsExactly(POD1, POD2, POD3)
+        verify(op, times(2)).list(argThat<ListOptions> { limit == AbstractResourceOperator.DEFAULT_PAGE_SIZE })
+    }
+
     @Test
     fun `#setNamespace(namespace) sets namespace that's used in #loadAllResources(namespace)`() {
         // given
@@ -272,9 +473,192 @@ class NamespacedPodsOperatorTest {
         // when
         operator.watchAll(watcher)
         // then
+        val captor = argumentCaptor<Watcher<Pod>>()
         verify(clients.get().pods()
             .inNamespace(POD2.metadata.namespace))
-            .watch(watcher)
+            .watch(any<ListOptions>(), captor.capture())
+        captor.firstValue.eventReceived(Watcher.Action.ADDED, POD2)
+        verify(watcher).eventReceived(Watcher.Action.ADDED, POD2)
+    }
+
+    @Test
+    fun `#watchAll() keeps metadata and table row only of pod that was modified if operator caches table rows`() {
+        // given
+        val operator = TableRowsPodsOperator(clients)
+        operator.namespace = currentNamespace
+        val yoda = PodBuilder()
+            .withNewMetadata()
+                .withName("yoda")
+                .withNamespace(currentNamespace)
+            .endMetadata()
+            .build()
+        setTableRow(yoda, mapOf("Status" to "Running"))
+        operator.added(yoda)
+        val watcher = mock<Watcher<Pod>>()
+        operator.watchAll(watcher)
+        val modified = PodBuilder()
+            .withNewMetadata()
+                .withName("yoda")
+                .withNamespace(currentNamespace)
+                .withResourceVersion("42")
+            .endMetadata()
+            .withNewSpec()
+                .withNodeName("dagobah")
+            .endSpec()
+            .build()
+        // when
+        getClientWatcher().eventReceived(Watcher.Action.MODIFIED, modified)
+        // then
+        val received = argumentCaptor<Pod>()
+        verify(watcher).eventReceived(any(), received.capture())
+        operator.replaced(received.firstValue)
+        val cached = operator.allResources.find { it.metadata.name == "yoda" }
+        assertThat(cached?.spec).isNull()
+        assertThat(isMetadataOnly(cached)).isTrue()
+        assertThat(getTableRow(cached)).containsEntry("Status", "Running")
+    }
+
+    @Test
+    fun `#watchAll() keeps metadata only of pod that was added if operator caches table rows`() {
+        // given
+        val operator = TableRowsPodsOperator(clients)
+        operator.namespace = currentNamespace
+        val watcher = mock<Watcher<Pod>>()
+        operator.watchAll(watcher)
+        val added = PodBuilder()
+            .withNewMetadata()
+                .withName("luke")
+                .withNamespace(currentNamespace)
+            .endMetadata()
+            .withNewSpec()
+                .withNodeName("tatooine")
+            .endSpec()
+            .build()
+        // when
+        getClientWatcher().eventReceived(Watcher.Action.ADDED, added)
+        // then
+        val received = argumentCaptor<Pod>()
+        verify(watcher).eventReceived(any(), received.capture())
+        assertThat(received.firstValue.spec).isNull()
+        assertThat(received.firstValue.metadata.name).isEqualTo("luke")
+        assertThat(isMetadataOnly(received.firstValue)).isTrue()
+    }
+
+    private fun getClientWatcher(): Watcher<Pod> {
+        val captor = argumentCaptor<Watcher<Pod>>()
+        verify(clients.get().pods()
+            .inNamespace(currentNamespace))
+            .watch(any<ListOptions>(), captor.capture())
+        return captor.firstValue
+    }
+
+    @Test
+    fun `#watchAll() watches at resourceVersion of pods that were listed`() {
+        // given
+        val podList = clients.get().pods().inNamespace(currentNamespace).list()
+        whenever(podList.metadata)
+            .doReturn(ListMetaBuilder().withResourceVersion("42").build())
+        operator.allResources
+        // when
+        operator.watchAll(mock())
+        // then
+        verify(clients.get().pods()
+            .inNamespace(currentNamespace))
+            .watch(argThat<ListOptions> { resourceVersion == "42" }, any())
+    }
+
+    @Test
+    fun `#watchAll() lists pods if they were not listed yet`() {
+        // given
+        operator.invalidate()
+        clearInvocations(operator)
+        // when
+        operator.watchAll(mock())
+        // then
+        verify(operator).loadAllResources(currentNamespace)
+    }
+
+    @Test
+    fun `#watchAll() watches at resourceVersion of the last event that was received`() {
+        // given
+        operator.allResources
+        operator.watchAll(mock())
+        val captor = argumentCaptor<Watcher<Pod>>()
+        val op = clients.get().pods().inNamespace(currentNamespace)
+        verify(op).watch(any<ListOptions>(), captor.capture())
+        val modified = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, "v1", "84")
+        captor.firstValue.eventReceived(Watcher.Action.MODIFIED, modified)
+        // when
+        operator.watchAll(mock())
+        // then
+        verify(op).watch(argThat<ListOptions> { resourceVersion == "84" }, any())
+    }
+
+    @Test
+    fun `#watchAll() watches at resourceVersion of event that was received while loading`() {
+        // given
+        val podList = clients.get().pods().inNamespace(currentNamespace).list()
+        whenever(podList.metadata)
+            .doReturn(ListMetaBuilder().withResourceVersion("42").build())
+        val watcher = operator.trackResourceVersionOf(mock())
+        val modified = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, "v1", "84")
+        doAnswer {
+            val listed = it.callRealMethod()
+            // received while pods are listed
+            watcher.eventReceived(Watcher.Action.MODIFIED, modified)
+            listed
+        }.whenever(operator).loadAllResources(any())
+        operator.allResources
+        // when
+        operator.watchAll(mock())
+        // then
+        verify(clients.get().pods()
+            .inNamespace(currentNamespace))
+            .watch(argThat<ListOptions> { resourceVersion == "84" }, any())
+    }
+
+    @Test
+    fun `#watchAll() does not watch at resourceVersion of event that was received before invalidation`() {
+        // given
+        val podList = clients.get().pods().inNamespace(currentNamespace).list()
+        whenever(podList.metadata)
+            .doReturn(ListMetaBuilder().withResourceVersion("42").build())
+        val watcher = operator.trackResourceVersionOf(mock())
+        operator.invalidate()
+        val modified = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, "v1", "84")
+        watcher.eventReceived(Watcher.Action.MODIFIED, modified)
+        // when
+        operator.watchAll(mock())
+        // then
+        verify(clients.get().pods()
+            .inNamespace(currentNamespace))
+            .watch(argThat<ListOptions> { resourceVersion == "42" }, any())
+    }
+
+    @Test
+    fun `#watchAll() drops events that are received after namespace changed`() {
+        // given
+        val target = mock<Watcher<Pod>>()
+        val watcher = operator.trackResourceVersionOf(target)
+        operator.namespace = NAMESPACE3.metadata.name
+        val modified = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, "v1", "84")
+        // when
+        watcher.eventReceived(Watcher.Action.MODIFIED, modified)
+        // then
+        verify(target, never()).eventReceived(any(), any())
+    }
+
+    @Test
+    fun `#watchAll() hands on events that are received after invalidation`() {
+        // given
+        val target = mock<Watcher<Pod>>()
+        val watcher = operator.trackResourceVersionOf(target)
+        operator.invalidate()
+        val modified = resource<Pod>(POD2.metadata.name, POD2.metadata.namespace, POD2.metadata.uid, "v1", "84")
+        // when
+        watcher.eventReceived(Watcher.Action.MODIFIED, modified)
+        // then
+        verify(target).eventReceived(eq(Watcher.Action.MODIFIED), any())
     }
 
     @Test
@@ -542,10 +926,18 @@ class NamespacedPodsOperatorTest {
             .get()
     }
 
+    class TableRowsPodsOperator(clients: Clients<KubernetesClient>): NamespacedPodsOperator(clients) {
+        override val tableRows = true
+    }
+
     class TestablePodsOperator(clients: Clients<KubernetesClient>): NamespacedPodsOperator(clients) {
 
         public override fun loadAllResources(namespace: String): List<Pod> {
             return super.loadAllResources(namespace)
         }
+
+        fun trackResourceVersionOf(watcher: Watcher<Pod>): Watcher<Pod> {
+            return trackResourceVersion(watcher)
+        }
     }
 }
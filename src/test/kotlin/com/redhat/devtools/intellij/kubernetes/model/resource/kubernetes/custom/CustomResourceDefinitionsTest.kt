@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.custom
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.argumentCaptor
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.doThrow
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.customResourceDefinition
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
+import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.hasmetadata.HasMetadataResource
+import com.redhat.devtools.intellij.kubernetes.model.util.getApiVersion
+import io.fabric8.kubernetes.api.model.ListMeta
+import io.fabric8.kubernetes.api.model.ListOptions
+import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinition
+import io.fabric8.kubernetes.api.model.apiextensions.v1beta1.CustomResourceDefinitionList
+import io.fabric8.kubernetes.client.KubernetesClient
+import io.fabric8.kubernetes.client.KubernetesClientException
+import io.fabric8.kubernetes.client.V1beta1ApiextensionAPIGroupDSL
+import io.fabric8.kubernetes.client.Watch
+import io.fabric8.kubernetes.client.Watcher
+import io.fabric8.kubernetes.client.WatcherException
+import io.fabric8.kubernetes.client.dsl.ApiextensionsAPIGroupDSL
+import io.fabric8.kubernetes.client.dsl.MixedOperation
+import io.fabric8.kubernetes.client.dsl.Resource
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class CustomResourceDefinitionsTest {
+
+    private val group = "rebels"
+    private val version = "v1"
+    private val luke = resource<HasMetadataResource>("luke", "tatooine", "luke-uid", getApiVersion(group, version))
+    private val jedi = customResourceDefinition(
+        "jedis", "tatooine", "jedis-uid", "apiextensions.k8s.io/v1beta1", version, group, "HasMetadataResource", CustomResourceScope.NAMESPACED)
+    private val sith = customResourceDefinition(
+        "siths", "death-star", "siths-uid", "apiextensions.k8s.io/v1beta1", version, "empire", "Sith", CustomResourceScope.NAMESPACED)
+    private val list = mock<CustomResourceDefinitionList> {
+        on { items } doReturn listOf(sith)
+        on { metadata } doReturn ListMeta(null, null, "42", null)
+    }
+    private val watch = mock<Watch>()
+    private val operation = mock<MixedOperation<CustomResourceDefinition, CustomResourceDefinitionList, Resource<CustomResourceDefinition>>> {
+        on { list() } doReturn list
+        on { watch(any<ListOptions>(), any()) } doReturn watch
+    }
+    private val client = client(operation)
+    private val definitions = CustomResourceDefinitions(client)
+
+    @Test
+    fun `#getDefinitionFor should return definition that is matching kind, group and version`() {
+        // given
+        whenever(list.items).doReturn(listOf(sith, jedi))
+        // when
+        val definition = definitions.getDefinitionFor(luke)
+        // then
+        assertThat(definition).isEqualTo(jedi)
+    }
+
+    @Test
+    fun `#getDefinitionFor should return null if there is no matching definition`() {
+        // given
+        // when
+        val definition = definitions.getDefinitionFor(luke)
+        // then
+        assertThat(definition).isNull()
+    }
+
+    @Test
+    fun `#getDefinitionFor should return definition that only has a single spec version`() {
+        // given
+        whenever(jedi.spec.versions).doReturn(null)
+        whenever(list.items).doReturn(listOf(sith, jedi))
+        // when
+        val definition = definitions.getDefinitionFor(luke)
+        // then
+        assertThat(definition).isEqualTo(jedi)
+    }
+
+    @Test
+    fun `#getDefinitionFor should return definition that has an empty list of versions`() {
+        // given
+        whenever(jedi.spec.versions).doReturn(emptyList())
+        whenever(list.items).doReturn(listOf(sith, jedi))
+        // when
+        val definition = definitions.getDefinitionFor(luke)
+        // then
+        assertThat(definition).isEqualTo(jedi)
+    }
+
+    @Test
+    fun `#getDefinitionFor should list definitions only once`() {
+        // given
+        // when
+        definitions.getDefinitionFor(luke)
+        definitions.isCustomResource(luke)
+        definitions.getAll()
+        // then
+        verify(operation, times(1)).list()
+    }
+
+    @Test
+    fun `#getDefinitionFor should watch definitions from listed resource version`() {
+        // given
+        // when
+        definitions.getDefinitionFor(luke)
+        // then
+        val options = argumentCaptor<ListOptions>()
+        verify(operation).watch(options.capture(), any())
+        assertThat(options.firstValue.resourceVersion).isEqualTo("42")
+    }
+
+    @Test
+    fun `#getDefinitionFor should return definition that was added by watch`() {
+        // given
+        definitions.getDefinitionFor(luke)
+        val watcher = getWatcher()
+        // when
+        watcher.eventReceived(Watcher.Action.ADDED, jedi)
+        // then
+        assertThat(definitions.getDefinitionFor(luke)).isEqualTo(jedi)
+        verify(operation, times(1)).list()
+    }
+
+    @Test
+    fun `#getDefinitionFor should NOT return definition that was deleted by watch`() {
+        // given
+        whenever(list.items).doReturn(listOf(sith, jedi))
+        definitions.getDefinitionFor(luke)
+        val watcher = getWatcher()
+        // when
+        watcher.eventReceived(Watcher.Action.DELETED, jedi)
+        // then
+        assertThat(definitions.getDefinitionFor(luke)).isNull()
+    }
+
+    @Test
+    fun `#getDefinitionFor should return definition that was added by watch before definitions were published`() {
+        // given
+        whenever(operation.watch(any<ListOptions>(), any())).doAnswer { invocation ->
+            invocation.getArgument<Watcher<CustomResourceDefinition>>(1).eventReceived(Watcher.Action.ADDED, jedi)
+            watch
+        }
+        // when
+        val definition = definitions.getDefinitionFor(luke)
+        // then
+        assertThat(definition).isEqualTo(jedi)
+        verify(operation, times(1)).list()
+    }
+
+    @Test
+    fun `#getDefinitionFor should close watch if definitions were closed while they were listed`() {
+        // given
+        whenever(operation.list()).doAnswer {
+            definitions.close()
+            list
+        }
+        // when
+        definitions.getDefinitionFor(luke)
+        // then
+        verify(watch).close()
+    }
+
+    @Test
+    fun `#getDefinitionFor should list again if watch was closed`() {
+        // given
+        definitions.getDefinitionFor(luke)
+        val watcher = getWatcher()
+        // when
+        watcher.onClose(WatcherException("the force is gone"))
+        definitions.getDefinitionFor(luke)
+        // then
+        verify(operation, times(2)).list()
+    }
+
+    @Test
+    fun `#getDefinitionFor should list on each request if definitions cannot be watched`() {
+        // given
+        whenever(operation.watch(any<ListOptions>(), any()))
+            .doThrow(KubernetesClientException("forbidden"))
+        // when
+        definitions.getDefinitionFor(luke)
+        definitions.getDefinitionFor(luke)
+        // then
+        verify(operation, times(2)).list()
+    }
+
+    @Test
+    fun `#close should close watch`() {
+        // given
+        definitions.getDefinitionFor(luke)
+        // when
+        definitions.close()
+        // then
+        verify(watch).close()
+    }
+
+    private fun getWatcher(): Watcher<CustomResourceDefinition> {
+        val watcher = argumentCaptor<Watcher<CustomResourceDefinition>>()
+        verify(operation).watch(any<ListOptions>(), watcher.capture())
+        return watcher.firstValue
+    }
+
+    private fun client(
+        operation: MixedOperation<CustomResourceDefinition, CustomResourceDefinitionList, Resource<CustomResourceDefinition>>
+    ): KubernetesClient {
+        val v1beta1 = mock<V1beta1ApiextensionAPIGroupDSL> {
+            on { customResourceDefinitions() } doReturn operation
+        }
+        val apiExtensions = mock<ApiextensionsAPIGroupDSL> {
+            on { v1beta1() } doReturn v1beta1
+        }
+        return mock {
+            on { apiextensions() } doReturn apiExtensions
+        }
+    }
+}
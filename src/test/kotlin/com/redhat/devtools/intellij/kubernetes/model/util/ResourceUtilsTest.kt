@@ -467,4 +467,33 @@ class ResourceUtilsTest {
 		// then
 		assertThat(isWillBeDeleted(neo)).isTrue()
 	}
-}
\ No newline at end of file
+
+	@Test
+	fun `#createResource(tree) should create resource of kind in yaml`() {
+		// given
+		val tree = createTree("""
+			apiVersion: v1
+			kind: Pod
+			metadata:
+			  name: yoda
+			  namespace: dagobah
+			""".trimIndent())
+		// when
+		val resource = createResource<HasMetadata>(tree)
+		// then
+		assertThat(resource).isInstanceOf(Pod::class.java)
+		assertThat(resource.metadata.name).isEqualTo("yoda")
+	}
+
+	@Test
+	fun `#createResource(tree) should create resources of different types from same json`() {
+		// given
+		val tree = createTree("""{ "apiVersion": "v1", "kind": "Service", "metadata": { "name": "x-wing" } }""")
+		// when
+		val generic = createResource<HasMetadataResource>(tree)
+		val service = createResource<HasMetadata>(tree)
+		// then
+		assertThat(generic.metadata.name).isEqualTo("x-wing")
+		assertThat(service).isInstanceOf(Service::class.java)
+	}
+}
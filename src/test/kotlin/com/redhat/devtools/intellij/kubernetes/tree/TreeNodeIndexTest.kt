@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.redhat.devtools.intellij.kubernetes.tree
+
+import com.intellij.ide.util.treeView.NodeDescriptor
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.POD1
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.POD2
+import com.redhat.devtools.intellij.kubernetes.model.mocks.ClientMocks.resource
+import com.redhat.devtools.intellij.kubernetes.model.resource.kubernetes.NamespacedPodsOperator
+import io.fabric8.kubernetes.api.model.Pod
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import javax.swing.JTree
+import javax.swing.tree.DefaultMutableTreeNode
+import javax.swing.tree.DefaultTreeModel
+import javax.swing.tree.TreePath
+
+class TreeNodeIndexTest {
+
+    private val folder = TreeStructure.Folder("Pods", NamespacedPodsOperator.KIND)
+    private val root = node("root")
+    private val folderNode = node(folder)
+    private val treeModel = DefaultTreeModel(root)
+
+    @Test
+    fun `#find should return node that was inserted`() {
+        // given
+        val index = TreeNodeIndex(treeModel)
+        treeModel.insertNodeInto(folderNode, root, 0)
+        val pod = node(POD1)
+        // when
+        treeModel.insertNodeInto(pod, folderNode, 0)
+        // then
+        assertThat(index.find(POD1)).isSameAs(pod)
+    }
+
+    @Test
+    fun `#find should return node of other version of resource`() {
+        // given
+        val index = TreeNodeIndex(treeModel)
+        treeModel.insertNodeInto(folderNode, root, 0)
+        val pod = node(POD1)
+        treeModel.insertNodeInto(pod, folderNode, 0)
+        val modified = resource<Pod>(POD1.metadata.name, POD1.metadata.namespace, POD1.metadata.uid, "v1", "42")
+        // when
+        val found = index.find(modified)
+        // then
+        assertThat(found).isSameAs(pod)
+    }
+
+    @Test
+    fun `#find should return node of folder for its kind and the folder itself`() {
+        // given
+        val index = TreeNodeIndex(treeModel)
+        // when
+        treeModel.insertNodeInto(folderNode, root, 0)
+        // then
+        assertThat(index.find(NamespacedPodsOperator.KIND)).isSameAs(folderNode)
+        assertThat(index.find(folder)).isSameAs(folderNode)
+    }
+
+    @Test
+    fun `#find should index nodes that are in the tree model when it is created`() {
+        // given
+        root.add(folderNode)
+        val pod = node(POD1)
+        folderNode.add(pod)
+        // when
+        val index = TreeNodeIndex(treeModel)
+        // then
+        assertThat(index.find(POD1)).isSameAs(pod)
+    }
+
+    @Test
+    fun `#find should return null for node that was removed`() {
+        // given
+        val index = TreeNodeIndex(treeModel)
+        treeModel.insertNodeInto(folderNode, root, 0)
+        val pod = node(POD1)
+        treeModel.insertNodeInto(pod, folderNode, 0)
+        // when
+        treeModel.removeNodeFromParent(folderNode)
+        // then
+        assertThat(index.find(POD1)).isNull()
+        assertThat(index.find(NamespacedPodsOperator.KIND)).isNull()
+    }
+
+    @Test
+    fun `#find should NOT look up element in tree if it is not indexed`() {
+        // given
+        val index = TreeNodeIndex(treeModel)
+        treeModel.insertNodeInto(folderNode, root, 0)
+        // loaded without notification
+        folderNode.add(node(POD2))
+        // when
+        val found = index.find(POD2)
+        // then
+        assertThat(found).isNull()
+    }
+
+    @Test
+    fun `#find should return node that was loaded when its parent was expanded`() {
+        // given
+        val index = TreeNodeIndex(treeModel)
+        treeModel.insertNodeInto(folderNode, root, 0)
+        val tree = JTree(treeModel)
+        index.install(tree)
+        // loaded without notification
+        val pod = node(POD2)
+        folderNode.add(pod)
+        // when
+        tree.expandPath(TreePath(folderNode.path))
+        // then
+        assertThat(index.find(POD2)).isSameAs(pod)
+    }
+
+    private fun node(element: Any): DefaultMutableTreeNode {
+        val descriptor = mock<NodeDescriptor<Any>> {
+            on { getElement() } doReturn element
+        }
+        return DefaultMutableTreeNode(descriptor)
+    }
+}